@@ -1,31 +1,59 @@
 package com.rental.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rental.dto.BatchReservationRequest;
+import com.rental.dto.ReservationPage;
 import com.rental.dto.ReservationRequest;
 import com.rental.dto.ReservationResponse;
+import com.rental.exception.InvalidReservationException;
 import com.rental.model.Car;
 import com.rental.model.CarType;
+import com.rental.model.ReservationStatus;
+import com.rental.service.AvailabilityStream;
 import com.rental.service.CarRentalService;
+import com.rental.service.ReservationResponseCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/car-rental")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Slf4j
 @CrossOrigin(origins = "*")
 public class CarRentalController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String AVAILABILITY_EVENT = "availability";
+
     private final CarRentalService carRentalService;
+    private final AvailabilityStream availabilityStream;
+    private final ReservationResponseCache responseCache;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/")
     public ResponseEntity<Map<String, String>> home() {
@@ -40,12 +68,24 @@ public class CarRentalController {
     @PostMapping("/reservations")
     public ResponseEntity<ReservationResponse> createReservation(
         @Valid @RequestBody ReservationRequest request) {
-        log.info("Creating reservation for {} - {}", request.getCustomerName(), request.getCarType());
+        log.atInfo().setMessage("Reservation requested")
+            .addKeyValue("carType", request.getCarType())
+            .addKeyValue("durationDays", request.getDurationDays())
+            .log();
 
         ReservationResponse response = carRentalService.createReservation(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/reservations/batch")
+    public ResponseEntity<List<ReservationResponse>> createReservations(
+        @Valid @RequestBody BatchReservationRequest request) {
+        log.info("Creating batch of {} reservations", request.getReservations().size());
+
+        List<ReservationResponse> responses = carRentalService.createReservations(request.getReservations());
+        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+    }
+
     @GetMapping("/reservations/{id}")
     public ResponseEntity<ReservationResponse> getReservation(@PathVariable String id) {
         Optional<ReservationResponse> reservation = carRentalService.getReservation(id);
@@ -68,9 +108,58 @@ public class CarRentalController {
 
     @GetMapping("/reservations/customer/{email}")
     public ResponseEntity<List<ReservationResponse>> getCustomerReservations(
-        @PathVariable String email) {
-        List<ReservationResponse> reservations = carRentalService.getReservationsForCustomer(email);
-        return ResponseEntity.ok(reservations);
+        @PathVariable String email,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            List<ReservationResponse> reservations = carRentalService.getReservationsForCustomer(email);
+            return ResponseEntity.ok(reservations);
+        }
+
+        ReservationPage page = carRentalService.getReservationsForCustomer(
+            email, cursor, limit == null ? DEFAULT_PAGE_SIZE : limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getReservations());
+    }
+
+    /**
+     * Streams reservations as newline-delimited JSON. Rows are read, mapped and serialized one at a time
+     * into a fixed-size buffer, and writes block while the client is not reading, so memory use does not
+     * grow with the number of reservations and a slow client only slows down its own export. The range is
+     * checked up front so an empty one still gets a 400; the export itself is only opened on the thread
+     * that writes the body, so the request thread never holds a scan it does not consume.
+     */
+    @GetMapping(value = "/reservations/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+        @RequestParam(required = false) ReservationStatus status,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidReservationException("Export range start must be before its end");
+        }
+        ObjectWriter writer = objectMapper.writerFor(ReservationResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .withRootValueSeparator("\n");
+
+        StreamingResponseBody body = out -> {
+            long exported = 0;
+            try (Stream<ReservationResponse> reservations = carRentalService.exportReservations(status, from, to);
+                 SequenceWriter lines = writer.writeValues(out)) {
+                for (Iterator<ReservationResponse> it = reservations.iterator(); it.hasNext(); exported++) {
+                    lines.write(it.next());
+                }
+            }
+            if (exported > 0) {
+                out.write('\n');
+            }
+            log.debug("Exported {} reservations", exported);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/cars")
@@ -107,4 +196,44 @@ public class CarRentalController {
         Map<CarType, Long> availability = carRentalService.getAvailabilityByType(startDateTime, endDateTime);
         return ResponseEntity.ok(availability);
     }
-}
\ No newline at end of file
+
+    /**
+     * Streams the number of cars of a type free for the whole window as server-sent events: the current
+     * count first, then a new event whenever bookings or cancellations move it. A client that stops
+     * reading is disconnected once a send has blocked for the stream's send timeout.
+     */
+    @GetMapping(value = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamAvailability(
+        @RequestParam CarType carType,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDateTime,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDateTime) {
+
+        SseEmitter emitter = new SseEmitter();
+        AvailabilityStream.Subscription subscription = availabilityStream.subscribe(carType, startDateTime, endDateTime,
+            update -> {
+                try {
+                    emitter.send(SseEmitter.event().name(AVAILABILITY_EVENT).data(update));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, emitter::complete);
+        emitter.onCompletion(subscription::close);
+        emitter.onError(failure -> subscription.close());
+        return emitter;
+    }
+
+    @GetMapping("/availability/daily")
+    public ResponseEntity<Map<LocalDate, Long>> getDailyAvailability(
+        @RequestParam CarType carType,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        Map<LocalDate, Long> availability = carRentalService.getDailyAvailability(carType, from, to);
+        return ResponseEntity.ok(availability);
+    }
+
+    @GetMapping("/stats/cache")
+    public ResponseEntity<ReservationResponseCache.CacheStats> getCacheStats() {
+        return ResponseEntity.ok(responseCache.stats());
+    }
+}
@@ -1,109 +1,68 @@
 package com.rental.controller;
 
-import com.rental.dto.ReservationRequest;
-import com.rental.dto.ReservationResponse;
-import com.rental.model.Car;
-import com.rental.model.CarType;
-import com.rental.service.CarRentalService;
-import jakarta.validation.Valid;
-import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.format.annotation.DateTimeFormat;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.exception.InvalidReservationException;
+import com.rental.exception.ShardUnavailableException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.*;
-
-@RestController
-@RequestMapping("/api/car-rental")
-@RequiredArgsConstructor
-@Slf4j
-@CrossOrigin(origins = "*")
-public class GlobalExceptionHandler {
-
-    private final CarRentalService carRentalService;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
-    @GetMapping("/")
-    public ResponseEntity<Map<String, String>> home() {
-        return ResponseEntity.ok(Map.of(
-            "message", "🚗 Car Rental System API",
-            "version", "1.0.0",
-            "status", "running",
-            "endpoints", "/api/car-rental/cars, /api/car-rental/reservations"
-        ));
-    }
-
-    @PostMapping("/reservations")
-    public ResponseEntity<ReservationResponse> createReservation(
-        @Valid @RequestBody ReservationRequest request) {
-        log.info("Creating reservation for {} - {}", request.getCustomerName(), request.getCarType());
-
-        ReservationResponse response = carRentalService.createReservation(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
-    }
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-    @GetMapping("/reservations/{id}")
-    public ResponseEntity<ReservationResponse> getReservation(@PathVariable String id) {
-        Optional<ReservationResponse> reservation = carRentalService.getReservation(id);
+@RestControllerAdvice
+public class GlobalExceptionHandler {
 
-        return reservation
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
+        return validationError(ex.getBindingResult());
     }
 
-    @DeleteMapping("/reservations/{id}")
-    public ResponseEntity<Map<String, String>> cancelReservation(@PathVariable String id) {
-        boolean cancelled = carRentalService.cancelReservation(id);
-
-        if (cancelled) {
-            return ResponseEntity.ok(Map.of("message", "Reservation cancelled successfully"));
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    /**
+     * The reactive stack's counterpart of {@link MethodArgumentNotValidException}.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleValidation(WebExchangeBindException ex) {
+        return validationError(ex.getBindingResult());
     }
 
-    @GetMapping("/reservations/customer/{email}")
-    public ResponseEntity<List<ReservationResponse>> getCustomerReservations(
-        @PathVariable String email) {
-        List<ReservationResponse> reservations = carRentalService.getReservationsForCustomer(email);
-        return ResponseEntity.ok(reservations);
+    @ExceptionHandler(InvalidReservationException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidReservation(InvalidReservationException ex) {
+        return error(HttpStatus.BAD_REQUEST, "Invalid Reservation", ex.getMessage(), Map.of());
     }
 
-    @GetMapping("/cars")
-    public ResponseEntity<Map<CarType, List<Car>>> getAllCars() {
-        Map<CarType, List<Car>> carsByType = Map.of(
-            CarType.SEDAN, carRentalService.getCarsByType(CarType.SEDAN),
-            CarType.SUV, carRentalService.getCarsByType(CarType.SUV),
-            CarType.VAN, carRentalService.getCarsByType(CarType.VAN)
-        );
-        return ResponseEntity.ok(carsByType);
+    @ExceptionHandler(CarNotAvailableException.class)
+    public ResponseEntity<Map<String, Object>> handleCarNotAvailable(CarNotAvailableException ex) {
+        return error(HttpStatus.CONFLICT, "Car Not Available", ex.getMessage(), Map.of());
     }
 
-    @GetMapping("/cars/{carType}")
-    public ResponseEntity<List<Car>> getCarsByType(@PathVariable CarType carType) {
-        List<Car> cars = carRentalService.getCarsByType(carType);
-        return ResponseEntity.ok(cars);
+    @ExceptionHandler(ShardUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleShardUnavailable(ShardUnavailableException ex) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "Shard Unavailable", ex.getMessage(), Map.of());
     }
 
-    @GetMapping("/cars/available")
-    public ResponseEntity<List<Car>> getAvailableCars(
-        @RequestParam CarType carType,
-        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDateTime,
-        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDateTime) {
-
-        List<Car> availableCars = carRentalService.getAvailableCars(carType, startDateTime, endDateTime);
-        return ResponseEntity.ok(availableCars);
+    private ResponseEntity<Map<String, Object>> validationError(BindingResult bindingResult) {
+        Map<String, String> details = new LinkedHashMap<>();
+        for (FieldError error : bindingResult.getFieldErrors()) {
+            details.putIfAbsent(error.getField(), error.getDefaultMessage());
+        }
+        return error(HttpStatus.BAD_REQUEST, "Validation Failed", "Invalid input data", details);
     }
 
-    @GetMapping("/availability")
-    public ResponseEntity<Map<CarType, Long>> getAvailability(
-        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDateTime,
-        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDateTime) {
-
-        Map<CarType, Long> availability = carRentalService.getAvailabilityByType(startDateTime, endDateTime);
-        return ResponseEntity.ok(availability);
+    private ResponseEntity<Map<String, Object>> error(HttpStatus status, String error, String message,
+                                                      Map<String, String> details) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", error);
+        body.put("message", message);
+        body.put("details", details);
+        return ResponseEntity.status(status).body(body);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,189 @@
+package com.rental.controller;
+
+import com.rental.dto.AvailabilityUpdate;
+import com.rental.dto.BatchReservationRequest;
+import com.rental.dto.ReservationRequest;
+import com.rental.dto.ReservationResponse;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.ReservationStatus;
+import com.rental.service.AvailabilityStream;
+import com.rental.service.ReactiveCarRentalService;
+import com.rental.service.ReservationResponseCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import jakarta.validation.Valid;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link CarRentalController} API on WebFlux, active when
+ * {@code spring.main.web-application-type=reactive}. Same paths, parameters and responses.
+ */
+@RestController
+@RequestMapping("/api/car-rental")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ReactiveCarRentalController {
+
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final String AVAILABILITY_EVENT = "availability";
+
+    private final ReactiveCarRentalService carRentalService;
+    private final AvailabilityStream availabilityStream;
+    private final ReservationResponseCache responseCache;
+
+    @GetMapping("/")
+    public Mono<Map<String, String>> home() {
+        return Mono.just(Map.of(
+            "message", "🚗 Car Rental System API",
+            "version", "1.0.0",
+            "status", "running",
+            "endpoints", "/api/car-rental/cars, /api/car-rental/reservations"
+        ));
+    }
+
+    @PostMapping("/reservations")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<ReservationResponse> createReservation(@Valid @RequestBody ReservationRequest request) {
+        log.atInfo().setMessage("Reservation requested")
+            .addKeyValue("carType", request.getCarType())
+            .addKeyValue("durationDays", request.getDurationDays())
+            .log();
+
+        return carRentalService.createReservation(request);
+    }
+
+    @PostMapping("/reservations/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<List<ReservationResponse>> createReservations(@Valid @RequestBody BatchReservationRequest request) {
+        log.info("Creating batch of {} reservations", request.getReservations().size());
+
+        return carRentalService.createReservations(request.getReservations());
+    }
+
+    @GetMapping("/reservations/{id}")
+    public Mono<ResponseEntity<ReservationResponse>> getReservation(@PathVariable String id) {
+        return carRentalService.getReservation(id)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/reservations/{id}")
+    public Mono<ResponseEntity<Map<String, String>>> cancelReservation(@PathVariable String id) {
+        return carRentalService.cancelReservation(id)
+            .map(cancelled -> cancelled
+                ? ResponseEntity.ok(Map.of("message", "Reservation cancelled successfully"))
+                : ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/reservations/customer/{email}")
+    public Mono<ResponseEntity<List<ReservationResponse>>> getCustomerReservations(
+        @PathVariable String email,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            return carRentalService.getReservationsForCustomer(email).map(ResponseEntity::ok);
+        }
+
+        return carRentalService.getReservationsForCustomer(email, cursor, limit == null ? DEFAULT_PAGE_SIZE : limit)
+            .map(page -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                if (page.getNextCursor() != null) {
+                    response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+                }
+                return response.body(page.getReservations());
+            });
+    }
+
+    /**
+     * Streams reservations as newline-delimited JSON, reading the next ones only as the client consumes
+     * the previous ones.
+     */
+    @GetMapping(value = "/reservations/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReservationResponse> exportReservations(
+        @RequestParam(required = false) ReservationStatus status,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        return carRentalService.exportReservations(status, from, to);
+    }
+
+    @GetMapping("/cars")
+    public Mono<Map<CarType, List<Car>>> getAllCars() {
+        return Mono.zip(
+                carRentalService.getCarsByType(CarType.SEDAN),
+                carRentalService.getCarsByType(CarType.SUV),
+                carRentalService.getCarsByType(CarType.VAN))
+            .map(cars -> Map.of(CarType.SEDAN, cars.getT1(), CarType.SUV, cars.getT2(), CarType.VAN, cars.getT3()));
+    }
+
+    @GetMapping("/cars/{carType}")
+    public Mono<List<Car>> getCarsByType(@PathVariable CarType carType) {
+        return carRentalService.getCarsByType(carType);
+    }
+
+    @GetMapping("/cars/available")
+    public Mono<List<Car>> getAvailableCars(
+        @RequestParam CarType carType,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDateTime,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDateTime) {
+
+        return carRentalService.getAvailableCars(carType, startDateTime, endDateTime);
+    }
+
+    @GetMapping("/availability")
+    public Mono<Map<CarType, Long>> getAvailability(
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDateTime,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDateTime) {
+
+        return carRentalService.getAvailabilityByType(startDateTime, endDateTime);
+    }
+
+    /**
+     * Server-sent availability events; a client that falls behind skips to the latest count.
+     */
+    @GetMapping(value = "/availability/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<AvailabilityUpdate>> streamAvailability(
+        @RequestParam CarType carType,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDateTime,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDateTime) {
+
+        return Flux.<AvailabilityUpdate>create(sink -> {
+                AvailabilityStream.Subscription subscription =
+                    availabilityStream.subscribe(carType, startDateTime, endDateTime, sink::next);
+                sink.onDispose(subscription::close);
+            }, FluxSink.OverflowStrategy.LATEST)
+            .map(update -> ServerSentEvent.builder(update).event(AVAILABILITY_EVENT).build());
+    }
+
+    @GetMapping("/availability/daily")
+    public Mono<Map<LocalDate, Long>> getDailyAvailability(
+        @RequestParam CarType carType,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return carRentalService.getDailyAvailability(carType, from, to);
+    }
+
+    @GetMapping("/stats/cache")
+    public Mono<ReservationResponseCache.CacheStats> getCacheStats() {
+        return Mono.fromSupplier(responseCache::stats);
+    }
+}
@@ -0,0 +1,30 @@
+package com.rental.dto;
+
+import com.rental.model.CarType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailabilityUpdate {
+
+    private CarType carType;
+    private LocalDateTime startDateTime;
+    private LocalDateTime endDateTime;
+
+    /**
+     * Cars of the type free for the whole window.
+     */
+    private long available;
+
+    /**
+     * Difference to the previously published count; 0 in the first update of a subscription.
+     */
+    private long change;
+}
@@ -0,0 +1,22 @@
+package com.rental.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReservationRequest {
+
+    @NotEmpty(message = "At least one reservation is required")
+    @Size(max = 500, message = "A batch cannot exceed 500 reservations")
+    private List<@Valid ReservationRequest> reservations;
+}
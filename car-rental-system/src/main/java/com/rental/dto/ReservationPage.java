@@ -0,0 +1,22 @@
+package com.rental.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationPage {
+
+    private List<ReservationResponse> reservations;
+
+    /**
+     * Opaque cursor for the following page, or null if this is the last one.
+     */
+    private String nextCursor;
+}
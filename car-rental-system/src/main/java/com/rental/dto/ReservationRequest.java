@@ -33,4 +33,9 @@ public class ReservationRequest {
     @Min(value = 1, message = "Duration must be at least 1 day")
     @Max(value = 365, message = "Duration cannot exceed 365 days")
     private int durationDays;
+
+    /**
+     * Branch to rent from, or null for any branch.
+     */
+    private String branch;
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ public class ReservationResponse {
     private String reservationId;
     private String carId;
     private String licensePlate;
+    private String branch;
     private CarType carType;
     private String customerName;
     private String customerEmail;
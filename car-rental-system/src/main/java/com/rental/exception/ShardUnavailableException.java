@@ -0,0 +1,12 @@
+package com.rental.exception;
+
+public class ShardUnavailableException extends RuntimeException {
+
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+
+    public ShardUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.rental.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class IdConfig {
+
+    /**
+     * The id generator of new cars and reservations. Every instance writing to shared storage needs its
+     * own {@code rental.ids.node-id}.
+     */
+    @Bean
+    public IdGenerator idGenerator(@Value("${rental.ids.node-id:0}") int nodeId) {
+        return new SnowflakeIdGenerator(nodeId);
+    }
+}
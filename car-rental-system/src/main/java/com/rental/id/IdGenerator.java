@@ -0,0 +1,17 @@
+package com.rental.id;
+
+/**
+ * Source of unique 64-bit entity ids. Ids must be non-negative so that {@link Ids} can encode them.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    long nextId();
+
+    /**
+     * @return a new id in the encoded form of {@link Ids}
+     */
+    default String nextEncodedId() {
+        return Ids.encode(nextId());
+    }
+}
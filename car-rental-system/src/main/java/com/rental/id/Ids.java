@@ -0,0 +1,62 @@
+package com.rental.id;
+
+import java.util.Arrays;
+
+/**
+ * Converts entity ids between the {@code long} form an {@link IdGenerator} creates and the compact
+ * string used in the API.
+ * <p>
+ * The string form is the id in Crockford base32: always 13 characters, so lexicographic order matches
+ * numeric (and therefore creation) order. Decoding is strict, so a string decodes only if encoding the
+ * result gives the same string back; ids created by other schemes (such as UUIDs in older journals)
+ * simply do not decode.
+ */
+public final class Ids {
+
+    public static final int ENCODED_LENGTH = 13;
+    public static final long NOT_COMPACT = -1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private Ids() {
+    }
+
+    public static String encode(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Ids must not be negative: " + id);
+        }
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the id encoded by the string, or {@link #NOT_COMPACT} if it is not an encoded id
+     */
+    public static long decode(String encoded) {
+        if (encoded == null || encoded.length() != ENCODED_LENGTH) {
+            return NOT_COMPACT;
+        }
+        long id = 0;
+        for (int i = 0; i < ENCODED_LENGTH; i++) {
+            char c = encoded.charAt(i);
+            int value = c < VALUES.length ? VALUES[c] : -1;
+            if (value < 0 || (i == 0 && value > 7)) {
+                return NOT_COMPACT;
+            }
+            id = id << 5 | value;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,62 @@
+package com.rental.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered 64-bit ids in the Snowflake layout: 41 bits of milliseconds since {@link #EPOCH},
+ * 10 bits of node id and a 12-bit sequence within the millisecond, leaving the sign bit clear.
+ * <p>
+ * Ids are strictly increasing per generator even if the clock steps back. When a millisecond runs out
+ * of sequence numbers the generator moves on to the next one instead of waiting for the clock.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + NODE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final Clock clock;
+    private final long nodeBits;
+    private final AtomicLong lastId = new AtomicLong(-1);
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.clock = clock;
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    @Override
+    public long nextId() {
+        long earliest = (clock.millis() - EPOCH.toEpochMilli()) << TIMESTAMP_SHIFT | nodeBits;
+        return lastId.updateAndGet(last -> {
+            if (earliest > last) {
+                return earliest;
+            }
+            long next = last + 1;
+            if ((next & SEQUENCE_MASK) == 0) {
+                next = ((last >>> TIMESTAMP_SHIFT) + 1) << TIMESTAMP_SHIFT | nodeBits;
+            }
+            return next;
+        });
+    }
+
+    public static int nodeIdOf(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    public static Instant timestampOf(long id) {
+        return EPOCH.plusMillis(id >>> TIMESTAMP_SHIFT);
+    }
+}
@@ -0,0 +1,152 @@
+package com.rental.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency timers and rejection counters for the booking pipeline.
+ * <p>
+ * Every operation gets a {@code rental.booking.duration} timer, and each of its stages a
+ * {@code rental.booking.stage.duration} timer, all publishing percentile histograms so p50/p99 can be
+ * computed by the scraper. Stage time is attributed with a {@link Trace}: every {@link Trace#lap} charges
+ * the time since the previous lap to one stage, so stages visited several times per call (such as the
+ * overlap check of each candidate car) are summed and recorded once per call.
+ */
+@Component
+public class BookingMetrics {
+
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(1_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    public enum Stage {
+        VALIDATION("validation"),
+        CANDIDATE_SEARCH("candidate_search"),
+        OVERLAP_CHECK("overlap_check"),
+        PERSISTENCE("persistence"),
+        CALENDAR("calendar");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Operation {
+        CREATE_RESERVATION("createReservation", true,
+            Stage.VALIDATION, Stage.CANDIDATE_SEARCH, Stage.OVERLAP_CHECK, Stage.PERSISTENCE, Stage.CALENDAR),
+        CREATE_RESERVATIONS("createReservations", true),
+        GET_AVAILABLE_CARS("getAvailableCars", false, Stage.CANDIDATE_SEARCH, Stage.OVERLAP_CHECK),
+        GET_AVAILABILITY_BY_TYPE("getAvailabilityByType", false, Stage.CANDIDATE_SEARCH, Stage.CALENDAR),
+        GET_DAILY_AVAILABILITY("getDailyAvailability", false, Stage.CANDIDATE_SEARCH, Stage.CALENDAR);
+
+        private final String tag;
+        private final boolean books;
+        private final List<Stage> stages;
+
+        Operation(String tag, boolean books, Stage... stages) {
+            this.tag = tag;
+            this.books = books;
+            this.stages = List.of(stages);
+        }
+    }
+
+    private final Map<Operation, Timer> operationTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Stage, Timer>> stageTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> rejections = new EnumMap<>(Operation.class);
+
+    public BookingMetrics(MeterRegistry registry) {
+        for (Operation operation : Operation.values()) {
+            operationTimers.put(operation, timer("rental.booking.duration")
+                .description("Time spent in a booking operation")
+                .tag("operation", operation.tag)
+                .register(registry));
+
+            Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+            for (Stage stage : operation.stages) {
+                timers.put(stage, timer("rental.booking.stage.duration")
+                    .description("Time spent in one stage of a booking operation, per call")
+                    .tags("operation", operation.tag, "stage", stage.tag)
+                    .register(registry));
+            }
+            stageTimers.put(operation, timers);
+
+            if (operation.books) {
+                rejections.put(operation, Counter.builder("rental.booking.rejections")
+                    .description("Requests rejected because no car was available")
+                    .tag("operation", operation.tag)
+                    .register(registry));
+            }
+        }
+    }
+
+    public Trace trace(Operation operation) {
+        return new Trace(operation);
+    }
+
+    /**
+     * Counts a booking operation that failed because no car was available.
+     */
+    public void rejected(Operation operation) {
+        if (!operation.books) {
+            throw new IllegalArgumentException(operation + " does not book cars");
+        }
+        rejections.get(operation).increment();
+    }
+
+    private static Timer.Builder timer(String name) {
+        return Timer.builder(name)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MIN_EXPECTED)
+            .maximumExpectedValue(MAX_EXPECTED);
+    }
+
+    /**
+     * Stage timings of one call. Not thread-safe; create one per call and {@link #finish} it once.
+     */
+    public final class Trace {
+
+        private final Operation operation;
+        private final long[] stageNanos = new long[Stage.values().length];
+        private final long startedAt;
+        private long lapStartedAt;
+        private int visitedStages;
+
+        private Trace(Operation operation) {
+            this.operation = operation;
+            this.startedAt = System.nanoTime();
+            this.lapStartedAt = startedAt;
+        }
+
+        /**
+         * Charges the time since the previous lap (or the start) to the stage.
+         */
+        public void lap(Stage stage) {
+            long now = System.nanoTime();
+            stageNanos[stage.ordinal()] += now - lapStartedAt;
+            visitedStages |= 1 << stage.ordinal();
+            lapStartedAt = now;
+        }
+
+        /**
+         * Records the total time and the time of every stage the call went through.
+         */
+        public void finish() {
+            long elapsed = System.nanoTime() - startedAt;
+            stageTimers.get(operation).forEach((stage, timer) -> {
+                if ((visitedStages & 1 << stage.ordinal()) != 0) {
+                    timer.record(stageNanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+                }
+            });
+            operationTimers.get(operation).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+}
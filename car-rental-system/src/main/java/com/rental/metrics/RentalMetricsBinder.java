@@ -0,0 +1,68 @@
+package com.rental.metrics;
+
+import com.rental.repository.CarRepository;
+import com.rental.repository.ReservationRepository;
+import com.rental.service.AvailabilityStream;
+import com.rental.service.ReservationResponseCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges for repository and index sizes, the response cache counters and availability stream fan-out.
+ * All values are read when the registry is scraped, so nothing is recorded on the request path.
+ */
+@Component
+@RequiredArgsConstructor
+public class RentalMetricsBinder implements MeterBinder {
+
+    private final CarRepository carRepository;
+    private final ReservationRepository reservationRepository;
+    private final ReservationResponseCache responseCache;
+    private final AvailabilityStream availabilityStream;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("rental.repository.size", carRepository, CarRepository::count)
+            .description("Entities held by a repository")
+            .tag("repository", "cars")
+            .register(registry);
+        Gauge.builder("rental.repository.size", reservationRepository, ReservationRepository::count)
+            .description("Entities held by a repository")
+            .tag("repository", "reservations")
+            .register(registry);
+
+        for (String index : reservationRepository.indexSizes().keySet()) {
+            Gauge.builder("rental.index.size", reservationRepository,
+                    repository -> repository.indexSizes().getOrDefault(index, 0))
+                .description("Entries in a reservation repository index")
+                .tag("index", index)
+                .register(registry);
+        }
+
+        FunctionCounter.builder("rental.cache.requests", responseCache, cache -> cache.stats().hits())
+            .description("Response cache lookups")
+            .tag("result", "hit")
+            .register(registry);
+        FunctionCounter.builder("rental.cache.requests", responseCache, cache -> cache.stats().misses())
+            .description("Response cache lookups")
+            .tag("result", "miss")
+            .register(registry);
+        FunctionCounter.builder("rental.cache.evictions", responseCache, cache -> cache.stats().evictions())
+            .description("Response cache entries dropped for size or age")
+            .register(registry);
+        Gauge.builder("rental.cache.size", responseCache, cache -> cache.stats().size())
+            .description("Responses currently cached")
+            .register(registry);
+
+        Gauge.builder("rental.availability.stream.subscribers", availabilityStream, AvailabilityStream::subscriberCount)
+            .description("Open availability stream subscriptions")
+            .register(registry);
+        Gauge.builder("rental.availability.stream.windows", availabilityStream, AvailabilityStream::windowCount)
+            .description("Distinct car type and time windows watched by availability streams")
+            .register(registry);
+    }
+}
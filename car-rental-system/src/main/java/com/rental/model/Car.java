@@ -5,16 +5,21 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.util.UUID;
-
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Car {
 
+    public static final String DEFAULT_BRANCH = "main";
+
+    private String id;
+
+    /**
+     * Branch the car is rented out from; it decides which shard owns the car and its reservations.
+     */
     @Builder.Default
-    private String id = UUID.randomUUID().toString();
+    private String branch = DEFAULT_BRANCH;
 
     private String licensePlate;
     private CarType carType;
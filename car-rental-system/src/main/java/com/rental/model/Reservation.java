@@ -1,46 +1,104 @@
 package com.rental.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.ZoneOffset;
 
+/**
+ * A booking of one car. The rental period is kept as epoch minutes (UTC wall-clock) with the end
+ * precomputed, so overlap checks compare two primitives and allocate nothing; {@link LocalDateTime}
+ * values are only produced for callers at the API boundary. Times are truncated to the minute.
+ * <p>
+ * The builder fills in a missing creation time. Ids are assigned by the repository when a reservation
+ * is first saved, as is the creation time of reservations created with the no-arg constructor.
+ */
 @Data
-@Builder
 @NoArgsConstructor
-@AllArgsConstructor
 public class Reservation {
 
-    @Builder.Default
-    private String id = UUID.randomUUID().toString();
+    public static final long MINUTES_PER_DAY = 24 * 60;
 
+    private String id;
     private String carId;
     private String customerName;
     private String customerEmail;
-    private LocalDateTime startDateTime;
+    private long startMinute;
+    @Setter(AccessLevel.NONE)
+    private long endMinute;
     private int durationDays;
     private double totalCost;
-
-    @Builder.Default
     private ReservationStatus status = ReservationStatus.ACTIVE;
+    private LocalDateTime createdAt;
 
-    @Builder.Default
-    private LocalDateTime createdAt = LocalDateTime.now();
+    @Builder
+    private Reservation(String id, String carId, String customerName, String customerEmail,
+                        LocalDateTime startDateTime, int durationDays, double totalCost,
+                        ReservationStatus status, LocalDateTime createdAt) {
+        this.id = id;
+        this.carId = carId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.startMinute = startDateTime != null ? toEpochMinute(startDateTime) : 0;
+        this.durationDays = durationDays;
+        this.endMinute = startMinute + durationDays * MINUTES_PER_DAY;
+        this.totalCost = totalCost;
+        this.status = status != null ? status : ReservationStatus.ACTIVE;
+        this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
+    }
+
+    public void setStartMinute(long startMinute) {
+        this.startMinute = startMinute;
+        this.endMinute = startMinute + durationDays * MINUTES_PER_DAY;
+    }
+
+    public void setDurationDays(int durationDays) {
+        this.durationDays = durationDays;
+        this.endMinute = startMinute + durationDays * MINUTES_PER_DAY;
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return fromEpochMinute(startMinute);
+    }
+
+    public void setStartDateTime(LocalDateTime startDateTime) {
+        setStartMinute(toEpochMinute(startDateTime));
+    }
 
     public LocalDateTime getEndDateTime() {
-        return startDateTime.plusDays(durationDays);
+        return fromEpochMinute(endMinute);
     }
 
     public boolean overlapsWithPeriod(LocalDateTime periodStart, LocalDateTime periodEnd) {
+        return overlapsWithPeriod(toEpochMinute(periodStart), toEpochMinuteCeiling(periodEnd));
+    }
+
+    public boolean overlapsWithPeriod(long periodStartMinute, long periodEndMinute) {
         if (status != ReservationStatus.ACTIVE) {
             return false;
         }
 
-        LocalDateTime reservationEnd = getEndDateTime();
+        return startMinute < periodEndMinute && endMinute > periodStartMinute;
+    }
+
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Rounds up instead of down, for the end of a queried period: a period ending inside a minute
+     * still conflicts with a reservation starting at the beginning of that minute.
+     */
+    public static long toEpochMinuteCeiling(LocalDateTime dateTime) {
+        long minute = toEpochMinute(dateTime);
+        return dateTime.getSecond() == 0 && dateTime.getNano() == 0 ? minute : minute + 1;
+    }
 
-        return startDateTime.isBefore(periodEnd) && reservationEnd.isAfter(periodStart);
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
     }
-}
\ No newline at end of file
+}
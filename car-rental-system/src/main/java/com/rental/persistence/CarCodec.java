@@ -0,0 +1,56 @@
+package com.rental.persistence;
+
+import com.rental.model.Car;
+import com.rental.model.CarType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import static com.rental.persistence.EntityCodec.readNullableUTF;
+import static com.rental.persistence.EntityCodec.writeNullableUTF;
+
+public class CarCodec implements EntityCodec<Car> {
+
+    /**
+     * Precedes the branch. Records written before cars had a branch continue with the licence plate's
+     * presence flag, which is never this value, so they still decode (as cars of the default branch).
+     */
+    private static final byte BRANCH_MARKER = 2;
+
+    @Override
+    public void write(Car car, DataOutput out) throws IOException {
+        out.writeUTF(car.getId());
+        out.writeByte(BRANCH_MARKER);
+        writeNullableUTF(out, car.getBranch());
+        writeNullableUTF(out, car.getLicensePlate());
+        out.writeByte(car.getCarType() == null ? -1 : car.getCarType().ordinal());
+        writeNullableUTF(out, car.getBrand());
+        writeNullableUTF(out, car.getModel());
+        out.writeInt(car.getYear());
+        out.writeBoolean(car.isAvailable());
+    }
+
+    @Override
+    public Car read(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String branch = Car.DEFAULT_BRANCH;
+        byte next = in.readByte();
+        if (next == BRANCH_MARKER) {
+            branch = readNullableUTF(in);
+            next = in.readByte();
+        }
+        String licensePlate = next != 0 ? in.readUTF() : null;
+        byte carType = in.readByte();
+        return Car.builder()
+            .id(id)
+            .branch(branch)
+            .licensePlate(licensePlate)
+            .carType(carType < 0 ? null : CarType.values()[carType])
+            .brand(readNullableUTF(in))
+            .model(readNullableUTF(in))
+            .year(in.readInt())
+            .available(in.readBoolean())
+            .build();
+    }
+}
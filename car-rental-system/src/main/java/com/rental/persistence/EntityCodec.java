@@ -0,0 +1,27 @@
+package com.rental.persistence;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of an entity for the journal.
+ * @param <T> the entity type
+ */
+public interface EntityCodec<T> {
+
+    void write(T entity, DataOutput out) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    static void writeNullableUTF(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullableUTF(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
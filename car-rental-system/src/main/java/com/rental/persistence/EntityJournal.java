@@ -0,0 +1,116 @@
+package com.rental.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Durable record of the writes made to a repository, replayed to rebuild it on startup.
+ * @param <T> the entity type
+ */
+public interface EntityJournal<T> extends AutoCloseable {
+
+    /**
+     * Records the current state of an entity.
+     * @param entity the saved entity
+     * @return a future completed once the record is durable
+     */
+    CompletableFuture<Void> logSave(T entity);
+
+    /**
+     * Records the current state of several entities as one unit that is replayed either completely or not at all.
+     * @param entities the saved entities
+     * @return a future completed once every record is durable
+     */
+    default CompletableFuture<Void> logSaveAll(List<T> entities) {
+        return CompletableFuture.allOf(entities.stream()
+            .map(this::logSave)
+            .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Records the removal of an entity.
+     * @param id the id of the deleted entity
+     * @return a future completed once the record is durable
+     */
+    CompletableFuture<Void> logDelete(String id);
+
+    /**
+     * Replays the latest snapshot followed by every write recorded after it, in order.
+     * @param onSave receives each saved entity state
+     * @param onDelete receives each deleted id
+     * @return number of records replayed
+     */
+    int replay(Consumer<T> onSave, Consumer<String> onDelete);
+
+    /**
+     * Marks a write as in flight from before the repository applies it in memory until its record is
+     * durable or the change is rolled back, so {@link #checkpoint} never snapshots a change that may still
+     * be rolled back.
+     * @return closed once the write is settled
+     */
+    default InFlightWrite beginWrite() {
+        return InFlightWrite.NONE;
+    }
+
+    /**
+     * Snapshots the repository so that the records it covers can be discarded.
+     * @param state supplies a copy of every entity currently held by the repository
+     */
+    default void checkpoint(Supplier<? extends Collection<T>> state) {
+    }
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * A journal that records nothing, used when persistence is disabled.
+     */
+    static <T> EntityJournal<T> none() {
+        return new EntityJournal<>() {
+            @Override
+            public CompletableFuture<Void> logSave(T entity) {
+                return WriteAheadLog.durable();
+            }
+
+            @Override
+            public CompletableFuture<Void> logDelete(String id) {
+                return WriteAheadLog.durable();
+            }
+
+            @Override
+            public int replay(Consumer<T> onSave, Consumer<String> onDelete) {
+                return 0;
+            }
+        };
+    }
+
+    /**
+     * A write between {@link #beginWrite()} and its settlement.
+     */
+    interface InFlightWrite extends AutoCloseable {
+
+        InFlightWrite NONE = () -> { };
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Blocks until the given journal write is durable, rethrowing its failure unwrapped.
+     */
+    static void await(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
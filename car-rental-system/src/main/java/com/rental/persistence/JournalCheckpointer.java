@@ -0,0 +1,36 @@
+package com.rental.persistence;
+
+import com.rental.model.Car;
+import com.rental.model.Reservation;
+import com.rental.repository.CarRepository;
+import com.rental.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically snapshots the repositories in the background so that startup only replays the journal
+ * tail written since the last snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JournalCheckpointer {
+
+    private final EntityJournal<Reservation> reservationJournal;
+    private final EntityJournal<Car> carJournal;
+    private final ReservationRepository reservationRepository;
+    private final CarRepository carRepository;
+
+    @Scheduled(initialDelayString = "${rental.persistence.snapshot-interval-ms:600000}",
+        fixedDelayString = "${rental.persistence.snapshot-interval-ms:600000}")
+    public void checkpoint() {
+        try {
+            reservationJournal.checkpoint(reservationRepository::snapshotHot);
+            carJournal.checkpoint(carRepository::findAll);
+        } catch (RuntimeException e) {
+            log.error("Failed to snapshot repositories; the journal keeps growing until the next attempt", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.rental.persistence;
+
+import com.rental.model.Car;
+import com.rental.model.Reservation;
+import com.rental.repository.InMemoryReservationHistory;
+import com.rental.repository.ReservationHistory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableScheduling
+public class PersistenceConfig {
+
+    @Value("${rental.persistence.enabled:false}")
+    private boolean enabled;
+
+    @Value("${rental.persistence.directory:data}")
+    private String directory;
+
+    @Value("${rental.persistence.fsync:true}")
+    private boolean fsync;
+
+    @Bean
+    public EntityJournal<Reservation> reservationJournal() {
+        return journal("reservations", new ReservationCodec());
+    }
+
+    @Bean
+    public EntityJournal<Car> carJournal() {
+        return journal("cars", new CarCodec());
+    }
+
+    @Bean
+    public ReservationHistory reservationHistory() {
+        if (!enabled) {
+            return new InMemoryReservationHistory();
+        }
+        return new SegmentReservationHistory(Path.of(directory, "history"), fsync);
+    }
+
+    private <T> EntityJournal<T> journal(String name, EntityCodec<T> codec) {
+        if (!enabled) {
+            return EntityJournal.none();
+        }
+        return new WriteAheadJournal<>(new WriteAheadLog(Path.of(directory), name, fsync), codec);
+    }
+}
@@ -0,0 +1,65 @@
+package com.rental.persistence;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static com.rental.persistence.EntityCodec.readNullableUTF;
+import static com.rental.persistence.EntityCodec.writeNullableUTF;
+
+public class ReservationCodec implements EntityCodec<Reservation> {
+
+    @Override
+    public void write(Reservation reservation, DataOutput out) throws IOException {
+        out.writeUTF(reservation.getId());
+        writeNullableUTF(out, reservation.getCarId());
+        writeNullableUTF(out, reservation.getCustomerName());
+        writeNullableUTF(out, reservation.getCustomerEmail());
+        writeDateTime(out, reservation.getStartDateTime());
+        out.writeInt(reservation.getDurationDays());
+        out.writeDouble(reservation.getTotalCost());
+        out.writeByte(reservation.getStatus() == null ? -1 : reservation.getStatus().ordinal());
+        writeDateTime(out, reservation.getCreatedAt());
+    }
+
+    @Override
+    public Reservation read(DataInput in) throws IOException {
+        return Reservation.builder()
+            .id(in.readUTF())
+            .carId(readNullableUTF(in))
+            .customerName(readNullableUTF(in))
+            .customerEmail(readNullableUTF(in))
+            .startDateTime(readDateTime(in))
+            .durationDays(in.readInt())
+            .totalCost(in.readDouble())
+            .status(readStatus(in))
+            .createdAt(readDateTime(in))
+            .build();
+    }
+
+    private static ReservationStatus readStatus(DataInput in) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : ReservationStatus.values()[ordinal];
+    }
+
+    static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        out.writeBoolean(dateTime != null);
+        if (dateTime != null) {
+            out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(dateTime.getNano());
+        }
+    }
+
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+}
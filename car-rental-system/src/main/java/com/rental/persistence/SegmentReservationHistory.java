@@ -0,0 +1,712 @@
+package com.rental.persistence;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.ReservationHistory;
+import com.rental.repository.ReservationSecondaryIndex;
+import com.rental.repository.TimelineCursor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.rental.persistence.EntityCodec.readNullableUTF;
+import static com.rental.persistence.EntityCodec.writeNullableUTF;
+
+/**
+ * History tier on local disk, partitioned by the month a reservation starts in.
+ * <p>
+ * Each partition is an append-only segment file ({@code reservations-2026-10.seg}) of blocks framed as
+ * {@code [length][crc32][deflated payload]}; one {@link #addAll} call writes one block per partition it
+ * touches. A payload holds a sequence number followed by save and delete records, and the highest
+ * sequence number wins when the same reservation appears in several blocks. Reads inflate a block and
+ * decode only the records asked for, and the most recently read blocks are cached.
+ * <p>
+ * Next to each segment, an index file ({@code reservations-2026-10.idx}) holds one uncompressed frame
+ * per block with the offset of each record within the inflated block and the car, customer, status and
+ * creation time of each save. The heap keeps the id to block location map and a
+ * {@link ReservationSecondaryIndex} of the tier, both rebuilt from the index files without inflating a
+ * block, and lookups by car, customer and status are served from them.
+ * <p>
+ * {@link #load()} must run before anything else: it reads the index files, indexes the blocks an index
+ * file does not cover yet (because a crash cut it short, or it predates index files) and cuts off a torn
+ * tail left by a crash, like {@link WriteAheadLog#replay}.
+ */
+@Slf4j
+public class SegmentReservationHistory implements ReservationHistory {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int CACHED_BLOCKS = 32;
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final long OFFSET_MASK = (1L << 40) - 1;
+    private static final long MIN_EPOCH_DAY = LocalDate.MIN.toEpochDay();
+    private static final long MAX_EPOCH_DAY = LocalDate.MAX.toEpochDay();
+    private static final Pattern SEGMENT_NAME = Pattern.compile("reservations-(\\d{4})-(\\d{2})\\.seg");
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ReservationCodec codec = new ReservationCodec();
+    private final Map<String, RecordLocation> locations = new ConcurrentHashMap<>();
+    private final NavigableMap<Integer, FileChannel> partitions = new ConcurrentSkipListMap<>();
+    private final Map<Integer, FileChannel> indexFiles = new ConcurrentHashMap<>();
+    private final ReservationSecondaryIndex index = new ReservationSecondaryIndex();
+    private final Map<Long, byte[]> blockCache = new LinkedHashMap<>(CACHED_BLOCKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > CACHED_BLOCKS;
+        }
+    };
+    private long sequence;
+
+    public SegmentReservationHistory(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    @Override
+    public synchronized void load() {
+        try {
+            Files.createDirectories(directory);
+            for (Map.Entry<Integer, Path> segment : segmentFiles().entrySet()) {
+                partitions.put(segment.getKey(), FileChannel.open(segment.getValue(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE));
+            }
+            Map<String, Long> latestSequence = new HashMap<>();
+            for (Map.Entry<Integer, FileChannel> partition : partitions.entrySet()) {
+                loadPartition(partition.getKey(), partition.getValue(), latestSequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load reservation history from " + directory, e);
+        }
+        if (!locations.isEmpty()) {
+            log.info("Loaded {} historical reservations from {} partitions", locations.size(), partitions.size());
+        }
+    }
+
+    @Override
+    public synchronized void addAll(List<Reservation> reservations) {
+        Map<Integer, List<Reservation>> byPartition = reservations.stream()
+            .filter(reservation -> !isStored(reservation))
+            .collect(Collectors.groupingBy(reservation -> partitionOf(reservation.getStartMinute()),
+                TreeMap::new, Collectors.toList()));
+        for (Map.Entry<Integer, List<Reservation>> partition : byPartition.entrySet()) {
+            List<Reservation> saves = partition.getValue();
+            List<RecordLocation> stored = append(partition.getKey(), saves, List.of());
+            for (int i = 0; i < saves.size(); i++) {
+                locations.put(saves.get(i).getId(), stored.get(i));
+                index.update(saves.get(i));
+            }
+        }
+    }
+
+    @Override
+    public Reservation get(String id) {
+        RecordLocation location = locations.get(id);
+        return location == null ? null : decodeAt(block(location.block()), location.offset(), id);
+    }
+
+    /**
+     * Groups the ids by block, so each block is looked up and inflated once however many of the ids it
+     * holds.
+     */
+    @Override
+    public Map<String, Reservation> getAll(Collection<String> ids) {
+        Map<Long, Map<String, Integer>> offsetsByBlock = new HashMap<>();
+        for (String id : ids) {
+            RecordLocation location = locations.get(id);
+            if (location != null) {
+                offsetsByBlock.computeIfAbsent(location.block(), block -> new HashMap<>()).put(id, location.offset());
+            }
+        }
+        Map<String, Reservation> found = new HashMap<>();
+        for (Map.Entry<Long, Map<String, Integer>> block : offsetsByBlock.entrySet()) {
+            byte[] payload = block(block.getKey());
+            block.getValue().forEach((id, offset) -> {
+                Reservation reservation = decodeAt(payload, offset, id);
+                if (reservation != null) {
+                    found.put(id, reservation);
+                }
+            });
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized boolean remove(String id) {
+        RecordLocation location = locations.remove(id);
+        if (location == null) {
+            return false;
+        }
+        index.remove(id);
+        append(partitionAt(location.block()), List.of(), List.of(id));
+        return true;
+    }
+
+    @Override
+    public Set<String> idsForCar(String carId) {
+        return index.idsForCar(carId);
+    }
+
+    @Override
+    public List<TimelineCursor> customerTimeline(String customerEmail, TimelineCursor after, int limit) {
+        return index.customerTimeline(customerEmail, after, limit);
+    }
+
+    @Override
+    public Set<String> idsWithStatus(ReservationStatus status) {
+        return index.idsWithStatus(status);
+    }
+
+    @Override
+    public Iterator<Reservation> scan(long fromMinute, long toMinute) {
+        int firstPartition = partitionOf(fromMinute);
+        int lastPartition = partitionOf(toMinute - 1);
+        Iterator<Map.Entry<Integer, FileChannel>> segments =
+            partitions.subMap(firstPartition, true, lastPartition, true).entrySet().iterator();
+        return new Iterator<>() {
+
+            private final ArrayDeque<Reservation> buffered = new ArrayDeque<>();
+            private Map.Entry<Integer, FileChannel> segment;
+            private long position;
+            private long size;
+
+            @Override
+            public boolean hasNext() {
+                while (buffered.isEmpty()) {
+                    if (segment == null || position >= size) {
+                        if (!segments.hasNext()) {
+                            return false;
+                        }
+                        segment = segments.next();
+                        position = 0;
+                        size = sizeOf(segment.getValue());
+                        continue;
+                    }
+                    long location = location(segment.getKey(), position);
+                    byte[] payload = block(location);
+                    position += HEADER_BYTES + storedLength(segment.getValue(), position);
+                    for (Reservation reservation : decode(payload)) {
+                        RecordLocation stored = locations.get(reservation.getId());
+                        if (stored != null && stored.block() == location
+                            && reservation.getStartMinute() >= fromMinute && reservation.getStartMinute() < toMinute) {
+                            buffered.add(reservation);
+                        }
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Reservation next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return buffered.poll();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return locations.size();
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public int partitions() {
+        return partitions.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (FileChannel channel : Stream.concat(partitions.values().stream(), indexFiles.values().stream()).toList()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close reservation history segment in {}", directory, e);
+            }
+        }
+    }
+
+    /**
+     * Skips reservations already stored unchanged, so replaying a journal that overlaps the history does
+     * not append them again.
+     */
+    private boolean isStored(Reservation reservation) {
+        return locations.containsKey(reservation.getId()) && reservation.equals(get(reservation.getId()));
+    }
+
+    /**
+     * @return where each of the saves was stored, in order
+     */
+    private List<RecordLocation> append(int partition, List<Reservation> saves, List<String> deletes) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            long blockSequence = ++sequence;
+            out.writeLong(blockSequence);
+            out.writeInt(saves.size() + deletes.size());
+            int[] offsets = new int[saves.size()];
+            for (int i = 0; i < saves.size(); i++) {
+                out.writeByte(SAVE);
+                offsets[i] = out.size();
+                codec.write(saves.get(i), out);
+            }
+            for (String id : deletes) {
+                out.writeByte(DELETE);
+                out.writeUTF(id);
+            }
+            byte[] payload = deflate(bytes.toByteArray());
+
+            FileChannel channel = partitions.computeIfAbsent(partition, this::createSegment);
+            long position = channel.size();
+            ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+            block.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+            while (block.hasRemaining()) {
+                channel.write(block, position + block.position());
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            long location = location(partition, position);
+            List<RecordLocation> stored = new ArrayList<>(offsets.length);
+            List<IndexEntry> entries = new ArrayList<>(offsets.length + deletes.size());
+            for (int i = 0; i < offsets.length; i++) {
+                stored.add(new RecordLocation(location, offsets[i]));
+                entries.add(IndexEntry.saved(saves.get(i), offsets[i]));
+            }
+            deletes.forEach(id -> entries.add(IndexEntry.deleted(id)));
+            writeIndex(partition, new IndexFrame(position, payload.length, blockSequence, entries));
+            return stored;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to reservation history in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads the partition's index file as far as it matches the segment, then indexes the blocks after
+     * that from the segment itself and appends their frames to the index file.
+     */
+    private void loadPartition(int partition, FileChannel segment, Map<String, Long> latestSequence) throws IOException {
+        long size = segment.size();
+        FileChannel indexFile = indexFile(partition);
+        long indexSize = indexFile.size();
+        long indexPosition = 0;
+        long indexed = 0;
+        while (indexPosition + HEADER_BYTES <= indexSize) {
+            byte[] payload = readFrame(indexFile, indexPosition, indexSize);
+            if (payload == null) {
+                break;
+            }
+            IndexFrame frame = IndexFrame.decode(payload);
+            if (frame.blockPosition() != indexed || frame.blockEnd() > size) {
+                break;
+            }
+            applyIndex(partition, frame, latestSequence);
+            indexed = frame.blockEnd();
+            indexPosition += HEADER_BYTES + payload.length;
+        }
+        if (indexPosition < indexSize) {
+            indexFile.truncate(indexPosition);
+        }
+
+        long position = indexed;
+        int rebuilt = 0;
+        while (position + HEADER_BYTES <= size) {
+            byte[] stored = readFrame(segment, position, size);
+            if (stored == null) {
+                break;
+            }
+            IndexFrame frame = indexBlock(position, stored.length, inflate(stored));
+            applyIndex(partition, frame, latestSequence);
+            writeIndex(partition, frame);
+            position = frame.blockEnd();
+            rebuilt++;
+        }
+        if (position < size) {
+            log.warn("Truncating reservation history partition {} at {} of {} bytes", monthOf(partition), position, size);
+            segment.truncate(position);
+        }
+        if (rebuilt > 0) {
+            log.info("Indexed {} blocks of reservation history partition {}", rebuilt, monthOf(partition));
+        }
+    }
+
+    /**
+     * @return the payload of the intact frame at the position, or null if it is torn or corrupt
+     */
+    private static byte[] readFrame(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer header = read(channel, position, HEADER_BYTES);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length < 0 || position + HEADER_BYTES + length > size) {
+            return null;
+        }
+        byte[] payload = read(channel, position + HEADER_BYTES, length).array();
+        return checksum(payload) == checksum ? payload : null;
+    }
+
+    private IndexFrame indexBlock(long position, int storedLength, byte[] payload) throws IOException {
+        ByteArrayInputStream bytes = new ByteArrayInputStream(payload);
+        DataInputStream in = new DataInputStream(bytes);
+        long blockSequence = in.readLong();
+        int records = in.readInt();
+        List<IndexEntry> entries = new ArrayList<>(records);
+        for (; records > 0; records--) {
+            if (in.readByte() == SAVE) {
+                int offset = payload.length - bytes.available();
+                entries.add(IndexEntry.saved(codec.read(in), offset));
+            } else {
+                entries.add(IndexEntry.deleted(in.readUTF()));
+            }
+        }
+        return new IndexFrame(position, storedLength, blockSequence, entries);
+    }
+
+    private void applyIndex(int partition, IndexFrame frame, Map<String, Long> latestSequence) {
+        sequence = Math.max(sequence, frame.sequence());
+        long location = location(partition, frame.blockPosition());
+        for (IndexEntry entry : frame.entries()) {
+            Long seen = latestSequence.get(entry.id());
+            if (seen != null && seen > frame.sequence()) {
+                continue;
+            }
+            latestSequence.put(entry.id(), frame.sequence());
+            if (entry.isSave()) {
+                locations.put(entry.id(), new RecordLocation(location, entry.offset()));
+                index.update(entry.id(), entry.carId(), entry.customerEmail(), entry.status(), entry.createdAt());
+            } else {
+                locations.remove(entry.id());
+                index.remove(entry.id());
+            }
+        }
+    }
+
+    private void writeIndex(int partition, IndexFrame frame) throws IOException {
+        byte[] payload = frame.encode();
+        FileChannel channel = indexFile(partition);
+        long position = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private byte[] block(long location) {
+        synchronized (blockCache) {
+            byte[] cached = blockCache.get(location);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        FileChannel channel = partitions.get(partitionAt(location));
+        long position = offsetOf(location);
+        try {
+            int length = storedLength(channel, position);
+            byte[] payload = inflate(read(channel, position + HEADER_BYTES, length).array());
+            synchronized (blockCache) {
+                blockCache.put(location, payload);
+            }
+            return payload;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read reservation history in " + directory, e);
+        }
+    }
+
+    private List<Reservation> decode(byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            in.readLong();
+            int records = in.readInt();
+            List<Reservation> reservations = new ArrayList<>(records);
+            for (; records > 0; records--) {
+                if (in.readByte() == SAVE) {
+                    reservations.add(codec.read(in));
+                } else {
+                    in.readUTF();
+                }
+            }
+            return reservations;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt reservation history block in " + directory, e);
+        }
+    }
+
+    /**
+     * Decodes the single save record at an offset of an inflated block.
+     * @return the reservation, or null if the record there belongs to another id
+     */
+    private Reservation decodeAt(byte[] payload, int offset, String id) {
+        try {
+            Reservation reservation = codec.read(new DataInputStream(
+                new ByteArrayInputStream(payload, offset, payload.length - offset)));
+            return reservation.getId().equals(id) ? reservation : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt reservation history block in " + directory, e);
+        }
+    }
+
+    private int storedLength(FileChannel channel, long position) {
+        try {
+            return read(channel, position, Integer.BYTES).getInt();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read reservation history in " + directory, e);
+        }
+    }
+
+    private long sizeOf(FileChannel channel) {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read reservation history in " + directory, e);
+        }
+    }
+
+    private FileChannel createSegment(int partition) {
+        Path path = pathOf(partition, "seg");
+        try {
+            Files.createDirectories(directory);
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create reservation history segment " + path, e);
+        }
+    }
+
+    private FileChannel indexFile(int partition) {
+        return indexFiles.computeIfAbsent(partition, key -> {
+            Path path = pathOf(key, "idx");
+            try {
+                return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open reservation history index " + path, e);
+            }
+        });
+    }
+
+    private Path pathOf(int partition, String extension) {
+        YearMonth month = monthOf(partition);
+        return directory.resolve(String.format("reservations-%04d-%02d.%s", month.getYear(), month.getMonthValue(), extension));
+    }
+
+    private Map<Integer, Path> segmentFiles() throws IOException {
+        Map<Integer, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Integer.parseInt(matcher.group(1)) * 12 + Integer.parseInt(matcher.group(2)) - 1, file);
+                }
+            });
+        }
+        return segments;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of reservation history segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated reservation history block");
+                }
+                out.write(chunk, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt reservation history block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return the partition of an epoch minute, as months since year 0
+     */
+    private static int partitionOf(long epochMinute) {
+        long epochDay = Math.floorDiv(epochMinute, Reservation.MINUTES_PER_DAY);
+        if (epochDay < MIN_EPOCH_DAY) {
+            return Integer.MIN_VALUE;
+        }
+        if (epochDay > MAX_EPOCH_DAY) {
+            return Integer.MAX_VALUE;
+        }
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        return day.getYear() * 12 + day.getMonthValue() - 1;
+    }
+
+    private static YearMonth monthOf(int partition) {
+        return YearMonth.of(partition / 12, partition % 12 + 1);
+    }
+
+    private static long location(int partition, long offset) {
+        return (long) partition << 40 | offset;
+    }
+
+    private static int partitionAt(long location) {
+        return (int) (location >> 40);
+    }
+
+    private static long offsetOf(long location) {
+        return location & OFFSET_MASK;
+    }
+
+    /**
+     * Where a saved reservation is stored: the block location and the offset of its record within the
+     * inflated block.
+     */
+    private record RecordLocation(long block, int offset) {
+    }
+
+    /**
+     * Index file frame of one block: where the block is, its sequence number and its records.
+     */
+    private record IndexFrame(long blockPosition, int storedLength, long sequence, List<IndexEntry> entries) {
+
+        long blockEnd() {
+            return blockPosition + HEADER_BYTES + storedLength;
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(blockPosition);
+            out.writeInt(storedLength);
+            out.writeLong(sequence);
+            out.writeInt(entries.size());
+            for (IndexEntry entry : entries) {
+                out.writeUTF(entry.id());
+                out.writeInt(entry.offset());
+                if (entry.isSave()) {
+                    writeNullableUTF(out, entry.carId());
+                    writeNullableUTF(out, entry.customerEmail());
+                    out.writeByte(entry.status() == null ? -1 : entry.status().ordinal());
+                    ReservationCodec.writeDateTime(out, entry.createdAt());
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        static IndexFrame decode(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            long blockPosition = in.readLong();
+            int storedLength = in.readInt();
+            long sequence = in.readLong();
+            int records = in.readInt();
+            List<IndexEntry> entries = new ArrayList<>(records);
+            for (; records > 0; records--) {
+                String id = in.readUTF();
+                int offset = in.readInt();
+                if (offset < 0) {
+                    entries.add(IndexEntry.deleted(id));
+                    continue;
+                }
+                String carId = readNullableUTF(in);
+                String customerEmail = readNullableUTF(in);
+                byte status = in.readByte();
+                entries.add(new IndexEntry(id, offset, carId, customerEmail,
+                    status < 0 ? null : ReservationStatus.values()[status], ReservationCodec.readDateTime(in)));
+            }
+            return new IndexFrame(blockPosition, storedLength, sequence, entries);
+        }
+    }
+
+    /**
+     * A save record's offset within the inflated block and the attributes it is looked up by, or a delete
+     * record, which has no offset.
+     */
+    private record IndexEntry(String id, int offset, String carId, String customerEmail, ReservationStatus status,
+                              LocalDateTime createdAt) {
+
+        static IndexEntry saved(Reservation reservation, int offset) {
+            return new IndexEntry(reservation.getId(), offset, reservation.getCarId(), reservation.getCustomerEmail(),
+                reservation.getStatus(), reservation.getCreatedAt());
+        }
+
+        static IndexEntry deleted(String id) {
+            return new IndexEntry(id, -1, null, null, null, null);
+        }
+
+        boolean isSave() {
+            return offset >= 0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.rental.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Point-in-time image of a repository, written and read through memory-mapped windows.
+ * <p>
+ * Layout: a fixed header ({@code magic, version, segment, entity count, data length, crc32}) followed by
+ * length-prefixed entity records in the {@link EntityCodec} format. The segment number says which
+ * write-ahead log segment the replay has to continue from. Files are written under a temporary name,
+ * cut to their data length (mapped windows extend them in {@value #WINDOW_BYTES}-byte steps) and renamed
+ * into place once complete, so a crash never leaves a half-written snapshot behind. The directory is
+ * synced after the rename so the new name survives a crash too.
+ */
+final class SnapshotFile {
+
+    private static final int MAGIC = 0x52534E50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES * 3 + Integer.BYTES;
+    private static final int WINDOW_BYTES = 8 * 1024 * 1024;
+
+    private SnapshotFile() {
+    }
+
+    static <T> void write(Path target, long segment, Collection<T> entities, EntityCodec<T> codec) throws IOException {
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        long dataLength = 0;
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            long windowStart = HEADER_BYTES;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, WINDOW_BYTES);
+
+            for (T entity : entities) {
+                bytes.reset();
+                out.writeInt(0);
+                codec.write(entity, out);
+                out.flush();
+                byte[] record = bytes.toByteArray();
+                ByteBuffer.wrap(record).putInt(0, record.length - Integer.BYTES);
+
+                if (window.remaining() < record.length) {
+                    window.force();
+                    windowStart += window.position();
+                    window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart,
+                        Math.max(WINDOW_BYTES, record.length));
+                }
+                window.put(record);
+                crc.update(record);
+                dataLength += record.length;
+            }
+            window.force();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(segment)
+                .putLong(entities.size())
+                .putLong(dataLength)
+                .putInt((int) crc.getValue());
+            header.force();
+            channel.truncate(HEADER_BYTES + dataLength);
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    /**
+     * Makes a rename in the directory durable. Platforms that cannot open a directory for syncing
+     * (Windows) only get the rename's own guarantees.
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Streams the entities of a snapshot to the consumer.
+     * @return the write-ahead log segment to continue replaying from
+     */
+    static <T> long read(Path source, EntityCodec<T> codec, Consumer<T> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Snapshot " + source + " is truncated");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format in " + source);
+            }
+            long segment = header.getLong();
+            long count = header.getLong();
+            long dataLength = header.getLong();
+            int expectedCrc = header.getInt();
+            if (HEADER_BYTES + dataLength > channel.size()) {
+                throw new IOException("Snapshot " + source + " is truncated");
+            }
+
+            CRC32 crc = new CRC32();
+            long position = HEADER_BYTES;
+            long end = HEADER_BYTES + dataLength;
+            long read = 0;
+            long windowBytes = WINDOW_BYTES;
+            while (position < end) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(windowBytes, end - position));
+                int consumed = 0;
+                while (window.remaining() >= Integer.BYTES) {
+                    int length = window.getInt(window.position());
+                    if (length < 0 || window.remaining() < Integer.BYTES + length) {
+                        break;
+                    }
+                    ByteBuffer record = window.slice(window.position(), Integer.BYTES + length);
+                    crc.update(record.duplicate());
+                    record.position(Integer.BYTES);
+                    try (DataInputStream in = new DataInputStream(new ByteBufferInputStream(record))) {
+                        consumer.accept(codec.read(in));
+                    }
+                    window.position(window.position() + Integer.BYTES + length);
+                    consumed += Integer.BYTES + length;
+                    read++;
+                }
+                if (consumed == 0) {
+                    long needed = window.remaining() < Integer.BYTES ? Long.MAX_VALUE : Integer.BYTES + (long) window.getInt(0);
+                    if (needed <= windowBytes || needed > end - position) {
+                        throw new IOException("Snapshot " + source + " is corrupt");
+                    }
+                    windowBytes = needed;
+                    continue;
+                }
+                windowBytes = WINDOW_BYTES;
+                position += consumed;
+            }
+            if (read != count || (int) crc.getValue() != expectedCrc) {
+                throw new IOException("Snapshot " + source + " failed its integrity check");
+            }
+            return segment;
+        }
+    }
+}
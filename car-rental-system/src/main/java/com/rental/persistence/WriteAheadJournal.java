@@ -0,0 +1,191 @@
+package com.rental.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * {@link EntityJournal} backed by a {@link WriteAheadLog}; every record holds the full state of one or
+ * more saved entities (a batch is written as a single record) or the id of a deleted one.
+ * <p>
+ * {@link #checkpoint(Supplier)} rotates the log, writes a {@link SnapshotFile} of the repository next to
+ * it and deletes the segments the snapshot covers. Writing the snapshot waits for the writes in flight
+ * (see {@link #beginWrite()}) and holds off new ones until it is done, so a change whose record fails
+ * and is rolled back, in place or not, never ends up in a snapshot. Writes settled between the rotation
+ * and the snapshot are in both; records hold full entity states and deletes are idempotent, so
+ * replaying the new segment on top of the snapshot still converges.
+ * @param <T> the entity type
+ */
+@Slf4j
+public class WriteAheadJournal<T> implements EntityJournal<T> {
+
+    private static final byte SAVE = 1;
+    private static final byte DELETE = 2;
+    private static final byte SAVE_ALL = 3;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final WriteAheadLog wal;
+    private final EntityCodec<T> codec;
+    private final ReentrantReadWriteLock inFlight = new ReentrantReadWriteLock();
+
+    public WriteAheadJournal(WriteAheadLog wal, EntityCodec<T> codec) {
+        this.wal = wal;
+        this.codec = codec;
+    }
+
+    @Override
+    public CompletableFuture<Void> logSave(T entity) {
+        return wal.append(encode(out -> {
+            out.writeByte(SAVE);
+            codec.write(entity, out);
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Void> logSaveAll(List<T> entities) {
+        return wal.append(encode(out -> {
+            out.writeByte(SAVE_ALL);
+            out.writeInt(entities.size());
+            for (T entity : entities) {
+                codec.write(entity, out);
+            }
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Void> logDelete(String id) {
+        return wal.append(encode(out -> {
+            out.writeByte(DELETE);
+            out.writeUTF(id);
+        }));
+    }
+
+    @Override
+    public InFlightWrite beginWrite() {
+        Lock writing = inFlight.readLock();
+        writing.lock();
+        return writing::unlock;
+    }
+
+    @Override
+    public int replay(Consumer<T> onSave, Consumer<String> onDelete) {
+        int[] records = {0};
+        Consumer<T> countingSave = entity -> {
+            onSave.accept(entity);
+            records[0]++;
+        };
+        List<Long> snapshots = snapshots();
+        long fromSegment = 0;
+        if (!snapshots.isEmpty()) {
+            try {
+                fromSegment = SnapshotFile.read(snapshotPath(snapshots.get(snapshots.size() - 1)), codec, countingSave);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load snapshot of " + wal.name(), e);
+            }
+        }
+        wal.replay(fromSegment, record -> {
+            try (DataInputStream in = new DataInputStream(new ByteBufferInputStream(record))) {
+                byte type = in.readByte();
+                if (type == SAVE) {
+                    countingSave.accept(codec.read(in));
+                } else if (type == SAVE_ALL) {
+                    for (int i = in.readInt(); i > 0; i--) {
+                        countingSave.accept(codec.read(in));
+                    }
+                } else if (type == DELETE) {
+                    onDelete.accept(in.readUTF());
+                    records[0]++;
+                } else {
+                    throw new IOException("Unknown journal record type " + type);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot decode journal record", e);
+            }
+        });
+        return records[0];
+    }
+
+    @Override
+    public synchronized void checkpoint(Supplier<? extends Collection<T>> state) {
+        if (wal.appendedSinceRotation() == 0) {
+            return;
+        }
+        long segment = wal.rotate().join();
+        Collection<T> entities;
+        inFlight.writeLock().lock();
+        try {
+            entities = state.get();
+            SnapshotFile.write(snapshotPath(segment), segment, entities, codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot of " + wal.name(), e);
+        } finally {
+            inFlight.writeLock().unlock();
+        }
+        wal.deleteSegmentsBefore(segment);
+        for (long old : snapshots()) {
+            if (old < segment) {
+                try {
+                    Files.deleteIfExists(snapshotPath(old));
+                } catch (IOException e) {
+                    log.warn("Cannot delete old snapshot {}", snapshotPath(old), e);
+                }
+            }
+        }
+        log.info("Snapshot of {} with {} entities taken at segment {}", wal.name(), entities.size(), segment);
+    }
+
+    @Override
+    public void close() {
+        wal.close();
+    }
+
+    private List<Long> snapshots() {
+        String prefix = wal.name() + "-";
+        try (Stream<Path> files = Files.list(wal.directory())) {
+            return files
+                .map(path -> path.getFileName().toString())
+                .filter(file -> file.startsWith(prefix) && file.endsWith(SNAPSHOT_SUFFIX))
+                .map(file -> file.substring(prefix.length(), file.length() - SNAPSHOT_SUFFIX.length()))
+                .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                .map(Long::parseLong)
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list snapshots of " + wal.name(), e);
+        }
+    }
+
+    private Path snapshotPath(long segment) {
+        return wal.directory().resolve(String.format("%s-%08d%s", wal.name(), segment, SNAPSHOT_SUFFIX));
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot encode journal record", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,409 @@
+package com.rental.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of opaque records with group commit, split into numbered segment files.
+ * <p>
+ * Each record is framed as {@code [length][crc32][payload]}. Appends are queued and a single flusher
+ * thread writes whatever has accumulated with one gathering write followed by one {@code force}, so
+ * concurrent writers share the cost of an fsync. The future returned by {@link #append(byte[])}
+ * completes once the record is durable.
+ * <p>
+ * {@link #rotate()} goes through the same queue, so every record appended before it lands in the old
+ * segment and every record appended after it in the new one. Old segments can then be dropped once a
+ * snapshot covers them.
+ * <p>
+ * {@link #replay(long, Consumer)} must run before the first append: it validates the log, cuts off a
+ * torn tail left by a crash and positions the log for writing.
+ * <p>
+ * A failed commit is cut back off the segment, so records committed later never follow a torn frame
+ * that replay would stop at. If even that fails, or the flusher hits an unexpected error, the log
+ * refuses every further write.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int MAX_BATCH = 1024;
+    private static final String SEGMENT_SUFFIX = ".wal";
+    private static final CompletableFuture<Void> DURABLE = CompletableFuture.completedFuture(null);
+
+    private final Path directory;
+    private final String name;
+    private final boolean fsync;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appendedSinceRotation = new AtomicLong();
+    private final Thread flusher;
+    private volatile FileChannel channel;
+    private volatile long segment;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public WriteAheadLog(Path directory, String name, boolean fsync) {
+        this.directory = directory;
+        this.name = name;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = segments();
+            this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+            this.channel = openSegment(segment);
+            this.channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open write-ahead log " + name + " in " + directory, e);
+        }
+        this.flusher = new Thread(this::flushLoop, "wal-flusher-" + name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a record for the next group commit.
+     * @param payload the record bytes
+     * @return a future completed when the record has been written and forced to disk
+     */
+    public CompletableFuture<Void> append(byte[] payload) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write-ahead log is closed: " + name));
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failed());
+        }
+        PendingWrite write = new PendingWrite(frame(payload));
+        queue.add(write);
+        appendedSinceRotation.incrementAndGet();
+        return write.durable;
+    }
+
+    /**
+     * Closes the current segment after everything queued so far and continues in a new one.
+     * @return a future completed with the number of the new segment
+     */
+    public CompletableFuture<Long> rotate() {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write-ahead log is closed: " + name));
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failed());
+        }
+        PendingWrite marker = new PendingWrite(null);
+        appendedSinceRotation.set(0);
+        queue.add(marker);
+        return marker.durable.thenApply(ignored -> marker.rotatedTo);
+    }
+
+    /**
+     * Feeds every intact record of the segments numbered {@code fromSegment} and later to the consumer,
+     * oldest first, and truncates anything after the last intact record of the newest segment.
+     * @param fromSegment the first segment to replay
+     * @param consumer receives each record payload
+     * @return number of records replayed
+     */
+    public synchronized int replay(long fromSegment, Consumer<ByteBuffer> consumer) {
+        try {
+            int records = 0;
+            for (long replayed : segments()) {
+                if (replayed < fromSegment) {
+                    continue;
+                }
+                boolean current = replayed == segment;
+                try (FileChannel segmentChannel = current ? null : openSegment(replayed)) {
+                    records += replaySegment(current ? channel : segmentChannel, replayed, current, consumer);
+                }
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay write-ahead log " + name, e);
+        }
+    }
+
+    /**
+     * Deletes every segment numbered below the given one.
+     */
+    public void deleteSegmentsBefore(long keptSegment) {
+        try {
+            for (long old : segments()) {
+                if (old < keptSegment) {
+                    Files.deleteIfExists(segmentPath(old));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete old segments of write-ahead log " + name, e);
+        }
+    }
+
+    public long appendedSinceRotation() {
+        return appendedSinceRotation.get();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+            IllegalStateException failure = new IllegalStateException("Write-ahead log is closed: " + name);
+            for (PendingWrite write = queue.poll(); write != null; write = queue.poll()) {
+                write.durable.completeExceptionally(failure);
+            }
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to close write-ahead log {}", name, e);
+        }
+    }
+
+    static CompletableFuture<Void> durable() {
+        return DURABLE;
+    }
+
+    private int replaySegment(FileChannel segmentChannel, long number, boolean current,
+                              Consumer<ByteBuffer> consumer) throws IOException {
+        long size = segmentChannel.size();
+        long position = 0;
+        int records = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(segmentChannel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(segmentChannel, payload, position + HEADER_BYTES);
+            payload.flip();
+            if (checksum(payload) != checksum) {
+                break;
+            }
+            consumer.accept(payload.asReadOnlyBuffer());
+            position += HEADER_BYTES + length;
+            records++;
+        }
+        if (position < size) {
+            log.warn("Dropping {} bytes of torn or corrupt records from {}", size - position, segmentPath(number));
+            if (current) {
+                segmentChannel.truncate(position);
+            }
+        }
+        if (current) {
+            segmentChannel.position(position);
+        }
+        return records;
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                int from = 0;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batch.get(i).isRotation()) {
+                        commit(batch.subList(from, i));
+                        switchSegment(batch.get(i));
+                        from = i + 1;
+                    }
+                }
+                commit(batch.subList(from, batch.size()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                failBatch(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Fails the log for good after an unexpected error in the flusher, and every write of the batch and
+     * the queue with it, so no writer is left waiting on a future nobody completes. The flusher keeps
+     * running to refuse whatever is queued later.
+     */
+    private void failBatch(List<PendingWrite> batch, Throwable cause) {
+        log.error("Write-ahead log {} flusher failed, refusing further writes", name, cause);
+        failure = cause instanceof IOException io ? io : new IOException("Write-ahead log flusher failed", cause);
+        UncheckedIOException refused = failed();
+        batch.forEach(write -> write.durable.completeExceptionally(refused));
+        for (PendingWrite write = queue.poll(); write != null; write = queue.poll()) {
+            write.durable.completeExceptionally(refused);
+        }
+    }
+
+    private void commit(List<PendingWrite> writes) {
+        if (writes.isEmpty()) {
+            return;
+        }
+        if (failure != null) {
+            UncheckedIOException refused = failed();
+            writes.forEach(write -> write.durable.completeExceptionally(refused));
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[writes.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = writes.get(i).frame;
+            remaining += buffers[i].remaining();
+        }
+        long start = -1;
+        try {
+            start = channel.position();
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            writes.forEach(write -> write.durable.complete(null));
+        } catch (IOException e) {
+            log.error("Failed to commit {} records to write-ahead log {}", writes.size(), name, e);
+            UncheckedIOException error = new UncheckedIOException("Write-ahead log commit failed: " + name, e);
+            writes.forEach(write -> write.durable.completeExceptionally(error));
+            cutBack(start, e);
+        }
+    }
+
+    /**
+     * Removes whatever a failed commit left behind the last durable record, or fails the log for good
+     * if the position of that record is unknown or cannot be restored.
+     */
+    private void cutBack(long position, IOException cause) {
+        if (position >= 0) {
+            try {
+                channel.truncate(position);
+                channel.position(position);
+                if (fsync) {
+                    channel.force(false);
+                }
+                return;
+            } catch (IOException e) {
+                cause.addSuppressed(e);
+            }
+        }
+        log.error("Cannot cut failed commit off write-ahead log {}, refusing further writes", name);
+        failure = cause;
+    }
+
+    private UncheckedIOException failed() {
+        return new UncheckedIOException("Write-ahead log failed and refuses writes: " + name, failure);
+    }
+
+    private void switchSegment(PendingWrite marker) {
+        if (failure != null) {
+            marker.durable.completeExceptionally(failed());
+            return;
+        }
+        try {
+            FileChannel next = openSegment(segment + 1);
+            channel.force(true);
+            channel.close();
+            channel = next;
+            segment++;
+            marker.rotatedTo = segment;
+            marker.durable.complete(null);
+            log.debug("Write-ahead log {} rotated to segment {}", name, segment);
+        } catch (IOException e) {
+            log.error("Failed to rotate write-ahead log {}", name, e);
+            marker.durable.completeExceptionally(new UncheckedIOException("Write-ahead log rotation failed: " + name, e));
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        String prefix = name + "-";
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(path -> path.getFileName().toString())
+                .filter(file -> file.startsWith(prefix) && file.endsWith(SEGMENT_SUFFIX))
+                .map(file -> file.substring(prefix.length(), file.length() - SEGMENT_SUFFIX.length()))
+                .filter(number -> !number.isEmpty() && number.chars().allMatch(Character::isDigit))
+                .map(Long::parseLong)
+                .sorted()
+                .toList();
+        }
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s-%08d%s", name, number, SEGMENT_SUFFIX));
+    }
+
+    private void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of write-ahead log " + name);
+            }
+        }
+    }
+
+    private static ByteBuffer frame(byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        frame.putInt(payload.length);
+        frame.putInt(checksum(ByteBuffer.wrap(payload)));
+        frame.put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    private static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private static final class PendingWrite {
+
+        private final ByteBuffer frame;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+        private long rotatedTo;
+
+        private PendingWrite(ByteBuffer frame) {
+            this.frame = frame;
+        }
+
+        boolean isRotation() {
+            return frame == null;
+        }
+    }
+}
@@ -10,10 +10,14 @@ public interface CarRepository {
 
     List<Car> findAll();
 
+    long count();
+
     Optional<Car> findById(String id);
 
     List<Car> findByCarType(CarType carType);
 
+    List<Car> findByBranchAndCarType(String branch, CarType carType);
+
     List<Car> findAvailableByCarType(CarType carType);
 
     Car save(Car car);
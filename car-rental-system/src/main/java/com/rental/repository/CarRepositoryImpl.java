@@ -1,23 +1,65 @@
 package com.rental.repository;
 
+import com.rental.id.IdGenerator;
+import com.rental.id.SnowflakeIdGenerator;
 import com.rental.model.Car;
 import com.rental.model.CarType;
+import com.rental.persistence.EntityJournal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import jakarta.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 @Repository
 @Slf4j
 public class CarRepositoryImpl implements CarRepository {
 
     private final Map<String, Car> cars = new ConcurrentHashMap<>();
+    private final Map<CarType, TypePartition> partitions = new EnumMap<>(CarType.class);
+    private final Map<String, IndexedState> indexedStates = new HashMap<>();
+    private final EntityJournal<Car> journal;
+    private final String fleetBranch;
+    private final IdGenerator idGenerator;
+
+    public CarRepositoryImpl() {
+        this(EntityJournal.none());
+    }
+
+    public CarRepositoryImpl(EntityJournal<Car> journal) {
+        this(journal, Car.DEFAULT_BRANCH);
+    }
+
+    public CarRepositoryImpl(EntityJournal<Car> journal, String fleetBranch) {
+        this(journal, fleetBranch, new SnowflakeIdGenerator(0));
+    }
+
+    /**
+     * @param fleetBranch branch of the cars seeded into an empty repository
+     */
+    @Autowired
+    public CarRepositoryImpl(EntityJournal<Car> journal, @Value("${rental.fleet.branch:main}") String fleetBranch,
+                             IdGenerator idGenerator) {
+        this.journal = journal;
+        this.fleetBranch = fleetBranch;
+        this.idGenerator = idGenerator;
+        for (CarType carType : CarType.values()) {
+            partitions.put(carType, new TypePartition());
+        }
+    }
 
     @PostConstruct
     public void initializeData() {
+        int records = journal.replay(this::apply, this::unapply);
+        if (!cars.isEmpty()) {
+            log.info("Recovered {} cars from {} journal records", cars.size(), records);
+            return;
+        }
+
         List<Car> initialCars = Arrays.asList(
             Car.builder().licensePlate("ABC123").carType(CarType.SEDAN).brand("Toyota").model("Camry").year(2022).build(),
             Car.builder().licensePlate("DEF456").carType(CarType.SEDAN).brand("Honda").model("Accord").year(2023).build(),
@@ -31,8 +73,9 @@ public class CarRepositoryImpl implements CarRepository {
             Car.builder().licensePlate("VWX234").carType(CarType.VAN).brand("Mercedes").model("Sprinter").year(2023).build()
         );
 
-        initialCars.forEach(car -> cars.put(car.getId(), car));
-        log.info("Initialized {} cars in repository", cars.size());
+        initialCars.forEach(car -> car.setBranch(fleetBranch));
+        initialCars.forEach(this::save);
+        log.info("Initialized {} cars of branch {} in repository", cars.size(), fleetBranch);
     }
 
     @Override
@@ -40,6 +83,11 @@ public class CarRepositoryImpl implements CarRepository {
         return new ArrayList<>(cars.values());
     }
 
+    @Override
+    public long count() {
+        return cars.size();
+    }
+
     @Override
     public Optional<Car> findById(String id) {
         return Optional.ofNullable(cars.get(id));
@@ -47,47 +95,157 @@ public class CarRepositoryImpl implements CarRepository {
 
     @Override
     public List<Car> findByCarType(CarType carType) {
-        return cars.values().stream()
-            .filter(car -> car.getCarType() == carType)
-            .collect(Collectors.toList());
+        return new ArrayList<>(partition(carType).all.values());
+    }
+
+    @Override
+    public List<Car> findByBranchAndCarType(String branch, CarType carType) {
+        List<Car> found = new ArrayList<>();
+        for (Car car : partition(carType).all.values()) {
+            if (Objects.equals(car.getBranch(), branch)) {
+                found.add(car);
+            }
+        }
+        return found;
     }
 
     @Override
     public List<Car> findAvailableByCarType(CarType carType) {
-        return cars.values().stream()
-            .filter(car -> car.getCarType() == carType && car.isAvailable())
-            .collect(Collectors.toList());
+        return new ArrayList<>(partition(carType).available.values());
     }
 
     @Override
     public Car save(Car car) {
-        if (car.getId() == null) {
-            car.setId(UUID.randomUUID().toString());
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            if (car.getId() == null) {
+                car.setId(idGenerator.nextEncodedId());
+            }
+            CompletableFuture<Void> durable;
+            Car previous;
+            synchronized (this) {
+                previous = cars.get(car.getId());
+                apply(car);
+                durable = journal.logSave(car);
+            }
+            awaitOrRollBack(durable, () -> {
+                if (cars.get(car.getId()) != car || previous == car) {
+                    return;
+                }
+                if (previous == null) {
+                    unapply(car.getId());
+                } else {
+                    apply(previous);
+                }
+            });
+            log.debug("Saved car: {}", car.getId());
+            return car;
         }
-        cars.put(car.getId(), car);
-        log.debug("Saved car: {}", car.getId());
-        return car;
     }
 
     @Override
     public void deleteById(String id) {
-        Car removed = cars.remove(id);
-        if (removed != null) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            CompletableFuture<Void> durable;
+            Car existing;
+            synchronized (this) {
+                existing = cars.get(id);
+                if (!unapply(id)) {
+                    return;
+                }
+                durable = journal.logDelete(id);
+            }
+            awaitOrRollBack(durable, () -> {
+                if (!cars.containsKey(id)) {
+                    apply(existing);
+                }
+            });
             log.debug("Deleted car: {}", id);
         }
     }
 
     @Override
     public long countByCarType(CarType carType) {
-        return cars.values().stream()
-            .filter(car -> car.getCarType() == carType)
-            .count();
+        return partition(carType).all.size();
     }
 
     @Override
     public long countAvailableByCarType(CarType carType) {
-        return cars.values().stream()
-            .filter(car -> car.getCarType() == carType && car.isAvailable())
-            .count();
+        return partition(carType).available.size();
+    }
+
+    /**
+     * Waits for the journal write and, if it failed, undoes the in-memory change before rethrowing. The
+     * rollbacks leave a car alone once a later write has replaced it; a stored instance changed in place
+     * by the caller has no previous state to go back to.
+     */
+    private void awaitOrRollBack(CompletableFuture<Void> durable, Runnable rollback) {
+        try {
+            EntityJournal.await(durable);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                rollback.run();
+            }
+            log.warn("Journal write failed, rolled back the in-memory change", e);
+            throw e;
+        }
+    }
+
+    private void apply(Car car) {
+        cars.put(car.getId(), car);
+        unindex(car.getId());
+        index(car);
+    }
+
+    private boolean unapply(String id) {
+        Car removed = cars.remove(id);
+        unindex(id);
+        return removed != null;
+    }
+
+    private TypePartition partition(CarType carType) {
+        return carType == null ? TypePartition.EMPTY : partitions.get(carType);
+    }
+
+    private void index(Car car) {
+        if (car.getCarType() == null) {
+            return;
+        }
+        TypePartition partition = partitions.get(car.getCarType());
+        partition.all.put(car.getId(), car);
+        if (car.isAvailable()) {
+            partition.available.put(car.getId(), car);
+        }
+        indexedStates.put(car.getId(), new IndexedState(car.getCarType(), car.isAvailable()));
+    }
+
+    private void unindex(String id) {
+        IndexedState previous = indexedStates.remove(id);
+        if (previous == null) {
+            return;
+        }
+        TypePartition partition = partitions.get(previous.carType);
+        partition.all.remove(id);
+        if (previous.available) {
+            partition.available.remove(id);
+        }
+    }
+
+    private static final class TypePartition {
+
+        private static final TypePartition EMPTY = new TypePartition();
+
+        private final Map<String, Car> all = new ConcurrentHashMap<>();
+        private final Map<String, Car> available = new ConcurrentHashMap<>();
+    }
+
+    private static final class IndexedState {
+
+        private final CarType carType;
+        private final boolean available;
+
+        private IndexedState(CarType carType, boolean available) {
+            this.carType = carType;
+            this.available = available;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.rental.repository;
+
+/**
+ * Free stretch of a car's timeline around a requested period, in epoch minutes: from the end of the
+ * previous active reservation to the start of the next one. Sides without a reservation are unbounded
+ * and hold {@link Long#MIN_VALUE} or {@link Long#MAX_VALUE}.
+ */
+public record FreeGap(long startMinute, long endMinute) {
+
+    public static final FreeGap UNBOUNDED = new FreeGap(Long.MIN_VALUE, Long.MAX_VALUE);
+
+    public boolean isBoundedBefore() {
+        return startMinute != Long.MIN_VALUE;
+    }
+
+    public boolean isBoundedAfter() {
+        return endMinute != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return length of the gap in minutes, or {@link Long#MAX_VALUE} if either side is unbounded
+     */
+    public long length() {
+        return isBoundedBefore() && isBoundedAfter() ? endMinute - startMinute : Long.MAX_VALUE;
+    }
+}
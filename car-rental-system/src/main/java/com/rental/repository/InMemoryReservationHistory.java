@@ -0,0 +1,74 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * History tier kept on the heap, used when persistence is disabled.
+ */
+public class InMemoryReservationHistory implements ReservationHistory {
+
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final ReservationSecondaryIndex index = new ReservationSecondaryIndex();
+
+    @Override
+    public void load() {
+    }
+
+    @Override
+    public void addAll(List<Reservation> batch) {
+        for (Reservation reservation : batch) {
+            reservations.put(reservation.getId(), reservation);
+            index.update(reservation);
+        }
+    }
+
+    @Override
+    public Reservation get(String id) {
+        return reservations.get(id);
+    }
+
+    @Override
+    public boolean remove(String id) {
+        index.remove(id);
+        return reservations.remove(id) != null;
+    }
+
+    @Override
+    public Set<String> idsForCar(String carId) {
+        return index.idsForCar(carId);
+    }
+
+    @Override
+    public List<TimelineCursor> customerTimeline(String customerEmail, TimelineCursor after, int limit) {
+        return index.customerTimeline(customerEmail, after, limit);
+    }
+
+    @Override
+    public Set<String> idsWithStatus(ReservationStatus status) {
+        return index.idsWithStatus(status);
+    }
+
+    @Override
+    public Iterator<Reservation> scan(long fromMinute, long toMinute) {
+        return reservations.values().stream()
+            .filter(reservation -> reservation.getStartMinute() >= fromMinute && reservation.getStartMinute() < toMinute)
+            .iterator();
+    }
+
+    @Override
+    public int size() {
+        return reservations.size();
+    }
+
+    @Override
+    public int partitions() {
+        return 1;
+    }
+}
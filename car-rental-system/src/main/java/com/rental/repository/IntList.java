@@ -0,0 +1,67 @@
+package com.rental.repository;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used for row lists that would otherwise box every element.
+ */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    void insert(int index, int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes the element at the index, keeping the order of the others.
+     */
+    int removeAt(int index) {
+        int removed = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes one occurrence of the value by moving the last element into its place.
+     */
+    boolean removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int removeLast() {
+        return values[--size];
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rental.repository;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive longs, used as a priority queue without boxing its elements.
+ */
+final class LongMinHeap {
+
+    private long[] values = new long[16];
+    private int size;
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (values[parent] <= value) {
+                break;
+            }
+            values[index] = values[parent];
+            index = parent;
+        }
+        values[index] = value;
+    }
+
+    /**
+     * @return the smallest value; the heap must not be empty
+     */
+    long peek() {
+        return values[0];
+    }
+
+    /**
+     * Removes and returns the smallest value; the heap must not be empty.
+     */
+    long poll() {
+        long smallest = values[0];
+        long last = values[--size];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && values[child + 1] < values[child]) {
+                child++;
+            }
+            if (last <= values[child]) {
+                break;
+            }
+            values[index] = values[child];
+            index = child;
+        }
+        if (size > 0) {
+            values[index] = last;
+        }
+        return smallest;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,972 @@
+package com.rental.repository;
+
+import com.rental.id.IdGenerator;
+import com.rental.id.Ids;
+import com.rental.id.SnowflakeIdGenerator;
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.persistence.EntityJournal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@link ReservationRepository} that keeps reservations in off-heap columns instead of one object graph
+ * per reservation; enabled with {@code rental.reservations.store=offheap}.
+ * <p>
+ * Fixed-width fields live in direct {@link ByteBuffer} columns allocated in chunks of {@value #CHUNK_ROWS}
+ * rows, and every string (car ids, names, emails) is interned once in a {@link StringPool} so a row
+ * only holds int references. Compact ids (see {@link Ids}) are stored as their {@code long} value and
+ * looked up through a primitive map; other ids, such as UUIDs replayed from older journals, fall back
+ * to the pool and a boxed map. Per-car and per-customer row lists replace the heap indexes. Overlap
+ * checks read the start and end columns directly. Customer row lists are kept in {@link TimelineCursor}
+ * order. {@link Reservation} objects are only materialized for the rows a query returns. Returned
+ * objects are copies: changes must be written back with {@link #save}.
+ * <p>
+ * Only active rows are in the per-car row lists overlap checks scan; cancelled and completed rows move
+ * to separate per-car lists. Active rows are queued by end time in a min-heap of (end minute, row)
+ * pairs; entries are checked against the row when taken, so rows that changed or were reused since
+ * need no removal.
+ * <p>
+ * Writes to a car are serialized by one of {@value #LOCK_STRIPES} striped locks, under which bookings
+ * check for overlaps sharing the read lock with queries. The read-write lock guards the columns and
+ * indexes, and writes hold it exclusively only while updating them. Journal durability is awaited
+ * outside both, and a write whose journal record fails is undone before the failure reaches the caller.
+ */
+@Repository
+@ConditionalOnProperty(name = "rental.reservations.store", havingValue = "offheap")
+@Slf4j
+public class OffHeapReservationRepository implements ReservationRepository {
+
+    static final int CHUNK_ROWS = 1 << 16;
+    private static final int ROW_MASK = CHUNK_ROWS - 1;
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_ROWS);
+    private static final int SCAN_BATCH_ROWS = 256;
+    private static final int LOCK_STRIPES = 256;
+    private static final byte FREE = -1;
+    private static final byte NO_STATUS = -2;
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] carLocks = new ReentrantLock[LOCK_STRIPES];
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final StringPool strings = new StringPool();
+    private final LongIntHashMap rowsByCompactId = new LongIntHashMap();
+    private final Map<String, Integer> rowsByForeignId = new HashMap<>();
+    private final Map<String, IntList> rowsByCar = new HashMap<>();
+    private final Map<String, IntList> inactiveRowsByCar = new HashMap<>();
+    private final Map<String, IntList> rowsByCustomer = new HashMap<>();
+    private final IntList freeRows = new IntList();
+    private final LongMinHeap expiries = new LongMinHeap();
+    private final EntityJournal<Reservation> journal;
+    private final IdGenerator idGenerator;
+    private int rowLimit;
+
+    public OffHeapReservationRepository() {
+        this(EntityJournal.none());
+    }
+
+    public OffHeapReservationRepository(EntityJournal<Reservation> journal) {
+        this(journal, new SnowflakeIdGenerator(0));
+    }
+
+    @Autowired
+    public OffHeapReservationRepository(EntityJournal<Reservation> journal, IdGenerator idGenerator) {
+        this.journal = journal;
+        this.idGenerator = idGenerator;
+        for (int i = 0; i < carLocks.length; i++) {
+            carLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        lock.writeLock().lock();
+        try {
+            int records = journal.replay(this::apply, this::unapply);
+            if (records > 0) {
+                log.info("Recovered {} reservations from {} journal records", rowCount(), records);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Reservation> result = new ArrayList<>(rowCount());
+            rowsByCompactId.forEachValue(row -> result.add(materialize(row)));
+            rowsByForeignId.values().forEach(row -> result.add(materialize(row)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Materializes {@value #SCAN_BATCH_ROWS} rows per read-lock acquisition, so a slow consumer never
+     * holds the lock and memory stays bounded by one batch.
+     */
+    @Override
+    public Iterator<Reservation> scanAll() {
+        return scanStartingBetween(null, null);
+    }
+
+    /**
+     * Filters on the start column, so rows outside the range are never materialized.
+     */
+    @Override
+    public Iterator<Reservation> scanStartingBetween(LocalDateTime from, LocalDateTime to) {
+        long fromMinute = from != null ? Reservation.toEpochMinute(from) : Long.MIN_VALUE;
+        long toMinute = to != null ? Reservation.toEpochMinuteCeiling(to) : Long.MAX_VALUE;
+        return new Iterator<>() {
+
+            private final List<Reservation> batch = new ArrayList<>(SCAN_BATCH_ROWS);
+            private int nextRow;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                while (position == batch.size()) {
+                    if (!fill()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public Reservation next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(position++);
+            }
+
+            private boolean fill() {
+                batch.clear();
+                position = 0;
+                lock.readLock().lock();
+                try {
+                    if (nextRow >= rowLimit) {
+                        return false;
+                    }
+                    int end = Math.min(rowLimit, nextRow + SCAN_BATCH_ROWS);
+                    for (; nextRow < end; nextRow++) {
+                        Chunk chunk = chunkOf(nextRow);
+                        long startMinute = chunk.start(nextRow);
+                        if (chunk.status(nextRow) != FREE && startMinute >= fromMinute && startMinute < toMinute) {
+                            batch.add(materialize(nextRow));
+                        }
+                    }
+                    return true;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public Optional<Reservation> findById(String id) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(materialize(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findByCarId(String carId) {
+        lock.readLock().lock();
+        try {
+            List<Reservation> result = materializeAll(rowsByCar.get(carId), null);
+            result.addAll(materializeAll(inactiveRowsByCar.get(carId), null));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findByCustomerEmail(String customerEmail) {
+        lock.readLock().lock();
+        try {
+            return materializeAll(rowsByCustomer.get(customerEmail), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findCustomerTimeline(String customerEmail, TimelineCursor after, int limit) {
+        lock.readLock().lock();
+        try {
+            IntList rows = rowsByCustomer.get(customerEmail);
+            List<Reservation> result = new ArrayList<>();
+            if (rows == null) {
+                return result;
+            }
+            for (int i = after == null ? 0 : firstAfter(rows, after); i < rows.size() && result.size() < limit; i++) {
+                result.add(materialize(rows.get(i)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findByStatus(ReservationStatus status) {
+        lock.readLock().lock();
+        try {
+            List<Reservation> result = new ArrayList<>();
+            for (int row = 0; row < rowLimit; row++) {
+                if (chunkOf(row).status(row) == status.ordinal()) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findActiveReservationsForCar(String carId) {
+        lock.readLock().lock();
+        try {
+            return materializeAll(rowsByCar.get(carId), null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Reservation> findOverlappingReservations(String carId, LocalDateTime start, LocalDateTime end) {
+        long startMinute = Reservation.toEpochMinute(start);
+        long endMinute = Reservation.toEpochMinuteCeiling(end);
+        lock.readLock().lock();
+        try {
+            IntList rows = rowsByCar.get(carId);
+            if (rows == null) {
+                return new ArrayList<>();
+            }
+            List<Reservation> result = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                int row = rows.get(i);
+                if (overlaps(row, startMinute, endMinute)) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans the car's rows, which are not kept in start order here.
+     */
+    @Override
+    public Optional<FreeGap> findFreeGap(String carId, LocalDateTime start, LocalDateTime end) {
+        long startMinute = Reservation.toEpochMinute(start);
+        long endMinute = Reservation.toEpochMinuteCeiling(end);
+        lock.readLock().lock();
+        try {
+            IntList rows = rowsByCar.get(carId);
+            long gapStart = Long.MIN_VALUE;
+            long gapEnd = Long.MAX_VALUE;
+            for (int i = 0; rows != null && i < rows.size(); i++) {
+                int row = rows.get(i);
+                Chunk chunk = chunkOf(row);
+                int offset = row & ROW_MASK;
+                long rowStart = chunk.starts.getLong(offset * Long.BYTES);
+                long rowEnd = chunk.ends.getLong(offset * Long.BYTES);
+                if (rowStart < endMinute && rowEnd > startMinute) {
+                    return Optional.empty();
+                }
+                if (rowEnd <= startMinute) {
+                    gapStart = Math.max(gapStart, rowEnd);
+                } else {
+                    gapEnd = Math.min(gapEnd, rowStart);
+                }
+            }
+            return Optional.of(new FreeGap(gapStart, gapEnd));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Reservation save(Reservation reservation) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            assignDefaults(reservation);
+            CompletableFuture<Void> durable;
+            Reservation previous;
+            ReentrantLock carLock = lockFor(reservation.getCarId());
+            carLock.lock();
+            try {
+                lock.writeLock().lock();
+                try {
+                    int row = rowOf(reservation.getId());
+                    previous = row == LongIntHashMap.MISSING ? null : materialize(row);
+                    apply(reservation);
+                    durable = journal.logSave(reservation);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                carLock.unlock();
+            }
+            awaitOrRollBack(durable, List.of(carLock), () -> restore(reservation, previous));
+            log.debug("Saved reservation: {}", reservation.getId());
+            return reservation;
+        }
+    }
+
+    @Override
+    public Optional<Reservation> reserveIfFree(Reservation reservation) {
+        return reserveAllIfFree(List.of(reservation)).map(saved -> reservation);
+    }
+
+    /**
+     * Checks the batch under its cars' stripe locks and the shared read lock, so bookings of other cars
+     * check in parallel; the write lock is only taken to write the rows once the check has passed.
+     */
+    @Override
+    public Optional<List<Reservation>> reserveAllIfFree(List<Reservation> batch) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            batch.forEach(this::assignDefaults);
+
+            List<ReentrantLock> carLocks = locksFor(batch.stream().map(Reservation::getCarId).toList());
+            CompletableFuture<Void> durable;
+            carLocks.forEach(ReentrantLock::lock);
+            try {
+                lock.readLock().lock();
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        Reservation reservation = batch.get(i);
+                        if (anyOverlap(reservation) || overlapsEarlierInBatch(batch, i)) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Car {} already reserved for {} - {}",
+                                    reservation.getCarId(), reservation.getStartDateTime(), reservation.getEndDateTime());
+                            }
+                            return Optional.empty();
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                lock.writeLock().lock();
+                try {
+                    batch.forEach(this::apply);
+                    durable = batch.size() == 1 ? journal.logSave(batch.get(0)) : journal.logSaveAll(batch);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                carLocks.forEach(ReentrantLock::unlock);
+            }
+            awaitOrRollBack(durable, carLocks, () -> batch.forEach(reservation -> restore(reservation, null)));
+            log.debug("Saved {} reservations", batch.size());
+            return Optional.of(batch);
+        }
+    }
+
+    /**
+     * Takes the due expiry entries first and only then the stripe locks of their cars, so each row is
+     * checked again before it is completed.
+     */
+    @Override
+    public List<Reservation> completeEndedBy(LocalDateTime time, int limit) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            long endMinute = Reservation.toEpochMinute(time);
+            List<Long> due = new ArrayList<>();
+            List<String> carIds = new ArrayList<>();
+            lock.writeLock().lock();
+            try {
+                while (due.size() < limit && !expiries.isEmpty() && expiryEnd(expiries.peek()) <= endMinute) {
+                    long expiry = expiries.poll();
+                    if (isDue(expiry)) {
+                        due.add(expiry);
+                        carIds.add(carOf(expiryRow(expiry)));
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (due.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<Reservation> completed = new ArrayList<>();
+            List<Reservation> active = new ArrayList<>();
+            List<ReentrantLock> carLocks = locksFor(carIds);
+            CompletableFuture<Void> durable;
+            carLocks.forEach(ReentrantLock::lock);
+            try {
+                lock.writeLock().lock();
+                try {
+                    for (int i = 0; i < due.size(); i++) {
+                        int row = expiryRow(due.get(i));
+                        if (!isDue(due.get(i)) || !Objects.equals(carIds.get(i), carOf(row))) {
+                            continue;
+                        }
+                        active.add(materialize(row));
+                        Reservation reservation = materialize(row);
+                        reservation.setStatus(ReservationStatus.COMPLETED);
+                        apply(reservation);
+                        completed.add(reservation);
+                    }
+                    if (completed.isEmpty()) {
+                        return completed;
+                    }
+                    durable = journal.logSaveAll(completed);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                carLocks.forEach(ReentrantLock::unlock);
+            }
+            awaitOrRollBack(durable, carLocks, () -> {
+                for (int i = 0; i < completed.size(); i++) {
+                    restore(completed.get(i), active.get(i));
+                }
+            });
+            log.debug("Completed {} reservations", completed.size());
+            return completed;
+        }
+    }
+
+    @Override
+    public Optional<Reservation> cancelIfActive(String id) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            while (true) {
+                String carId = findCarId(id);
+                if (carId == null) {
+                    return Optional.empty();
+                }
+                Reservation active;
+                Reservation cancelled;
+                CompletableFuture<Void> durable;
+                ReentrantLock carLock = lockFor(carId);
+                carLock.lock();
+                try {
+                    lock.writeLock().lock();
+                    try {
+                        int row = rowOf(id);
+                        if (row != LongIntHashMap.MISSING && !Objects.equals(carId, carOf(row))) {
+                            continue;
+                        }
+                        if (row == LongIntHashMap.MISSING || chunkOf(row).status(row) != ReservationStatus.ACTIVE.ordinal()) {
+                            return Optional.empty();
+                        }
+                        active = materialize(row);
+                        cancelled = materialize(row);
+                        cancelled.setStatus(ReservationStatus.CANCELLED);
+                        apply(cancelled);
+                        durable = journal.logSave(cancelled);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                } finally {
+                    carLock.unlock();
+                }
+                awaitOrRollBack(durable, List.of(carLock), () -> restore(cancelled, active));
+                log.debug("Cancelled reservation: {}", id);
+                return Optional.of(cancelled);
+            }
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            while (true) {
+                String carId = findCarId(id);
+                if (carId == null) {
+                    return;
+                }
+                Reservation existing;
+                CompletableFuture<Void> durable;
+                ReentrantLock carLock = lockFor(carId);
+                carLock.lock();
+                try {
+                    lock.writeLock().lock();
+                    try {
+                        int row = rowOf(id);
+                        if (row == LongIntHashMap.MISSING) {
+                            return;
+                        }
+                        if (!Objects.equals(carId, carOf(row))) {
+                            continue;
+                        }
+                        existing = materialize(row);
+                        unapply(id);
+                        durable = journal.logDelete(id);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                } finally {
+                    carLock.unlock();
+                }
+                awaitOrRollBack(durable, List.of(carLock), () -> {
+                    if (rowOf(id) == LongIntHashMap.MISSING) {
+                        apply(existing);
+                    }
+                });
+                log.debug("Deleted reservation: {}", id);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return rowCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Integer> indexSizes() {
+        lock.readLock().lock();
+        try {
+            return Map.of(
+                "cars", rowsByCar.size(),
+                "inactive_cars", inactiveRowsByCar.size(),
+                "expiry", expiries.size(),
+                "customers", rowsByCustomer.size(),
+                "strings", strings.size(),
+                "free_rows", freeRows.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of distinct strings currently held by the pool
+     */
+    int pooledStrings() {
+        lock.readLock().lock();
+        try {
+            return strings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits for a journal write and, if it fails, retakes the stripe locks it was made under and the
+     * write lock to undo the in-memory change before rethrowing.
+     */
+    private void awaitOrRollBack(CompletableFuture<Void> durable, List<ReentrantLock> carLocks, Runnable rollback) {
+        try {
+            EntityJournal.await(durable);
+        } catch (RuntimeException e) {
+            carLocks.forEach(ReentrantLock::lock);
+            lock.writeLock().lock();
+            try {
+                rollback.run();
+            } finally {
+                lock.writeLock().unlock();
+                carLocks.forEach(ReentrantLock::unlock);
+            }
+            log.warn("Journal write failed, rolled back the in-memory change", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Puts back the row a failed save replaced, unless a later write has changed it since.
+     */
+    private void restore(Reservation saved, Reservation previous) {
+        int row = rowOf(saved.getId());
+        if (row == LongIntHashMap.MISSING || !materialize(row).equals(saved)) {
+            return;
+        }
+        if (previous == null) {
+            unapply(saved.getId());
+        } else {
+            apply(previous);
+        }
+    }
+
+    private void assignDefaults(Reservation reservation) {
+        if (reservation.getId() == null) {
+            reservation.setId(idGenerator.nextEncodedId());
+        }
+        if (reservation.getCreatedAt() == null) {
+            reservation.setCreatedAt(LocalDateTime.now());
+        }
+    }
+
+    private ReentrantLock lockFor(String carId) {
+        return carLocks[Math.floorMod(Objects.hashCode(carId), carLocks.length)];
+    }
+
+    /**
+     * @return the stripe locks of the cars in the order they must be taken
+     */
+    private List<ReentrantLock> locksFor(List<String> carIds) {
+        return carIds.stream()
+            .mapToInt(carId -> Math.floorMod(Objects.hashCode(carId), carLocks.length))
+            .distinct()
+            .sorted()
+            .mapToObj(stripe -> carLocks[stripe])
+            .toList();
+    }
+
+    private String findCarId(String id) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row == LongIntHashMap.MISSING ? null : carOf(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String carOf(int row) {
+        return strings.get(chunkOf(row).carRefs.getInt((row & ROW_MASK) * Integer.BYTES));
+    }
+
+    /**
+     * @return whether the expiry entry still matches its row, which is active and ends at that minute
+     */
+    private boolean isDue(long expiry) {
+        int row = expiryRow(expiry);
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        return chunk.statuses.get(offset) == ReservationStatus.ACTIVE.ordinal()
+            && chunk.ends.getLong(offset * Long.BYTES) == expiryEnd(expiry);
+    }
+
+    private int rowOf(String id) {
+        long compactId = Ids.decode(id);
+        if (compactId != Ids.NOT_COMPACT) {
+            return rowsByCompactId.get(compactId);
+        }
+        return rowsByForeignId.getOrDefault(id, LongIntHashMap.MISSING);
+    }
+
+    private int rowCount() {
+        return rowsByCompactId.size() + rowsByForeignId.size();
+    }
+
+    private void apply(Reservation reservation) {
+        long compactId = Ids.decode(reservation.getId());
+        int existing = rowOf(reservation.getId());
+        int row;
+        if (existing != LongIntHashMap.MISSING) {
+            row = existing;
+            unindex(row);
+            releaseStrings(row);
+        } else {
+            row = allocateRow();
+        }
+
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        chunk.ids.putLong(offset * Long.BYTES, compactId);
+        chunk.idRefs.putInt(offset * Integer.BYTES,
+            compactId == Ids.NOT_COMPACT ? strings.acquire(reservation.getId()) : StringPool.NULL_REF);
+        chunk.carRefs.putInt(offset * Integer.BYTES, strings.acquire(reservation.getCarId()));
+        chunk.nameRefs.putInt(offset * Integer.BYTES, strings.acquire(reservation.getCustomerName()));
+        chunk.emailRefs.putInt(offset * Integer.BYTES, strings.acquire(reservation.getCustomerEmail()));
+        chunk.starts.putLong(offset * Long.BYTES, reservation.getStartMinute());
+        chunk.ends.putLong(offset * Long.BYTES, reservation.getEndMinute());
+        chunk.durations.putInt(offset * Integer.BYTES, reservation.getDurationDays());
+        chunk.costs.putDouble(offset * Double.BYTES, reservation.getTotalCost());
+        chunk.statuses.put(offset,
+            reservation.getStatus() == null ? NO_STATUS : (byte) reservation.getStatus().ordinal());
+        LocalDateTime createdAt = reservation.getCreatedAt();
+        chunk.createdSeconds.putLong(offset * Long.BYTES,
+            createdAt == null ? Long.MIN_VALUE : createdAt.toEpochSecond(ZoneOffset.UTC));
+        chunk.createdNanos.putInt(offset * Integer.BYTES, createdAt == null ? 0 : createdAt.getNano());
+
+        if (compactId != Ids.NOT_COMPACT) {
+            rowsByCompactId.put(compactId, row);
+        } else {
+            rowsByForeignId.put(reservation.getId(), row);
+        }
+        index(row, reservation.getCarId(), reservation.getCustomerEmail());
+        if (reservation.getStatus() == ReservationStatus.ACTIVE) {
+            expiries.add((reservation.getEndMinute() << 32) | row);
+        }
+    }
+
+    private boolean unapply(String id) {
+        long compactId = Ids.decode(id);
+        int row;
+        if (compactId != Ids.NOT_COMPACT) {
+            row = rowsByCompactId.remove(compactId);
+        } else {
+            Integer foreignRow = rowsByForeignId.remove(id);
+            row = foreignRow == null ? LongIntHashMap.MISSING : foreignRow;
+        }
+        if (row == LongIntHashMap.MISSING) {
+            return false;
+        }
+        unindex(row);
+        releaseStrings(row);
+        chunkOf(row).statuses.put(row & ROW_MASK, FREE);
+        freeRows.add(row);
+        return true;
+    }
+
+    private int allocateRow() {
+        if (!freeRows.isEmpty()) {
+            return freeRows.removeLast();
+        }
+        if (rowLimit == chunks.size() * CHUNK_ROWS) {
+            chunks.add(new Chunk());
+        }
+        return rowLimit++;
+    }
+
+    private void index(int row, String carId, String customerEmail) {
+        if (carId != null) {
+            carRows(chunkOf(row).status(row)).computeIfAbsent(carId, key -> new IntList()).add(row);
+        }
+        if (customerEmail != null) {
+            IntList timeline = rowsByCustomer.computeIfAbsent(customerEmail, key -> new IntList());
+            timeline.insert(firstAfter(timeline, cursorOf(row)), row);
+        }
+    }
+
+    private void unindex(int row) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        removeFrom(carRows(chunk.status(row)), strings.get(chunk.carRefs.getInt(offset * Integer.BYTES)), row);
+        String customerEmail = strings.get(chunk.emailRefs.getInt(offset * Integer.BYTES));
+        IntList timeline = customerEmail == null ? null : rowsByCustomer.get(customerEmail);
+        if (timeline != null) {
+            timeline.removeAt(firstAfter(timeline, cursorOf(row)) - 1);
+            if (timeline.isEmpty()) {
+                rowsByCustomer.remove(customerEmail);
+            }
+        }
+    }
+
+    /**
+     * Only active rows go to the per-car lists that overlap checks scan, so cancelled and completed
+     * bookings never slow them down.
+     */
+    private Map<String, IntList> carRows(byte status) {
+        return status == ReservationStatus.ACTIVE.ordinal() ? rowsByCar : inactiveRowsByCar;
+    }
+
+    /**
+     * Expiry entries pack the end minute into the high half and the row into the low half, so they
+     * order by end; epoch minutes fit in an int until the year 6053.
+     */
+    private static long expiryEnd(long expiry) {
+        return expiry >> 32;
+    }
+
+    private static int expiryRow(long expiry) {
+        return (int) expiry;
+    }
+
+    /**
+     * Binary search over a customer timeline.
+     * @return index of the first row that comes after the cursor
+     */
+    private int firstAfter(IntList timeline, TimelineCursor cursor) {
+        LocalDateTime createdAt = cursor.createdAt();
+        long createdSecond = createdAt == null ? Long.MIN_VALUE : createdAt.toEpochSecond(ZoneOffset.UTC);
+        int createdNano = createdAt == null ? 0 : createdAt.getNano();
+        int low = 0;
+        int high = timeline.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comesAfter(timeline.get(middle), createdSecond, createdNano, cursor.reservationId())) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean comesAfter(int row, long createdSecond, int createdNano, String id) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        int order = Long.compare(createdSecond, chunk.createdSeconds.getLong(offset * Long.BYTES));
+        if (order == 0) {
+            order = Integer.compare(createdNano, chunk.createdNanos.getInt(offset * Integer.BYTES));
+        }
+        if (order == 0) {
+            order = id.compareTo(idOf(row));
+        }
+        return order > 0;
+    }
+
+    private TimelineCursor cursorOf(int row) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        return new TimelineCursor(createdAt(chunk, offset), idOf(row));
+    }
+
+    private String idOf(int row) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        int idRef = chunk.idRefs.getInt(offset * Integer.BYTES);
+        return idRef == StringPool.NULL_REF
+            ? Ids.encode(chunk.ids.getLong(offset * Long.BYTES)) : strings.get(idRef);
+    }
+
+    private static void removeFrom(Map<String, IntList> index, String key, int row) {
+        if (key == null) {
+            return;
+        }
+        IntList rows = index.get(key);
+        if (rows != null && rows.removeValue(row) && rows.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private void releaseStrings(int row) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        strings.release(chunk.idRefs.getInt(offset * Integer.BYTES));
+        strings.release(chunk.carRefs.getInt(offset * Integer.BYTES));
+        strings.release(chunk.nameRefs.getInt(offset * Integer.BYTES));
+        strings.release(chunk.emailRefs.getInt(offset * Integer.BYTES));
+    }
+
+    private boolean anyOverlap(Reservation reservation) {
+        IntList rows = rowsByCar.get(reservation.getCarId());
+        if (rows == null) {
+            return false;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            if (overlaps(rows.get(i), reservation.getStartMinute(), reservation.getEndMinute())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean overlapsEarlierInBatch(List<Reservation> batch, int index) {
+        Reservation reservation = batch.get(index);
+        for (int i = 0; i < index; i++) {
+            Reservation other = batch.get(i);
+            if (Objects.equals(other.getCarId(), reservation.getCarId())
+                && other.getStartMinute() < reservation.getEndMinute()
+                && reservation.getStartMinute() < other.getEndMinute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads only the period columns: every row of a car's active list is active.
+     */
+    private boolean overlaps(int row, long startMinute, long endMinute) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        return chunk.starts.getLong(offset * Long.BYTES) < endMinute
+            && chunk.ends.getLong(offset * Long.BYTES) > startMinute;
+    }
+
+    private List<Reservation> materializeAll(IntList rows, ReservationStatus status) {
+        List<Reservation> result = new ArrayList<>();
+        if (rows == null) {
+            return result;
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            if (status == null || chunkOf(row).status(row) == status.ordinal()) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+
+    private Reservation materialize(int row) {
+        Chunk chunk = chunkOf(row);
+        int offset = row & ROW_MASK;
+        byte status = chunk.statuses.get(offset);
+
+        Reservation reservation = new Reservation();
+        reservation.setId(idOf(row));
+        reservation.setCarId(strings.get(chunk.carRefs.getInt(offset * Integer.BYTES)));
+        reservation.setCustomerName(strings.get(chunk.nameRefs.getInt(offset * Integer.BYTES)));
+        reservation.setCustomerEmail(strings.get(chunk.emailRefs.getInt(offset * Integer.BYTES)));
+        reservation.setDurationDays(chunk.durations.getInt(offset * Integer.BYTES));
+        reservation.setStartMinute(chunk.starts.getLong(offset * Long.BYTES));
+        reservation.setTotalCost(chunk.costs.getDouble(offset * Double.BYTES));
+        reservation.setStatus(status == NO_STATUS ? null : STATUSES[status]);
+        reservation.setCreatedAt(createdAt(chunk, offset));
+        return reservation;
+    }
+
+    private static LocalDateTime createdAt(Chunk chunk, int offset) {
+        long createdSecond = chunk.createdSeconds.getLong(offset * Long.BYTES);
+        return createdSecond == Long.MIN_VALUE ? null
+            : LocalDateTime.ofEpochSecond(createdSecond, chunk.createdNanos.getInt(offset * Integer.BYTES), ZoneOffset.UTC);
+    }
+
+    private Chunk chunkOf(int row) {
+        return chunks.get(row >>> CHUNK_SHIFT);
+    }
+
+    /**
+     * One block of {@value #CHUNK_ROWS} rows, one direct buffer per column.
+     */
+    private static final class Chunk {
+
+        private final ByteBuffer ids = column(Long.BYTES);
+        private final ByteBuffer idRefs = column(Integer.BYTES);
+        private final ByteBuffer carRefs = column(Integer.BYTES);
+        private final ByteBuffer nameRefs = column(Integer.BYTES);
+        private final ByteBuffer emailRefs = column(Integer.BYTES);
+        private final ByteBuffer starts = column(Long.BYTES);
+        private final ByteBuffer ends = column(Long.BYTES);
+        private final ByteBuffer durations = column(Integer.BYTES);
+        private final ByteBuffer costs = column(Double.BYTES);
+        private final ByteBuffer statuses = column(Byte.BYTES);
+        private final ByteBuffer createdSeconds = column(Long.BYTES);
+        private final ByteBuffer createdNanos = column(Integer.BYTES);
+
+        private Chunk() {
+            for (int offset = 0; offset < CHUNK_ROWS; offset++) {
+                statuses.put(offset, FREE);
+            }
+        }
+
+        byte status(int row) {
+            return statuses.get(row & ROW_MASK);
+        }
+
+        long start(int row) {
+            return starts.getLong((row & ROW_MASK) * Long.BYTES);
+        }
+
+        private static ByteBuffer column(int width) {
+            return ByteBuffer.allocateDirect(CHUNK_ROWS * width).order(ByteOrder.nativeOrder());
+        }
+    }
+}
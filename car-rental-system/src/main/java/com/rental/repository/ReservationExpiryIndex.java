@@ -0,0 +1,72 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ACTIVE reservations ordered by end time, a priority queue from which the reservations that have
+ * ended are taken without scanning the others.
+ */
+class ReservationExpiryIndex {
+
+    private final ConcurrentSkipListMap<ExpiryKey, Reservation> byEnd = new ConcurrentSkipListMap<>();
+    private final Map<String, ExpiryKey> indexedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Brings the index in line with the current state of the reservation: it is (re)inserted
+     * when ACTIVE and dropped otherwise.
+     */
+    void update(Reservation reservation) {
+        indexedKeys.compute(reservation.getId(), (id, previous) -> {
+            if (previous != null) {
+                byEnd.remove(previous);
+            }
+            if (reservation.getStatus() != ReservationStatus.ACTIVE) {
+                return null;
+            }
+            ExpiryKey key = new ExpiryKey(reservation.getEndMinute(), id);
+            byEnd.put(key, reservation);
+            return key;
+        });
+    }
+
+    void remove(String reservationId) {
+        indexedKeys.computeIfPresent(reservationId, (id, previous) -> {
+            byEnd.remove(previous);
+            return null;
+        });
+    }
+
+    /**
+     * @return up to {@code limit} reservations ending at or before the minute, earliest end first
+     */
+    List<Reservation> endedBy(long endMinute, int limit) {
+        List<Reservation> ended = new ArrayList<>();
+        for (Map.Entry<ExpiryKey, Reservation> entry : byEnd.entrySet()) {
+            if (ended.size() == limit || entry.getKey().endMinute() > endMinute) {
+                break;
+            }
+            ended.add(entry.getValue());
+        }
+        return ended;
+    }
+
+    int size() {
+        return indexedKeys.size();
+    }
+
+    private record ExpiryKey(long endMinute, String reservationId) implements Comparable<ExpiryKey> {
+
+        @Override
+        public int compareTo(ExpiryKey other) {
+            int byEnd = Long.compare(endMinute, other.endMinute);
+            return byEnd != 0 ? byEnd : reservationId.compareTo(other.reservationId);
+        }
+    }
+}
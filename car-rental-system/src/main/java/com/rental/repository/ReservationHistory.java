@@ -0,0 +1,94 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cold tier holding completed reservations outside the hot in-memory indexes. The tier answers lookups by
+ * car, customer and status from its own index, so the repository's hot indexes never hold history.
+ */
+public interface ReservationHistory extends Closeable {
+
+    /**
+     * Opens the tier and rebuilds its index of the reservations it already holds. Runs once, before any
+     * other call.
+     */
+    void load();
+
+    /**
+     * Stores the reservations, replacing earlier versions with the same id.
+     */
+    void addAll(List<Reservation> reservations);
+
+    /**
+     * @return the stored reservation, or null if there is none with that id
+     */
+    Reservation get(String id);
+
+    /**
+     * Looks up several reservations at once, which lets a tier read each of its blocks only once.
+     * @return the stored reservations by id; ids without one are left out
+     */
+    default Map<String, Reservation> getAll(Collection<String> ids) {
+        Map<String, Reservation> found = new HashMap<>();
+        for (String id : ids) {
+            Reservation reservation = get(id);
+            if (reservation != null) {
+                found.put(id, reservation);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return true if a reservation with that id was stored and is now removed
+     */
+    boolean remove(String id);
+
+    /**
+     * @return ids of the stored reservations of the car
+     */
+    Set<String> idsForCar(String carId);
+
+    /**
+     * @return positions of the customer's stored reservations in timeline order, starting after the cursor
+     */
+    List<TimelineCursor> customerTimeline(String customerEmail, TimelineCursor after, int limit);
+
+    /**
+     * @return ids of the stored reservations with the status
+     */
+    Set<String> idsWithStatus(ReservationStatus status);
+
+    /**
+     * Iterates over the reservations starting within {@code [fromMinute, toMinute)} epoch minutes.
+     */
+    Iterator<Reservation> scan(long fromMinute, long toMinute);
+
+    int size();
+
+    /**
+     * @return true if the tier keeps its reservations across restarts by itself, so journal snapshots can
+     * leave them out
+     */
+    default boolean isDurable() {
+        return false;
+    }
+
+    /**
+     * @return number of time partitions the tier is split into
+     */
+    int partitions();
+
+    @Override
+    default void close() {
+    }
+}
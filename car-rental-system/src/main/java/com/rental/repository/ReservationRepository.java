@@ -4,26 +4,109 @@ import com.rental.model.Reservation;
 import com.rental.model.ReservationStatus;
 
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ReservationRepository {
 
     List<Reservation> findAll();
 
+    /**
+     * @return the reservations a journal snapshot has to hold: all of them, except those a durable history
+     * tier already keeps on disk by itself
+     */
+    default List<Reservation> snapshotHot() {
+        return findAll();
+    }
+
+    /**
+     * Iterates over all reservations without copying them into a list first. The iteration is weakly
+     * consistent: concurrent writes never make it fail, and it may or may not see them.
+     */
+    Iterator<Reservation> scanAll();
+
+    /**
+     * Iterates like {@link #scanAll()} over the reservations starting within {@code [from, to)}. Tiered
+     * stores only read the partitions of their history that overlap the range.
+     * @param from inclusive lower bound, or null for no bound
+     * @param to exclusive upper bound, or null for no bound
+     */
+    Iterator<Reservation> scanStartingBetween(LocalDateTime from, LocalDateTime to);
+
+    long count();
+
+    /**
+     * @return number of entries per internal index, by index name, for monitoring
+     */
+    Map<String, Integer> indexSizes();
+
     Optional<Reservation> findById(String id);
 
     List<Reservation> findByCarId(String carId);
 
+    /**
+     * @return the customer's reservations newest first, in {@link TimelineCursor} order
+     */
     List<Reservation> findByCustomerEmail(String customerEmail);
 
+    /**
+     * Reads one page of a customer's reservations, newest first, in {@link TimelineCursor} order.
+     * @param customerEmail the customer's email
+     * @param after position of the last reservation of the previous page, or null for the first page
+     * @param limit maximum number of reservations to return
+     * @return the reservations following the cursor
+     */
+    List<Reservation> findCustomerTimeline(String customerEmail, TimelineCursor after, int limit);
+
     List<Reservation> findByStatus(ReservationStatus status);
 
     List<Reservation> findActiveReservationsForCar(String carId);
 
     List<Reservation> findOverlappingReservations(String carId, LocalDateTime start, LocalDateTime end);
 
+    /**
+     * Finds the free gap of the car's timeline that would contain the period.
+     * @return the gap between the neighbouring active reservations, or empty if the period overlaps one
+     */
+    Optional<FreeGap> findFreeGap(String carId, LocalDateTime start, LocalDateTime end);
+
     Reservation save(Reservation reservation);
 
+    /**
+     * Saves the reservation only if its car has no overlapping active reservation.
+     * The overlap check and the write are atomic with respect to other bookings of the same car.
+     * @param reservation the reservation to store
+     * @return the saved reservation, or empty if the car is already taken for that period
+     */
+    Optional<Reservation> reserveIfFree(Reservation reservation);
+
+    /**
+     * Saves all reservations only if none of them overlaps an active reservation or another reservation of
+     * the batch for the same car. The batch is checked and written atomically and persisted as one unit.
+     * @param batch the reservations to store
+     * @return the saved reservations, or empty if any car is already taken for its period
+     */
+    Optional<List<Reservation>> reserveAllIfFree(List<Reservation> batch);
+
+    /**
+     * Marks active reservations that ended at or before the given time as COMPLETED, earliest end first,
+     * and persists them as one unit. Completed reservations leave the indexes availability checks read,
+     * but stay readable through the other queries.
+     * @param time the time the reservations must have ended by
+     * @param limit maximum number of reservations to complete
+     * @return the completed reservations
+     */
+    List<Reservation> completeEndedBy(LocalDateTime time, int limit);
+
+    /**
+     * Moves the reservation from ACTIVE to CANCELLED, atomically with respect to other writes to its car,
+     * and persists the change.
+     * @param id the reservation to cancel
+     * @return the cancelled reservation, or empty if it does not exist or was not active
+     */
+    Optional<Reservation> cancelIfActive(String id);
+
     void deleteById(String id);
 }
\ No newline at end of file
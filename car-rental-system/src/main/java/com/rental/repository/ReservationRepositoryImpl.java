@@ -1,83 +1,527 @@
 package com.rental.repository;
 
+import com.rental.id.IdGenerator;
+import com.rental.id.SnowflakeIdGenerator;
 import com.rental.model.Reservation;
 import com.rental.model.ReservationStatus;
+import com.rental.persistence.EntityJournal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Heap {@link ReservationRepository}. Completed reservations move from the hot map into the
+ * {@link ReservationHistory} tier and leave the timeline and expiry indexes, so overlap checks and the
+ * lifecycle only touch reservations that can still change availability. Lookups by car, customer and
+ * status combine the secondary index of the hot map with the history tier's own index.
+ * <p>
+ * Writes are applied in memory under the car's stripe lock and journaled before it is released; if the
+ * journal write then fails, the in-memory change is rolled back before the failure reaches the caller.
+ */
 @Repository
+@ConditionalOnProperty(name = "rental.reservations.store", havingValue = "heap", matchIfMissing = true)
 @Slf4j
 public class ReservationRepositoryImpl implements ReservationRepository {
 
+    private static final int LOCK_STRIPES = 256;
+
     private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final ReservationTimelineIndex timelineIndex = new ReservationTimelineIndex();
+    private final ReservationExpiryIndex expiryIndex = new ReservationExpiryIndex();
+    private final ReservationSecondaryIndex secondaryIndex = new ReservationSecondaryIndex();
+    private final ReentrantLock[] carLocks = new ReentrantLock[LOCK_STRIPES];
+    private final EntityJournal<Reservation> journal;
+    private final ReservationHistory history;
+    private final IdGenerator idGenerator;
+
+    public ReservationRepositoryImpl() {
+        this(EntityJournal.none());
+    }
+
+    public ReservationRepositoryImpl(EntityJournal<Reservation> journal) {
+        this(journal, new InMemoryReservationHistory());
+    }
+
+    public ReservationRepositoryImpl(EntityJournal<Reservation> journal, ReservationHistory history) {
+        this(journal, history, new SnowflakeIdGenerator(0));
+    }
+
+    @Autowired
+    public ReservationRepositoryImpl(EntityJournal<Reservation> journal, ReservationHistory history,
+                                     IdGenerator idGenerator) {
+        this.journal = journal;
+        this.history = history;
+        this.idGenerator = idGenerator;
+        for (int i = 0; i < carLocks.length; i++) {
+            carLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void recover() {
+        history.load();
+        int records = journal.replay(this::apply, this::unapply);
+        if (records > 0) {
+            log.info("Recovered {} reservations from {} journal records", count(), records);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        history.close();
+    }
 
     @Override
     public List<Reservation> findAll() {
-        return new ArrayList<>(reservations.values());
+        List<Reservation> all = new ArrayList<>(reservations.size() + history.size());
+        all.addAll(reservations.values());
+        history.scan(Long.MIN_VALUE, Long.MAX_VALUE).forEachRemaining(all::add);
+        return all;
+    }
+
+    @Override
+    public List<Reservation> snapshotHot() {
+        return history.isDurable() ? new ArrayList<>(reservations.values()) : findAll();
+    }
+
+    @Override
+    public Iterator<Reservation> scanAll() {
+        return scanStartingBetween(null, null);
+    }
+
+    @Override
+    public Iterator<Reservation> scanStartingBetween(LocalDateTime from, LocalDateTime to) {
+        long fromMinute = from != null ? Reservation.toEpochMinute(from) : Long.MIN_VALUE;
+        long toMinute = to != null ? Reservation.toEpochMinuteCeiling(to) : Long.MAX_VALUE;
+        Stream<Reservation> hot = reservations.values().stream()
+            .filter(reservation -> reservation.getStartMinute() >= fromMinute && reservation.getStartMinute() < toMinute);
+        Stream<Reservation> cold = StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(history.scan(fromMinute, toMinute), Spliterator.ORDERED), false);
+        return Stream.concat(hot, cold).iterator();
+    }
+
+    @Override
+    public long count() {
+        return reservations.size() + history.size();
+    }
+
+    @Override
+    public Map<String, Integer> indexSizes() {
+        return Map.of(
+            "timeline", timelineIndex.size(),
+            "expiry", expiryIndex.size(),
+            "history", history.size(),
+            "history_partitions", history.partitions(),
+            "cars", secondaryIndex.carCount(),
+            "customers", secondaryIndex.customerCount());
     }
 
     @Override
     public Optional<Reservation> findById(String id) {
-        return Optional.ofNullable(reservations.get(id));
+        return Optional.ofNullable(lookup(id));
     }
 
     @Override
     public List<Reservation> findByCarId(String carId) {
-        return reservations.values().stream()
+        return resolve(bothTiers(secondaryIndex.idsForCar(carId), history.idsForCar(carId)))
             .filter(reservation -> Objects.equals(reservation.getCarId(), carId))
             .collect(Collectors.toList());
     }
 
     @Override
     public List<Reservation> findByCustomerEmail(String customerEmail) {
-        return reservations.values().stream()
+        return findCustomerTimeline(customerEmail, null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Reservation> findCustomerTimeline(String customerEmail, TimelineCursor after, int limit) {
+        List<String> ids = Stream.concat(
+                secondaryIndex.customerTimeline(customerEmail, after, limit).stream(),
+                history.customerTimeline(customerEmail, after, limit).stream())
+            .sorted()
+            .map(TimelineCursor::reservationId)
+            .distinct()
+            .limit(limit)
+            .collect(Collectors.toList());
+        return resolve(ids)
             .filter(reservation -> Objects.equals(reservation.getCustomerEmail(), customerEmail))
             .collect(Collectors.toList());
     }
 
     @Override
     public List<Reservation> findByStatus(ReservationStatus status) {
-        return reservations.values().stream()
+        return resolve(bothTiers(secondaryIndex.idsWithStatus(status), history.idsWithStatus(status)))
             .filter(reservation -> reservation.getStatus() == status)
             .collect(Collectors.toList());
     }
 
     @Override
     public List<Reservation> findActiveReservationsForCar(String carId) {
-        return reservations.values().stream()
-            .filter(reservation -> Objects.equals(reservation.getCarId(), carId))
+        return timelineIndex.findActive(carId).stream()
             .filter(reservation -> reservation.getStatus() == ReservationStatus.ACTIVE)
             .collect(Collectors.toList());
     }
 
     @Override
     public List<Reservation> findOverlappingReservations(String carId, LocalDateTime start, LocalDateTime end) {
-        return reservations.values().stream()
-            .filter(reservation -> Objects.equals(reservation.getCarId(), carId))
-            .filter(reservation -> reservation.overlapsWithPeriod(start, end))
-            .collect(Collectors.toList());
+        return timelineIndex.findOverlapping(carId, start, end);
+    }
+
+    @Override
+    public Optional<FreeGap> findFreeGap(String carId, LocalDateTime start, LocalDateTime end) {
+        return timelineIndex.findFreeGap(carId, Reservation.toEpochMinute(start), Reservation.toEpochMinuteCeiling(end));
     }
 
     @Override
     public Reservation save(Reservation reservation) {
-        if (reservation.getId() == null) {
-            reservation.setId(UUID.randomUUID().toString());
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            assignDefaults(reservation);
+            CompletableFuture<Void> durable;
+            Reservation previous;
+            ReentrantLock lock = lockFor(reservation.getCarId());
+            lock.lock();
+            try {
+                previous = lookup(reservation.getId());
+                durable = store(reservation);
+            } finally {
+                lock.unlock();
+            }
+            awaitOrRollBack(durable, List.of(lock), () -> restore(reservation, previous));
+            log.debug("Saved reservation: {}", reservation.getId());
+            return reservation;
+        }
+    }
+
+    @Override
+    public Optional<Reservation> reserveIfFree(Reservation reservation) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            assignDefaults(reservation);
+            CompletableFuture<Void> durable;
+            ReentrantLock lock = lockFor(reservation.getCarId());
+            lock.lock();
+            try {
+                List<Reservation> overlapping = timelineIndex.findOverlapping(
+                    reservation.getCarId(), reservation.getStartMinute(), reservation.getEndMinute());
+                if (!overlapping.isEmpty()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Car {} already reserved for {} - {}",
+                            reservation.getCarId(), reservation.getStartDateTime(), reservation.getEndDateTime());
+                    }
+                    return Optional.empty();
+                }
+                durable = store(reservation);
+            } finally {
+                lock.unlock();
+            }
+            awaitOrRollBack(durable, List.of(lock), () -> restore(reservation, null));
+            log.debug("Saved reservation: {}", reservation.getId());
+            return Optional.of(reservation);
+        }
+    }
+
+    @Override
+    public Optional<List<Reservation>> reserveAllIfFree(List<Reservation> batch) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            if (batch.isEmpty()) {
+                return Optional.of(List.of());
+            }
+            batch.forEach(this::assignDefaults);
+
+            List<ReentrantLock> locks = locksFor(batch);
+            CompletableFuture<Void> durable;
+            locks.forEach(ReentrantLock::lock);
+            try {
+                for (int i = 0; i < batch.size(); i++) {
+                    Reservation reservation = batch.get(i);
+                    if (!timelineIndex.findOverlapping(reservation.getCarId(),
+                            reservation.getStartMinute(), reservation.getEndMinute()).isEmpty()
+                        || overlapsEarlierInBatch(batch, i)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Car {} already reserved for {} - {}, rejecting batch of {}",
+                                reservation.getCarId(), reservation.getStartDateTime(), reservation.getEndDateTime(), batch.size());
+                        }
+                        return Optional.empty();
+                    }
+                }
+                batch.forEach(this::apply);
+                durable = journal.logSaveAll(batch);
+            } finally {
+                locks.forEach(ReentrantLock::unlock);
+            }
+            awaitOrRollBack(durable, locks, () -> batch.forEach(reservation -> restore(reservation, null)));
+            log.debug("Saved batch of {} reservations", batch.size());
+            return Optional.of(batch);
+        }
+    }
+
+    @Override
+    public List<Reservation> completeEndedBy(LocalDateTime time, int limit) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            long endMinute = Reservation.toEpochMinute(time);
+            List<Reservation> ended = expiryIndex.endedBy(endMinute, limit);
+            if (ended.isEmpty()) {
+                return ended;
+            }
+
+            List<Reservation> completed = new ArrayList<>(ended.size());
+            List<ReentrantLock> locks = locksFor(ended);
+            CompletableFuture<Void> durable;
+            locks.forEach(ReentrantLock::lock);
+            try {
+                for (Reservation reservation : ended) {
+                    if (reservation.getStatus() == ReservationStatus.ACTIVE && reservation.getEndMinute() <= endMinute
+                        && reservations.get(reservation.getId()) == reservation) {
+                        reservation.setStatus(ReservationStatus.COMPLETED);
+                        completed.add(reservation);
+                    }
+                }
+                archive(completed);
+                durable = completed.isEmpty() ? CompletableFuture.completedFuture(null) : journal.logSaveAll(completed);
+            } finally {
+                locks.forEach(ReentrantLock::unlock);
+            }
+            awaitOrRollBack(durable, locks, () -> completed.forEach(reservation -> {
+                reservation.setStatus(ReservationStatus.ACTIVE);
+                apply(reservation);
+            }));
+            log.debug("Completed {} reservations", completed.size());
+            return completed;
+        }
+    }
+
+    @Override
+    public Optional<Reservation> cancelIfActive(String id) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            while (true) {
+                Reservation existing = reservations.get(id);
+                if (existing == null || existing.getStatus() != ReservationStatus.ACTIVE) {
+                    return Optional.empty();
+                }
+                CompletableFuture<Void> durable;
+                ReentrantLock lock = lockFor(existing.getCarId());
+                lock.lock();
+                try {
+                    if (reservations.get(id) != existing) {
+                        continue;
+                    }
+                    if (existing.getStatus() != ReservationStatus.ACTIVE) {
+                        return Optional.empty();
+                    }
+                    existing.setStatus(ReservationStatus.CANCELLED);
+                    durable = store(existing);
+                } finally {
+                    lock.unlock();
+                }
+                awaitOrRollBack(durable, List.of(lock), () -> {
+                    if (reservations.get(id) == existing && existing.getStatus() == ReservationStatus.CANCELLED) {
+                        existing.setStatus(ReservationStatus.ACTIVE);
+                        apply(existing);
+                    }
+                });
+                log.debug("Cancelled reservation: {}", id);
+                return Optional.of(existing);
+            }
         }
-        reservations.put(reservation.getId(), reservation);
-        log.debug("Saved reservation: {}", reservation.getId());
-        return reservation;
     }
 
     @Override
     public void deleteById(String id) {
-        Reservation removed = reservations.remove(id);
-        if (removed != null) {
+        try (EntityJournal.InFlightWrite ignored = journal.beginWrite()) {
+            Reservation existing = lookup(id);
+            if (existing == null) {
+                return;
+            }
+            CompletableFuture<Void> durable;
+            ReentrantLock lock = lockFor(existing.getCarId());
+            lock.lock();
+            try {
+                if (!unapply(id)) {
+                    return;
+                }
+                durable = journal.logDelete(id);
+            } finally {
+                lock.unlock();
+            }
+            awaitOrRollBack(durable, List.of(lock), () -> {
+                if (lookup(id) == null) {
+                    apply(existing);
+                }
+            });
             log.debug("Deleted reservation: {}", id);
         }
     }
+
+    /**
+     * Waits for a journal write made under the given locks and, if it fails, retakes them to undo the
+     * in-memory change before rethrowing.
+     */
+    private static void awaitOrRollBack(CompletableFuture<Void> durable, List<ReentrantLock> locks, Runnable rollback) {
+        try {
+            EntityJournal.await(durable);
+        } catch (RuntimeException e) {
+            locks.forEach(ReentrantLock::lock);
+            try {
+                rollback.run();
+            } finally {
+                locks.forEach(ReentrantLock::unlock);
+            }
+            log.warn("Journal write failed, rolled back the in-memory change", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Puts back the state a failed save replaced, unless a later write has replaced it since. A stored
+     * instance changed in place by the caller has no previous state to go back to.
+     */
+    private void restore(Reservation saved, Reservation previous) {
+        if (lookup(saved.getId()) != saved || previous == saved) {
+            return;
+        }
+        if (previous == null) {
+            unapply(saved.getId());
+        } else {
+            apply(previous);
+        }
+    }
+
+    private void assignDefaults(Reservation reservation) {
+        if (reservation.getId() == null) {
+            reservation.setId(idGenerator.nextEncodedId());
+        }
+        if (reservation.getCreatedAt() == null) {
+            reservation.setCreatedAt(LocalDateTime.now());
+        }
+    }
+
+    private CompletableFuture<Void> store(Reservation reservation) {
+        apply(reservation);
+        return journal.logSave(reservation);
+    }
+
+    private void apply(Reservation reservation) {
+        if (reservation.getStatus() == ReservationStatus.COMPLETED) {
+            archive(List.of(reservation));
+            return;
+        }
+        reservations.put(reservation.getId(), reservation);
+        index(reservation);
+        history.remove(reservation.getId());
+    }
+
+    /**
+     * Moves completed reservations to the history tier, writing it before they leave the hot map and its
+     * secondary index so a concurrent lookup always finds them in one of the two.
+     */
+    private void archive(List<Reservation> completed) {
+        if (completed.isEmpty()) {
+            return;
+        }
+        history.addAll(completed);
+        for (Reservation reservation : completed) {
+            reservations.remove(reservation.getId());
+            timelineIndex.update(reservation);
+            expiryIndex.update(reservation);
+            secondaryIndex.remove(reservation.getId());
+        }
+    }
+
+    private void index(Reservation reservation) {
+        timelineIndex.update(reservation);
+        expiryIndex.update(reservation);
+        secondaryIndex.update(reservation);
+    }
+
+    private boolean unapply(String id) {
+        Reservation removed = reservations.remove(id);
+        boolean removedHistory = history.remove(id);
+        timelineIndex.remove(id);
+        expiryIndex.remove(id);
+        secondaryIndex.remove(id);
+        return removed != null || removedHistory;
+    }
+
+    private Reservation lookup(String id) {
+        Reservation reservation = reservations.get(id);
+        return reservation != null ? reservation : history.get(id);
+    }
+
+    /**
+     * @return the ids of both tiers, without the duplicates a reservation moving between them leaves
+     */
+    private static Set<String> bothTiers(Set<String> hot, Set<String> archived) {
+        Set<String> ids = new LinkedHashSet<>(hot);
+        ids.addAll(archived);
+        return ids;
+    }
+
+    /**
+     * Looks ids up in the hot map first and fetches the rest from the history tier in one call, keeping
+     * the order of the ids.
+     */
+    private Stream<Reservation> resolve(Collection<String> ids) {
+        List<String> ordered = new ArrayList<>(ids);
+        Reservation[] found = new Reservation[ordered.size()];
+        List<String> archived = new ArrayList<>();
+        for (int i = 0; i < found.length; i++) {
+            found[i] = reservations.get(ordered.get(i));
+            if (found[i] == null) {
+                archived.add(ordered.get(i));
+            }
+        }
+        if (!archived.isEmpty()) {
+            Map<String, Reservation> archivedById = history.getAll(archived);
+            for (int i = 0; i < found.length; i++) {
+                if (found[i] == null) {
+                    found[i] = archivedById.get(ordered.get(i));
+                }
+            }
+        }
+        return Arrays.stream(found).filter(Objects::nonNull);
+    }
+
+    private static boolean overlapsEarlierInBatch(List<Reservation> batch, int index) {
+        Reservation reservation = batch.get(index);
+        for (int i = 0; i < index; i++) {
+            Reservation other = batch.get(i);
+            if (Objects.equals(other.getCarId(), reservation.getCarId())
+                && other.getStartMinute() < reservation.getEndMinute()
+                && reservation.getStartMinute() < other.getEndMinute()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the distinct stripe locks of the reservations' cars, in the order they must be taken
+     */
+    private List<ReentrantLock> locksFor(List<Reservation> batch) {
+        return batch.stream()
+            .map(reservation -> stripeOf(reservation.getCarId()))
+            .distinct()
+            .sorted()
+            .map(stripe -> carLocks[stripe])
+            .collect(Collectors.toList());
+    }
+
+    private ReentrantLock lockFor(String carId) {
+        return carLocks[stripeOf(carId)];
+    }
+
+    private int stripeOf(String carId) {
+        return Math.floorMod(Objects.hashCode(carId), carLocks.length);
+    }
 }
\ No newline at end of file
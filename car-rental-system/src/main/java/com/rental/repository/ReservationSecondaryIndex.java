@@ -0,0 +1,171 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Reservation ids grouped by car, customer email and status. Each customer's ids are kept in timeline
+ * order (see {@link TimelineCursor}), so history pages are read without sorting.
+ * <p>
+ * The attributes a reservation was indexed under are remembered per id, so a reservation that was
+ * mutated in place (cancelled, moved to another car) is moved between buckets on its next save.
+ */
+public class ReservationSecondaryIndex {
+
+    private final Map<String, Set<String>> idsByCarId = new ConcurrentHashMap<>();
+    private final Map<String, NavigableSet<TimelineCursor>> timelineByCustomerEmail = new ConcurrentHashMap<>();
+    private final Map<ReservationStatus, Set<String>> idsByStatus = new EnumMap<>(ReservationStatus.class);
+    private final Map<String, IndexedAttributes> indexedAttributes = new ConcurrentHashMap<>();
+
+    public ReservationSecondaryIndex() {
+        for (ReservationStatus status : ReservationStatus.values()) {
+            idsByStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public void update(Reservation reservation) {
+        update(reservation.getId(), reservation.getCarId(), reservation.getCustomerEmail(), reservation.getStatus(),
+            reservation.getCreatedAt());
+    }
+
+    /**
+     * Indexes a reservation by its attributes alone, for stores that keep the full record elsewhere.
+     */
+    public void update(String reservationId, String carId, String customerEmail, ReservationStatus status,
+                       LocalDateTime createdAt) {
+        indexedAttributes.compute(reservationId, (id, previous) -> {
+            IndexedAttributes current = new IndexedAttributes(carId, customerEmail, status, createdAt);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            index(id, current);
+            return current;
+        });
+    }
+
+    public void remove(String reservationId) {
+        indexedAttributes.computeIfPresent(reservationId, (id, previous) -> {
+            unindex(id, previous);
+            return null;
+        });
+    }
+
+    public Set<String> idsForCar(String carId) {
+        return idsFor(idsByCarId, carId);
+    }
+
+    /**
+     * @return positions of the customer's reservations in timeline order, starting after the cursor
+     */
+    public List<TimelineCursor> customerTimeline(String customerEmail, TimelineCursor after, int limit) {
+        NavigableSet<TimelineCursor> timeline = customerEmail == null ? null : timelineByCustomerEmail.get(customerEmail);
+        if (timeline == null) {
+            return Collections.emptyList();
+        }
+        Iterator<TimelineCursor> cursors = (after == null ? timeline : timeline.tailSet(after, false)).iterator();
+        List<TimelineCursor> page = new ArrayList<>(Math.min(limit, 64));
+        while (page.size() < limit && cursors.hasNext()) {
+            page.add(cursors.next());
+        }
+        return page;
+    }
+
+    public int carCount() {
+        return idsByCarId.size();
+    }
+
+    public int customerCount() {
+        return timelineByCustomerEmail.size();
+    }
+
+    public Set<String> idsWithStatus(ReservationStatus status) {
+        if (status == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(idsByStatus.get(status));
+    }
+
+    private void index(String id, IndexedAttributes attributes) {
+        add(idsByCarId, attributes.carId, id);
+        if (attributes.customerEmail != null) {
+            timelineByCustomerEmail.compute(attributes.customerEmail, (key, timeline) -> {
+                NavigableSet<TimelineCursor> bucket = timeline == null ? new ConcurrentSkipListSet<>() : timeline;
+                bucket.add(new TimelineCursor(attributes.createdAt, id));
+                return bucket;
+            });
+        }
+        if (attributes.status != null) {
+            idsByStatus.get(attributes.status).add(id);
+        }
+    }
+
+    private void unindex(String id, IndexedAttributes attributes) {
+        remove(idsByCarId, attributes.carId, id);
+        if (attributes.customerEmail != null) {
+            timelineByCustomerEmail.computeIfPresent(attributes.customerEmail, (key, timeline) -> {
+                timeline.remove(new TimelineCursor(attributes.createdAt, id));
+                return timeline.isEmpty() ? null : timeline;
+            });
+        }
+        if (attributes.status != null) {
+            idsByStatus.get(attributes.status).remove(id);
+        }
+    }
+
+    private static Set<String> idsFor(Map<String, Set<String>> index, String key) {
+        if (key == null) {
+            return Collections.emptySet();
+        }
+        Set<String> ids = index.get(key);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String id) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, ids) -> {
+            Set<String> bucket = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            bucket.add(id);
+            return bucket;
+        });
+    }
+
+    private static void remove(Map<String, Set<String>> index, String key, String id) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static final class IndexedAttributes {
+
+        private final String carId;
+        private final String customerEmail;
+        private final ReservationStatus status;
+        private final LocalDateTime createdAt;
+
+        private IndexedAttributes(String carId, String customerEmail, ReservationStatus status,
+                                  LocalDateTime createdAt) {
+            this.carId = carId;
+            this.customerEmail = customerEmail;
+            this.status = status;
+            this.createdAt = createdAt;
+        }
+    }
+}
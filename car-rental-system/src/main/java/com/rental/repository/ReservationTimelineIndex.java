@@ -0,0 +1,196 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-car index of ACTIVE reservations, kept sorted by start time.
+ * <p>
+ * Each car owns a skip list keyed on (start, reservation id). Because a lookup only has to
+ * reach back as far as the longest reservation ever indexed for that car, overlap queries
+ * touch O(log n + k) entries instead of every reservation in the store.
+ */
+class ReservationTimelineIndex {
+
+    private final Map<String, CarTimeline> timelines = new ConcurrentHashMap<>();
+    private final Map<String, TimelineKey> indexedKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Brings the index in line with the current state of the reservation: it is (re)inserted
+     * when ACTIVE and dropped otherwise.
+     */
+    void update(Reservation reservation) {
+        indexedKeys.compute(reservation.getId(), (id, previous) -> {
+            if (previous != null) {
+                timeline(previous.carId).remove(previous);
+            }
+            if (!isIndexable(reservation)) {
+                return null;
+            }
+            TimelineKey key = new TimelineKey(reservation.getCarId(), reservation.getStartMinute(), id);
+            timeline(key.carId).add(key, reservation);
+            return key;
+        });
+    }
+
+    void remove(String reservationId) {
+        indexedKeys.computeIfPresent(reservationId, (id, previous) -> {
+            timeline(previous.carId).remove(previous);
+            return null;
+        });
+    }
+
+    List<Reservation> findOverlapping(String carId, LocalDateTime start, LocalDateTime end) {
+        return findOverlapping(carId, Reservation.toEpochMinute(start), Reservation.toEpochMinuteCeiling(end));
+    }
+
+    List<Reservation> findOverlapping(String carId, long startMinute, long endMinute) {
+        CarTimeline timeline = timelines.get(carId);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        return timeline.findOverlapping(startMinute, endMinute);
+    }
+
+    Optional<FreeGap> findFreeGap(String carId, long startMinute, long endMinute) {
+        CarTimeline timeline = timelines.get(carId);
+        if (timeline == null) {
+            return Optional.of(FreeGap.UNBOUNDED);
+        }
+        return timeline.findFreeGap(startMinute, endMinute);
+    }
+
+    List<Reservation> findActive(String carId) {
+        CarTimeline timeline = timelines.get(carId);
+        if (timeline == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(timeline.entries.values());
+    }
+
+    int size() {
+        return indexedKeys.size();
+    }
+
+    private CarTimeline timeline(String carId) {
+        return timelines.computeIfAbsent(carId, id -> new CarTimeline());
+    }
+
+    private static boolean isIndexable(Reservation reservation) {
+        return reservation.getStatus() == ReservationStatus.ACTIVE
+            && reservation.getCarId() != null;
+    }
+
+    private static final class CarTimeline {
+
+        private final ConcurrentSkipListMap<TimelineKey, Reservation> entries = new ConcurrentSkipListMap<>();
+        private final AtomicLong maxDurationDays = new AtomicLong();
+
+        void add(TimelineKey key, Reservation reservation) {
+            maxDurationDays.accumulateAndGet(reservation.getDurationDays(), Math::max);
+            entries.put(key, reservation);
+        }
+
+        void remove(TimelineKey key) {
+            entries.remove(key);
+        }
+
+        List<Reservation> findOverlapping(long startMinute, long endMinute) {
+            long earliestStart = startMinute - maxDurationDays.get() * Reservation.MINUTES_PER_DAY;
+            NavigableMap<TimelineKey, Reservation> candidates = entries.subMap(
+                TimelineKey.lowerBound(earliestStart), true,
+                TimelineKey.lowerBound(endMinute), false);
+
+            List<Reservation> overlapping = new ArrayList<>();
+            for (Reservation reservation : candidates.values()) {
+                if (reservation.overlapsWithPeriod(startMinute, endMinute)) {
+                    overlapping.add(reservation);
+                }
+            }
+            return overlapping;
+        }
+
+        /**
+         * Active reservations of one car never overlap, so the one starting last before the period is
+         * also the one ending last, and both neighbours are a single skip-list step away.
+         */
+        Optional<FreeGap> findFreeGap(long startMinute, long endMinute) {
+            if (!findOverlapping(startMinute, endMinute).isEmpty()) {
+                return Optional.empty();
+            }
+            long gapStart = Long.MIN_VALUE;
+            for (Map.Entry<TimelineKey, Reservation> previous = entries.lowerEntry(TimelineKey.lowerBound(startMinute));
+                 previous != null; previous = entries.lowerEntry(previous.getKey())) {
+                if (previous.getValue().getStatus() == ReservationStatus.ACTIVE) {
+                    gapStart = previous.getValue().getEndMinute();
+                    break;
+                }
+            }
+            long gapEnd = Long.MAX_VALUE;
+            for (Map.Entry<TimelineKey, Reservation> next = entries.ceilingEntry(TimelineKey.lowerBound(endMinute));
+                 next != null; next = entries.higherEntry(next.getKey())) {
+                if (next.getValue().getStatus() == ReservationStatus.ACTIVE) {
+                    gapEnd = next.getValue().getStartMinute();
+                    break;
+                }
+            }
+            return Optional.of(new FreeGap(gapStart, gapEnd));
+        }
+    }
+
+    private static final class TimelineKey implements Comparable<TimelineKey> {
+
+        private final String carId;
+        private final long start;
+        private final String reservationId;
+
+        private TimelineKey(String carId, long start, String reservationId) {
+            this.carId = carId;
+            this.start = start;
+            this.reservationId = reservationId;
+        }
+
+        static TimelineKey lowerBound(long start) {
+            return new TimelineKey(null, start, null);
+        }
+
+        @Override
+        public int compareTo(TimelineKey other) {
+            int byStart = Long.compare(start, other.start);
+            if (byStart != 0) {
+                return byStart;
+            }
+            if (reservationId == null || other.reservationId == null) {
+                return reservationId == null ? (other.reservationId == null ? 0 : -1) : 1;
+            }
+            return reservationId.compareTo(other.reservationId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TimelineKey other)) {
+                return false;
+            }
+            return start == other.start && Objects.equals(reservationId, other.reservationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, reservationId);
+        }
+    }
+}
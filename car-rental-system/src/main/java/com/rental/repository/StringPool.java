@@ -0,0 +1,63 @@
+package com.rental.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reference-counted pool that stores each distinct string once and hands out int references to it.
+ * A reference is recycled once the last row using the string lets go of it. Not thread-safe.
+ */
+final class StringPool {
+
+    static final int NULL_REF = -1;
+
+    private final Map<String, Integer> refs = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private final IntList freeRefs = new IntList();
+    private int[] counts = new int[16];
+
+    int acquire(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        Integer existing = refs.get(value);
+        if (existing != null) {
+            counts[existing]++;
+            return existing;
+        }
+        int ref;
+        if (freeRefs.isEmpty()) {
+            ref = values.size();
+            values.add(value);
+        } else {
+            ref = freeRefs.removeLast();
+            values.set(ref, value);
+        }
+        if (ref >= counts.length) {
+            counts = Arrays.copyOf(counts, counts.length * 2);
+        }
+        counts[ref] = 1;
+        refs.put(value, ref);
+        return ref;
+    }
+
+    void release(int ref) {
+        if (ref == NULL_REF || --counts[ref] > 0) {
+            return;
+        }
+        refs.remove(values.get(ref));
+        values.set(ref, null);
+        freeRefs.add(ref);
+    }
+
+    String get(int ref) {
+        return ref == NULL_REF ? null : values.get(ref);
+    }
+
+    int size() {
+        return refs.size();
+    }
+}
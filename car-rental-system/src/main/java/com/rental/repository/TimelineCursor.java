@@ -0,0 +1,58 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position of a reservation in its customer's timeline, which runs newest first: by creation time
+ * descending, then by id descending. Reservations without a creation time sort as the oldest.
+ */
+public record TimelineCursor(LocalDateTime createdAt, String reservationId) implements Comparable<TimelineCursor> {
+
+    private static final Comparator<TimelineCursor> NEWEST_FIRST = Comparator
+        .comparing(TimelineCursor::createdAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+        .thenComparing(TimelineCursor::reservationId)
+        .reversed();
+
+    public static TimelineCursor of(Reservation reservation) {
+        return new TimelineCursor(reservation.getCreatedAt(), reservation.getId());
+    }
+
+    /**
+     * Parses the opaque form produced by {@link #encode()}.
+     * @throws IllegalArgumentException if the string is not an encoded cursor
+     */
+    public static TimelineCursor decode(String encoded) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            String createdAt = decoded.substring(0, separator);
+            return new TimelineCursor(createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                decoded.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid creation time", e);
+        }
+    }
+
+    /**
+     * @return the cursor as an opaque URL-safe string
+     */
+    public String encode() {
+        String created = createdAt == null ? "" : createdAt.toString();
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((created + "|" + reservationId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int compareTo(TimelineCursor other) {
+        return NEWEST_FIRST.compare(this, other);
+    }
+}
@@ -0,0 +1,24 @@
+package com.rental.service;
+
+import com.rental.model.Car;
+import com.rental.repository.ReservationRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Decides which car serves a booking when several cars of the requested type are free.
+ * Selected with {@code rental.allocation.strategy}.
+ */
+public interface AllocationStrategy {
+
+    /**
+     * Orders the cars that are free for the period by preference.
+     * @param candidates every car of the requested type
+     * @param start start of the period
+     * @param end end of the period
+     * @param reservations repository holding the cars' reservations
+     * @return the free candidates, most preferred first
+     */
+    List<Car> rank(List<Car> candidates, LocalDateTime start, LocalDateTime end, ReservationRepository reservations);
+}
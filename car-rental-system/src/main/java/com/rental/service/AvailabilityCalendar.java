@@ -0,0 +1,427 @@
+package com.rental.service;
+
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.repository.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Hour-granular occupancy calendar used to answer availability counts without scanning reservations.
+ * <p>
+ * Every booked car owns a ring bitset of hour slots covering a rolling horizon that starts at the
+ * beginning of the current day, and each car type keeps a per-slot count of its booked cars. A slot
+ * lying completely inside the queried period settles a car's availability on its own; only the
+ * partially covered boundary slots are confirmed against the reservation repository.
+ * <p>
+ * Each car type also keeps a per-day count of the cars booked for at least one hour of the day. It is
+ * updated as hours are marked and cleared, so per-day availability is one read per day.
+ * <p>
+ * Registered {@link ChangeListener}s hear about every reservation marked or released, after the
+ * calendar reflects it.
+ */
+@Component
+@Slf4j
+public class AvailabilityCalendar {
+
+    private static final int HOURS_PER_DAY = 24;
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long MINUTES_PER_HOUR = 60;
+
+    private final ReservationRepository reservationRepository;
+    private final Clock clock;
+    private final int slots;
+    private final Map<String, CarOccupancy> occupancies = new ConcurrentHashMap<>();
+    private final Map<CarType, AtomicIntegerArray> bookedCarsPerSlot = new EnumMap<>(CarType.class);
+    private final Map<CarType, AtomicIntegerArray> bookedCarsPerDay = new EnumMap<>(CarType.class);
+    private final ReentrantReadWriteLock windowLock = new ReentrantReadWriteLock();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long windowStart;
+
+    @Autowired
+    public AvailabilityCalendar(ReservationRepository reservationRepository,
+                                @Value("${rental.availability.horizon-days:400}") int horizonDays) {
+        this(reservationRepository, horizonDays, Clock.systemDefaultZone());
+    }
+
+    AvailabilityCalendar(ReservationRepository reservationRepository, int horizonDays, Clock clock) {
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("Availability horizon must be positive");
+        }
+        this.reservationRepository = reservationRepository;
+        this.clock = clock;
+        this.slots = horizonDays * HOURS_PER_DAY;
+        for (CarType carType : CarType.values()) {
+            bookedCarsPerSlot.put(carType, new AtomicIntegerArray(slots));
+            bookedCarsPerDay.put(carType, new AtomicIntegerArray(horizonDays));
+        }
+        this.windowStart = startOfDay(currentHour());
+    }
+
+    /**
+     * Marks the hours covered by a freshly created reservation as occupied for its car.
+     */
+    public void markBooked(Car car, Reservation reservation) {
+        rollWindowIfNeeded();
+        CarOccupancy occupancy = occupancies.computeIfAbsent(car.getId(), id -> new CarOccupancy(car.getCarType()));
+
+        windowLock.readLock().lock();
+        try {
+            synchronized (occupancy) {
+                mark(occupancy, reservation);
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        notifyListeners(occupancy.carType, reservation);
+    }
+
+    /**
+     * Frees the hours of a reservation that is no longer active. Boundary hours shared with
+     * neighbouring reservations of the same car are re-marked from the repository.
+     */
+    public void release(Reservation reservation) {
+        CarOccupancy occupancy = occupancies.get(reservation.getCarId());
+        if (occupancy == null) {
+            return;
+        }
+        rollWindowIfNeeded();
+
+        windowLock.readLock().lock();
+        try {
+            synchronized (occupancy) {
+                long from = Math.floorDiv(reservation.getStartMinute(), MINUTES_PER_HOUR);
+                long to = -Math.floorDiv(-reservation.getEndMinute(), MINUTES_PER_HOUR);
+                clear(occupancy, from, to);
+                remarkNeighbours(reservation.getCarId(), occupancy, from);
+                remarkNeighbours(reservation.getCarId(), occupancy, to - 1);
+            }
+        } finally {
+            windowLock.readLock().unlock();
+        }
+        notifyListeners(occupancy.carType, reservation);
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Counts the cars of the given type that are free for the whole period.
+     * @param carType the car type the cars belong to
+     * @param cars every car of that type
+     * @param start start of the period
+     * @param end end of the period
+     * @return number of cars without an overlapping active reservation
+     */
+    public long countAvailable(CarType carType, List<Car> cars, LocalDateTime start, LocalDateTime end) {
+        rollWindowIfNeeded();
+        long from = floorHour(start);
+        long to = ceilHour(end);
+
+        windowLock.readLock().lock();
+        try {
+            if (from < windowStart || to > windowStart + slots) {
+                return countAvailableExactly(cars, start, end);
+            }
+            if (!anyBooked(bookedCarsPerSlot.get(carType), from, to)) {
+                return cars.size();
+            }
+
+            long interiorFrom = ceilHour(start);
+            long interiorTo = floorHour(end);
+            long available = 0;
+            for (Car car : cars) {
+                CarOccupancy occupancy = occupancies.get(car.getId());
+                if (occupancy == null) {
+                    available++;
+                } else if (interiorFrom < interiorTo && occupancy.anySet(interiorFrom, interiorTo)) {
+                    continue;
+                } else if (!occupancy.anySet(from, to) || isFreeExactly(car, start, end)) {
+                    available++;
+                }
+            }
+            return available;
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts, for every day from {@code from} up to but excluding {@code to}, the cars of the given type
+     * that have no reservation during any hour of that day.
+     * @param carType the car type the cars belong to
+     * @param fleetSize number of cars of that type
+     * @param from first day
+     * @param to day after the last day
+     * @return available cars per day, in day order
+     * @throws IllegalArgumentException if the days are empty or not within the calendar horizon
+     */
+    public long[] countAvailablePerDay(CarType carType, int fleetSize, LocalDate from, LocalDate to) {
+        rollWindowIfNeeded();
+        long fromHour = floorHour(from.atStartOfDay());
+        long toHour = floorHour(to.atStartOfDay());
+
+        windowLock.readLock().lock();
+        try {
+            if (fromHour >= toHour || fromHour < windowStart || toHour > windowStart + slots) {
+                throw new IllegalArgumentException(String.format("Daily availability covers %s to %s",
+                    toDateTime(windowStart).toLocalDate(), toDateTime(windowStart + slots).toLocalDate()));
+            }
+            AtomicIntegerArray bookedDays = bookedCarsPerDay.get(carType);
+            int firstDay = dayIndex(fromHour);
+            long[] available = new long[(int) ((toHour - fromHour) / HOURS_PER_DAY)];
+            for (int day = 0; day < available.length; day++) {
+                available[day] = Math.max(0, fleetSize - bookedDays.get(firstDay + day));
+            }
+            return available;
+        } finally {
+            windowLock.readLock().unlock();
+        }
+    }
+
+    private void notifyListeners(CarType carType, Reservation reservation) {
+        for (ChangeListener listener : listeners) {
+            listener.changed(carType, reservation.getStartMinute(), reservation.getEndMinute());
+        }
+    }
+
+    private long countAvailableExactly(List<Car> cars, LocalDateTime start, LocalDateTime end) {
+        return cars.stream()
+            .filter(car -> isFreeExactly(car, start, end))
+            .count();
+    }
+
+    private boolean isFreeExactly(Car car, LocalDateTime start, LocalDateTime end) {
+        return reservationRepository.findOverlappingReservations(car.getId(), start, end).isEmpty();
+    }
+
+    private void mark(CarOccupancy occupancy, Reservation reservation) {
+        long from = Math.max(Math.floorDiv(reservation.getStartMinute(), MINUTES_PER_HOUR), windowStart);
+        long to = Math.min(-Math.floorDiv(-reservation.getEndMinute(), MINUTES_PER_HOUR), windowStart + slots);
+        if (from >= to) {
+            return;
+        }
+        AtomicIntegerArray bookedCars = bookedCarsPerSlot.get(occupancy.carType);
+        AtomicIntegerArray bookedDays = bookedCarsPerDay.get(occupancy.carType);
+        for (long dayStart = startOfDay(from); dayStart < to; dayStart += HOURS_PER_DAY) {
+            boolean dayWasBooked = occupancy.anySet(dayStart, dayStart + HOURS_PER_DAY);
+            for (long hour = Math.max(from, dayStart); hour < Math.min(to, dayStart + HOURS_PER_DAY); hour++) {
+                int slot = slotOf(hour);
+                if (occupancy.set(slot)) {
+                    bookedCars.incrementAndGet(slot);
+                }
+            }
+            if (!dayWasBooked) {
+                bookedDays.incrementAndGet(dayIndex(dayStart));
+            }
+        }
+    }
+
+    private void clear(CarOccupancy occupancy, long from, long to) {
+        long clippedFrom = Math.max(from, windowStart);
+        long clippedTo = Math.min(to, windowStart + slots);
+        if (clippedFrom >= clippedTo) {
+            return;
+        }
+        AtomicIntegerArray bookedCars = bookedCarsPerSlot.get(occupancy.carType);
+        AtomicIntegerArray bookedDays = bookedCarsPerDay.get(occupancy.carType);
+        for (long dayStart = startOfDay(clippedFrom); dayStart < clippedTo; dayStart += HOURS_PER_DAY) {
+            boolean cleared = false;
+            for (long hour = Math.max(clippedFrom, dayStart); hour < Math.min(clippedTo, dayStart + HOURS_PER_DAY); hour++) {
+                int slot = slotOf(hour);
+                if (occupancy.clear(slot)) {
+                    bookedCars.decrementAndGet(slot);
+                    cleared = true;
+                }
+            }
+            if (cleared && !occupancy.anySet(dayStart, dayStart + HOURS_PER_DAY)) {
+                bookedDays.decrementAndGet(dayIndex(dayStart));
+            }
+        }
+    }
+
+    /**
+     * Recounts the booked cars per day after the window moved, as every day changed its index.
+     */
+    private void rebuildDailyCounts() {
+        int days = slots / HOURS_PER_DAY;
+        Map<CarType, int[]> counts = new EnumMap<>(CarType.class);
+        for (CarType carType : CarType.values()) {
+            counts.put(carType, new int[days]);
+        }
+        for (CarOccupancy occupancy : occupancies.values()) {
+            int[] bookedDays = counts.get(occupancy.carType);
+            for (int day = 0; day < days; day++) {
+                long dayStart = windowStart + (long) day * HOURS_PER_DAY;
+                if (occupancy.anySet(dayStart, dayStart + HOURS_PER_DAY)) {
+                    bookedDays[day]++;
+                }
+            }
+        }
+        counts.forEach((carType, bookedDays) -> {
+            AtomicIntegerArray daily = bookedCarsPerDay.get(carType);
+            for (int day = 0; day < days; day++) {
+                daily.set(day, bookedDays[day]);
+            }
+        });
+    }
+
+    private void remarkNeighbours(String carId, CarOccupancy occupancy, long hour) {
+        reservationRepository.findOverlappingReservations(carId, toDateTime(hour), toDateTime(hour + 1))
+            .forEach(neighbour -> mark(occupancy, neighbour));
+    }
+
+    private boolean anyBooked(AtomicIntegerArray bookedCars, long from, long to) {
+        for (long hour = from; hour < to; hour++) {
+            if (bookedCars.get(slotOf(hour)) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rollWindowIfNeeded() {
+        long desiredStart = startOfDay(currentHour());
+        if (desiredStart <= windowStart) {
+            return;
+        }
+
+        windowLock.writeLock().lock();
+        try {
+            long oldStart = windowStart;
+            if (desiredStart <= oldStart) {
+                return;
+            }
+            long oldEnd = oldStart + slots;
+            long expiredTo = Math.min(desiredStart, oldEnd);
+            occupancies.values().forEach(occupancy -> clear(occupancy, oldStart, expiredTo));
+
+            windowStart = desiredStart;
+            LocalDateTime exposedFrom = toDateTime(Math.max(oldEnd, desiredStart));
+            LocalDateTime exposedTo = toDateTime(desiredStart + slots);
+            occupancies.forEach((carId, occupancy) -> reservationRepository
+                .findOverlappingReservations(carId, exposedFrom, exposedTo)
+                .forEach(reservation -> mark(occupancy, reservation)));
+            rebuildDailyCounts();
+            log.debug("Rolled availability calendar to {}", toDateTime(desiredStart));
+        } finally {
+            windowLock.writeLock().unlock();
+        }
+    }
+
+    private int slotOf(long hour) {
+        return (int) Math.floorMod(hour, (long) slots);
+    }
+
+    private int dayIndex(long hour) {
+        return (int) ((hour - windowStart) / HOURS_PER_DAY);
+    }
+
+    private long currentHour() {
+        return floorHour(LocalDateTime.now(clock));
+    }
+
+    private static long startOfDay(long hour) {
+        return hour - Math.floorMod(hour, HOURS_PER_DAY);
+    }
+
+    private static long floorHour(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static long ceilHour(LocalDateTime dateTime) {
+        return -Math.floorDiv(-dateTime.toEpochSecond(ZoneOffset.UTC), SECONDS_PER_HOUR);
+    }
+
+    private static LocalDateTime toDateTime(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Called on the thread that changed the calendar, so implementations must return quickly.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+
+        /**
+         * @param carType type of the car whose reservation was marked or released
+         * @param startMinute start of the reservation, in epoch minutes
+         * @param endMinute end of the reservation, in epoch minutes
+         */
+        void changed(CarType carType, long startMinute, long endMinute);
+    }
+
+    private final class CarOccupancy {
+
+        private final CarType carType;
+        private final long[] words = new long[(slots + Long.SIZE - 1) / Long.SIZE];
+
+        private CarOccupancy(CarType carType) {
+            this.carType = carType;
+        }
+
+        boolean set(int slot) {
+            long mask = 1L << slot;
+            long word = words[slot >>> 6];
+            words[slot >>> 6] = word | mask;
+            return (word & mask) == 0;
+        }
+
+        boolean clear(int slot) {
+            long mask = 1L << slot;
+            long word = words[slot >>> 6];
+            words[slot >>> 6] = word & ~mask;
+            return (word & mask) != 0;
+        }
+
+        boolean anySet(long fromHour, long toHour) {
+            if (toHour - fromHour >= slots) {
+                return anySetInSlots(0, slots);
+            }
+            int from = slotOf(fromHour);
+            int to = from + (int) (toHour - fromHour);
+            if (to <= slots) {
+                return anySetInSlots(from, to);
+            }
+            return anySetInSlots(from, slots) || anySetInSlots(0, to - slots);
+        }
+
+        private boolean anySetInSlots(int from, int to) {
+            if (from >= to) {
+                return false;
+            }
+            int firstWord = from >>> 6;
+            int lastWord = (to - 1) >>> 6;
+            long firstMask = -1L << from;
+            long lastMask = -1L >>> -to;
+            if (firstWord == lastWord) {
+                return (words[firstWord] & firstMask & lastMask) != 0;
+            }
+            if ((words[firstWord] & firstMask) != 0 || (words[lastWord] & lastMask) != 0) {
+                return true;
+            }
+            for (int i = firstWord + 1; i < lastWord; i++) {
+                if (words[i] != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
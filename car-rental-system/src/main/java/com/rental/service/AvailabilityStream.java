@@ -0,0 +1,377 @@
+package com.rental.service;
+
+import com.rental.dto.AvailabilityUpdate;
+import com.rental.exception.InvalidReservationException;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.repository.CarRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Pushes availability counts of a car type and time window to subscribers as bookings change them.
+ * <p>
+ * Subscribers asking for the same type and window share one {@link Window}, so a count is computed
+ * once per window however many clients watch it. The calendar only records which periods of which
+ * types changed; every {@code rental.availability.stream.interval-ms} the changes are coalesced,
+ * the counts of the windows they overlap are recomputed, and an update is published for each count
+ * that actually moved. Delivery runs on {@code rental.availability.stream.delivery-threads} threads,
+ * and a subscriber that has not taken its previous update yet only receives the latest one.
+ * <p>
+ * A listener may block, e.g. on a client that stopped reading. One still blocked after
+ * {@code rental.availability.stream.send-timeout-ms} is dropped and its thread interrupted, and the pool
+ * gets a replacement thread until the blocked call returns, so stalled clients never hold up the others.
+ */
+@Component
+@Slf4j
+public class AvailabilityStream {
+
+    private final AvailabilityCalendar availabilityCalendar;
+    private final CarRepository carRepository;
+    private final ThreadPoolExecutor deliveryExecutor;
+    private final long sendTimeoutNanos;
+    private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+    private final Map<CarType, long[]> changedPeriods = new EnumMap<>(CarType.class);
+    private final AtomicLong changeGeneration = new AtomicLong();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Autowired
+    public AvailabilityStream(AvailabilityCalendar availabilityCalendar, CarRepository carRepository,
+                              @Value("${rental.availability.stream.delivery-threads:4}") int deliveryThreads,
+                              @Value("${rental.availability.stream.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this(availabilityCalendar, carRepository, deliveryExecutor(deliveryThreads), Duration.ofMillis(sendTimeoutMillis));
+    }
+
+    AvailabilityStream(AvailabilityCalendar availabilityCalendar, CarRepository carRepository,
+                       ThreadPoolExecutor deliveryExecutor, Duration sendTimeout) {
+        this.availabilityCalendar = availabilityCalendar;
+        this.carRepository = carRepository;
+        this.deliveryExecutor = deliveryExecutor;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        availabilityCalendar.addChangeListener(this::changed);
+    }
+
+    static ThreadPoolExecutor deliveryExecutor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "availability-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Registers a listener for a window; it first receives the current count, then every change.
+     * @param carType the car type to watch
+     * @param start start of the window
+     * @param end end of the window
+     * @param listener receives updates on a delivery thread, never concurrently with itself
+     * @return handle that stops the updates when closed
+     * @throws InvalidReservationException if the window is empty
+     */
+    public Subscription subscribe(CarType carType, LocalDateTime start, LocalDateTime end,
+                                  Consumer<AvailabilityUpdate> listener) {
+        return subscribe(carType, start, end, listener, () -> { });
+    }
+
+    /**
+     * Like {@link #subscribe(CarType, LocalDateTime, LocalDateTime, Consumer)}, telling the caller when the
+     * stream drops the listener because it failed or stayed blocked past the send timeout.
+     * @param onDropped runs once if the stream drops the listener, but not when the subscription is closed
+     */
+    public Subscription subscribe(CarType carType, LocalDateTime start, LocalDateTime end,
+                                  Consumer<AvailabilityUpdate> listener, Runnable onDropped) {
+        if (carType == null || start == null || end == null || !start.isBefore(end)) {
+            throw new InvalidReservationException("Availability window start must be before its end");
+        }
+        WindowKey key = new WindowKey(carType, start, end);
+        Subscriber subscriber = new Subscriber(key, listener, onDropped);
+        Window window = windows.compute(key, (ignored, existing) -> {
+            Window joined = existing != null ? existing : new Window(key);
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+        subscriberCount.incrementAndGet();
+
+        long available = window.available.get();
+        if (available < 0) {
+            long generation = changeGeneration.get();
+            long counted = count(key, carRepository.findByCarType(carType));
+            available = window.available.compareAndSet(-1, counted) ? counted : window.available.get();
+            if (changeGeneration.get() != generation) {
+                // publishChanges may have taken a change while the window had no count yet and skipped
+                // it; flag the window again so the next run recounts it
+                changed(carType, Reservation.toEpochMinute(start), Reservation.toEpochMinuteCeiling(end));
+            }
+        }
+        subscriber.offer(update(key, available, 0));
+        return () -> unsubscribe(key, subscriber);
+    }
+
+    /**
+     * Recomputes the windows overlapping the periods changed since the last run and publishes the
+     * counts that moved.
+     * @return number of windows whose count changed
+     */
+    @Scheduled(fixedDelayString = "${rental.availability.stream.interval-ms:500}")
+    public int publishChanges() {
+        Map<CarType, long[]> changes;
+        synchronized (changedPeriods) {
+            if (changedPeriods.isEmpty()) {
+                return 0;
+            }
+            changes = new EnumMap<>(changedPeriods);
+            changedPeriods.clear();
+        }
+
+        Map<CarType, List<Car>> fleets = new EnumMap<>(CarType.class);
+        int published = 0;
+        for (Window window : windows.values()) {
+            long[] changed = changes.get(window.key.carType());
+            if (changed == null || !window.key.overlaps(changed[0], changed[1]) || window.available.get() < 0) {
+                continue;
+            }
+            List<Car> cars = fleets.computeIfAbsent(window.key.carType(), carRepository::findByCarType);
+            long available = count(window.key, cars);
+            long previous = window.available.getAndSet(available);
+            if (available != previous) {
+                AvailabilityUpdate update = update(window.key, available, available - previous);
+                window.subscribers.forEach(subscriber -> subscriber.offer(update));
+                published++;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Drops listeners that have been blocked in one call for longer than the send timeout.
+     * @return number of listeners dropped
+     */
+    @Scheduled(fixedDelayString = "${rental.availability.stream.interval-ms:500}")
+    public int dropStalledSubscribers() {
+        long now = System.nanoTime();
+        int dropped = 0;
+        for (Window window : windows.values()) {
+            for (Subscriber subscriber : window.subscribers) {
+                if (subscriber.stalledAt(now) && subscriber.abandon()) {
+                    dropped++;
+                }
+            }
+        }
+        return dropped;
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public int windowCount() {
+        return windows.size();
+    }
+
+    /**
+     * Widens the type's pending period to cover the change; runs on the booking thread.
+     */
+    private void changed(CarType carType, long startMinute, long endMinute) {
+        if (windows.isEmpty()) {
+            return;
+        }
+        synchronized (changedPeriods) {
+            changeGeneration.incrementAndGet();
+            long[] period = changedPeriods.get(carType);
+            if (period == null) {
+                changedPeriods.put(carType, new long[] {startMinute, endMinute});
+            } else {
+                period[0] = Math.min(period[0], startMinute);
+                period[1] = Math.max(period[1], endMinute);
+            }
+        }
+    }
+
+    private boolean unsubscribe(WindowKey key, Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        windows.computeIfPresent(key, (ignored, window) -> {
+            window.subscribers.remove(subscriber);
+            return window.subscribers.isEmpty() ? null : window;
+        });
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (unsubscribe(subscriber.key, subscriber)) {
+            try {
+                subscriber.onDropped.run();
+            } catch (RuntimeException e) {
+                log.debug("Failed to notify dropped availability subscriber", e);
+            }
+        }
+    }
+
+    /**
+     * Grows or shrinks the delivery pool by one thread, keeping the maximum at least the core size.
+     */
+    private void resizeDeliveryPool(int delta) {
+        synchronized (deliveryExecutor) {
+            if (delta > 0) {
+                deliveryExecutor.setMaximumPoolSize(deliveryExecutor.getMaximumPoolSize() + delta);
+                deliveryExecutor.setCorePoolSize(deliveryExecutor.getCorePoolSize() + delta);
+            } else {
+                deliveryExecutor.setCorePoolSize(deliveryExecutor.getCorePoolSize() + delta);
+                deliveryExecutor.setMaximumPoolSize(deliveryExecutor.getMaximumPoolSize() + delta);
+            }
+        }
+    }
+
+    private long count(WindowKey key, List<Car> cars) {
+        return availabilityCalendar.countAvailable(key.carType(), cars, key.start(), key.end());
+    }
+
+    private static AvailabilityUpdate update(WindowKey key, long available, long change) {
+        return AvailabilityUpdate.builder()
+            .carType(key.carType())
+            .startDateTime(key.start())
+            .endDateTime(key.end())
+            .available(available)
+            .change(change)
+            .build();
+    }
+
+    /**
+     * Handle of one subscription; closing it more than once has no effect.
+     */
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private record WindowKey(CarType carType, LocalDateTime start, LocalDateTime end) {
+
+        boolean overlaps(long startMinute, long endMinute) {
+            return Reservation.toEpochMinute(start) < endMinute && startMinute < Reservation.toEpochMinuteCeiling(end);
+        }
+    }
+
+    private static final class Window {
+
+        private final WindowKey key;
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final AtomicLong available = new AtomicLong(-1);
+
+        private Window(WindowKey key) {
+            this.key = key;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final WindowKey key;
+        private final Consumer<AvailabilityUpdate> listener;
+        private final Runnable onDropped;
+        private final AtomicReference<AvailabilityUpdate> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean abandoned = new AtomicBoolean();
+        private Thread sender;
+        private long sendingSince;
+
+        private Subscriber(WindowKey key, Consumer<AvailabilityUpdate> listener, Runnable onDropped) {
+            this.key = key;
+            this.listener = listener;
+            this.onDropped = onDropped;
+        }
+
+        void offer(AvailabilityUpdate update) {
+            pending.set(update);
+            if (draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        synchronized boolean stalledAt(long now) {
+            return sender != null && now - sendingSince > sendTimeoutNanos;
+        }
+
+        /**
+         * Drops a listener stuck in a call, interrupts it and lends the pool a thread in its place.
+         */
+        boolean abandon() {
+            synchronized (this) {
+                if (sender == null || !abandoned.compareAndSet(false, true)) {
+                    return false;
+                }
+                resizeDeliveryPool(1);
+                sender.interrupt();
+            }
+            log.info("Availability subscriber blocked for over {} ms, dropping it",
+                TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            drop(this);
+            return true;
+        }
+
+        private void drain() {
+            try {
+                for (AvailabilityUpdate update = pending.getAndSet(null); update != null && !closed.get();
+                     update = pending.getAndSet(null)) {
+                    send(update);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Availability subscriber failed, dropping it", e);
+                drop(this);
+            } finally {
+                draining.set(false);
+            }
+            if (pending.get() != null && !closed.get() && draining.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this::drain);
+            }
+        }
+
+        private void send(AvailabilityUpdate update) {
+            synchronized (this) {
+                sender = Thread.currentThread();
+                sendingSince = System.nanoTime();
+            }
+            try {
+                listener.accept(update);
+            } finally {
+                synchronized (this) {
+                    sender = null;
+                }
+                if (abandoned.get()) {
+                    // the interrupt may have arrived after the call returned; it must not hit the next task
+                    Thread.interrupted();
+                    resizeDeliveryPool(-1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.rental.service;
+
+import com.rental.model.Car;
+import com.rental.model.Reservation;
+import com.rental.repository.FreeGap;
+import com.rental.repository.ReservationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Prefers the car whose free gap around the period is tightest, so bookings fill the holes between
+ * existing reservations and cars with long open stretches stay free for long rentals. Ties go to the
+ * car whose previous reservation ends closest to the start, then to fleet order.
+ */
+@Component
+@ConditionalOnProperty(name = "rental.allocation.strategy", havingValue = "best-fit", matchIfMissing = true)
+public class BestFitAllocationStrategy implements AllocationStrategy {
+
+    private static final Comparator<Fit> TIGHTEST_FIRST = Comparator.comparingLong(Fit::gapLength)
+        .thenComparingLong(Fit::leadingSlack);
+
+    @Override
+    public List<Car> rank(List<Car> candidates, LocalDateTime start, LocalDateTime end, ReservationRepository reservations) {
+        long startMinute = Reservation.toEpochMinute(start);
+        List<Fit> fits = new ArrayList<>(candidates.size());
+        for (Car car : candidates) {
+            Optional<FreeGap> gap = reservations.findFreeGap(car.getId(), start, end);
+            if (gap.isPresent()) {
+                long leadingSlack = gap.get().isBoundedBefore() ? startMinute - gap.get().startMinute() : Long.MAX_VALUE;
+                fits.add(new Fit(car, gap.get().length(), leadingSlack));
+            }
+        }
+        fits.sort(TIGHTEST_FIRST);
+        return fits.stream().map(Fit::car).collect(Collectors.toList());
+    }
+
+    private record Fit(Car car, long gapLength, long leadingSlack) {
+    }
+}
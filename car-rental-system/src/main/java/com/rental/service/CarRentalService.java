@@ -1,13 +1,17 @@
 package com.rental.service;
 
+import com.rental.dto.ReservationPage;
 import com.rental.dto.ReservationRequest;
 import com.rental.dto.ReservationResponse;
 import com.rental.model.Car;
 import com.rental.model.CarType;
+import com.rental.model.ReservationStatus;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CarRentalService {
 
@@ -20,6 +24,15 @@ public interface CarRentalService {
      */
     ReservationResponse createReservation(ReservationRequest request);
 
+    /**
+     * Creates several reservations at once; either all of them are created or none is
+     * @param requests the reservation request details
+     * @return the created reservation responses, in request order
+     * @throws com.rental.exception.CarNotAvailableException if any request cannot be served
+     * @throws com.rental.exception.InvalidReservationException if any request is invalid
+     */
+    List<ReservationResponse> createReservations(List<ReservationRequest> requests);
+
     /**
      * Retrieves a reservation by its ID
      * @param reservationId the reservation ID
@@ -41,6 +54,27 @@ public interface CarRentalService {
      */
     List<ReservationResponse> getReservationsForCustomer(String customerEmail);
 
+    /**
+     * Lists one page of a customer's reservations, newest first
+     * @param customerEmail the customer's email
+     * @param cursor the next cursor of the previous page, or null for the first page
+     * @param limit maximum number of reservations in the page
+     * @return the page and the cursor of the next one
+     * @throws com.rental.exception.InvalidReservationException if the cursor or limit is invalid
+     */
+    ReservationPage getReservationsForCustomer(String customerEmail, String cursor, int limit);
+
+    /**
+     * Streams reservations for export. The stream is lazy: reservations are read from the repository
+     * and mapped one at a time as it is consumed, and it should be closed once consumed
+     * @param status only reservations with this status, or null for all
+     * @param from only reservations starting at or after this time, or null
+     * @param to only reservations starting before this time, or null
+     * @return the matching reservations
+     * @throws com.rental.exception.InvalidReservationException if the range is empty
+     */
+    Stream<ReservationResponse> exportReservations(ReservationStatus status, LocalDateTime from, LocalDateTime to);
+
     /**
      * Gets all available cars of a specific type for a given time period
      * @param carType the car type
@@ -64,4 +98,14 @@ public interface CarRentalService {
      * @return map of car type to available count
      */
     java.util.Map<CarType, Long> getAvailabilityByType(LocalDateTime startDateTime, LocalDateTime endDateTime);
+
+    /**
+     * Gets, for every day of a range, how many cars of a type are free for the whole day
+     * @param carType the car type
+     * @param from first day
+     * @param to day after the last day
+     * @return map of day to available count, in day order
+     * @throws com.rental.exception.InvalidReservationException if the range is empty or beyond the availability horizon
+     */
+    java.util.Map<LocalDate, Long> getDailyAvailability(CarType carType, LocalDate from, LocalDate to);
 }
\ No newline at end of file
@@ -1,101 +1,151 @@
 package com.rental.service;
 
+import com.rental.dto.ReservationPage;
 import com.rental.dto.ReservationRequest;
 import com.rental.dto.ReservationResponse;
 import com.rental.exception.CarNotAvailableException;
 import com.rental.exception.InvalidReservationException;
+import com.rental.metrics.BookingMetrics;
+import com.rental.metrics.BookingMetrics.Operation;
+import com.rental.metrics.BookingMetrics.Stage;
 import com.rental.model.Car;
 import com.rental.model.CarType;
 import com.rental.model.Reservation;
 import com.rental.model.ReservationStatus;
 import com.rental.repository.CarRepository;
 import com.rental.repository.ReservationRepository;
+import com.rental.repository.TimelineCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CarRentalServiceImpl implements CarRentalService {
 
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    static final int MAX_PAGE_SIZE = 500;
+
     private final CarRepository carRepository;
     private final ReservationRepository reservationRepository;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final ReservationResponseCache responseCache;
+    private final BookingMetrics bookingMetrics;
+    private final AllocationStrategy allocationStrategy;
+
+    @PostConstruct
+    public void restoreAvailability() {
+        for (Car car : carRepository.findAll()) {
+            reservationRepository.findActiveReservationsForCar(car.getId())
+                .forEach(reservation -> availabilityCalendar.markBooked(car, reservation));
+        }
+    }
 
     @Override
     public ReservationResponse createReservation(ReservationRequest request) {
-        log.info("Creating reservation for car type: {} from {} for {} days",
-            request.getCarType(), request.getStartDateTime(), request.getDurationDays());
-
-        validateReservationRequest(request);
-
-        LocalDateTime endDateTime = request.getStartDateTime().plusDays(request.getDurationDays());
-
-        Optional<Car> availableCar = findAvailableCarForPeriod(
-            request.getCarType(),
-            request.getStartDateTime(),
-            endDateTime
-        );
-
-        if (availableCar.isEmpty()) {
-            throw new CarNotAvailableException(
-                String.format("No %s available for the requested period: %s to %s",
-                    request.getCarType().getDisplayName(),
-                    request.getStartDateTime(),
-                    endDateTime)
-            );
+        log.atDebug().setMessage("Creating reservation")
+            .addKeyValue("carType", request.getCarType())
+            .addKeyValue("start", request.getStartDateTime())
+            .addKeyValue("durationDays", request.getDurationDays())
+            .log();
+
+        BookingMetrics.Trace trace = bookingMetrics.trace(Operation.CREATE_RESERVATION);
+        try {
+            validateReservationRequest(request);
+            LocalDateTime endDateTime = request.getStartDateTime().plusDays(request.getDurationDays());
+            trace.lap(Stage.VALIDATION);
+
+            List<Car> candidates = findCandidates(request.getBranch(), request.getCarType());
+            trace.lap(Stage.CANDIDATE_SEARCH);
+
+            List<Car> freeCars = allocationStrategy.rank(candidates, request.getStartDateTime(), endDateTime,
+                reservationRepository);
+            trace.lap(Stage.OVERLAP_CHECK);
+
+            for (Car car : freeCars) {
+                Reservation reservation = Reservation.builder()
+                    .carId(car.getId())
+                    .customerName(request.getCustomerName())
+                    .customerEmail(request.getCustomerEmail())
+                    .startDateTime(request.getStartDateTime())
+                    .durationDays(request.getDurationDays())
+                    .totalCost(calculateTotalCost(car, request.getDurationDays()))
+                    .build();
+
+                Optional<Reservation> savedReservation = reservationRepository.reserveIfFree(reservation);
+                trace.lap(Stage.PERSISTENCE);
+                if (savedReservation.isPresent()) {
+                    availabilityCalendar.markBooked(car, savedReservation.get());
+                    responseCache.invalidate(null, request.getCustomerEmail());
+                    trace.lap(Stage.CALENDAR);
+                    log.atInfo().setMessage("Created reservation")
+                        .addKeyValue("reservationId", savedReservation.get().getId())
+                        .addKeyValue("carId", car.getId())
+                        .log();
+                    return mapToReservationResponse(savedReservation.get(), car);
+                }
+
+                log.atDebug().setMessage("Car was booked concurrently, trying next candidate")
+                    .addKeyValue("carId", car.getId())
+                    .log();
+            }
+
+            bookingMetrics.rejected(Operation.CREATE_RESERVATION);
+            throw carNotAvailable(request, endDateTime);
+        } finally {
+            trace.finish();
         }
+    }
 
-        Car car = availableCar.get();
-        double totalCost = calculateTotalCost(car, request.getDurationDays());
-
-        Reservation reservation = Reservation.builder()
-            .carId(car.getId())
-            .customerName(request.getCustomerName())
-            .customerEmail(request.getCustomerEmail())
-            .startDateTime(request.getStartDateTime())
-            .durationDays(request.getDurationDays())
-            .totalCost(totalCost)
-            .build();
-
-        Reservation savedReservation = reservationRepository.save(reservation);
-
-        log.info("Successfully created reservation: {} for car: {}",
-            savedReservation.getId(), car.getId());
+    @Override
+    public List<ReservationResponse> createReservations(List<ReservationRequest> requests) {
+        log.info("Creating batch of {} reservations", requests.size());
 
-        return mapToReservationResponse(savedReservation, car);
+        if (requests.isEmpty()) {
+            throw new InvalidReservationException("Batch must contain at least one reservation");
+        }
+        requests.forEach(this::validateReservationRequest);
+
+        BookingMetrics.Trace trace = bookingMetrics.trace(Operation.CREATE_RESERVATIONS);
+        try {
+            return reserveBatch(requests);
+        } catch (CarNotAvailableException e) {
+            bookingMetrics.rejected(Operation.CREATE_RESERVATIONS);
+            throw e;
+        } finally {
+            trace.finish();
+        }
     }
 
     @Override
     public Optional<ReservationResponse> getReservation(String reservationId) {
-        return reservationRepository.findById(reservationId)
-            .map(reservation -> {
-                Car car = carRepository.findById(reservation.getCarId())
-                    .orElseThrow(() -> new IllegalStateException("Car not found for reservation"));
-                return mapToReservationResponse(reservation, car);
-            });
+        return responseCache.getReservation(reservationId,
+            id -> reservationRepository.findById(id).map(this::mapToReservationResponse));
     }
 
     @Override
     public boolean cancelReservation(String reservationId) {
-        Optional<Reservation> reservationOpt = reservationRepository.findById(reservationId);
-
-        if (reservationOpt.isEmpty()) {
-            return false;
-        }
+        Optional<Reservation> cancelled = reservationRepository.cancelIfActive(reservationId);
 
-        Reservation reservation = reservationOpt.get();
-
-        if (reservation.getStatus() != ReservationStatus.ACTIVE) {
+        if (cancelled.isEmpty()) {
+            if (reservationRepository.findById(reservationId).isEmpty()) {
+                return false;
+            }
             throw new InvalidReservationException("Cannot cancel reservation that is not active");
         }
 
-        reservation.setStatus(ReservationStatus.CANCELLED);
-        reservationRepository.save(reservation);
+        Reservation reservation = cancelled.get();
+        availabilityCalendar.release(reservation);
+        responseCache.invalidate(reservationId, reservation.getCustomerEmail());
 
         log.info("Cancelled reservation: {}", reservationId);
         return true;
@@ -103,23 +153,56 @@ public class CarRentalServiceImpl implements CarRentalService {
 
     @Override
     public List<ReservationResponse> getReservationsForCustomer(String customerEmail) {
-        return reservationRepository.findByCustomerEmail(customerEmail).stream()
-            .map(reservation -> {
-                Car car = carRepository.findById(reservation.getCarId())
-                    .orElseThrow(() -> new IllegalStateException("Car not found for reservation"));
-                return mapToReservationResponse(reservation, car);
-            })
-            .sorted(Comparator.comparing(ReservationResponse::getCreatedAt).reversed())
-            .collect(Collectors.toList());
+        return responseCache.getCustomerHistory(customerEmail,
+            email -> reservationRepository.findByCustomerEmail(email).stream()
+                .map(this::mapToReservationResponse)
+                .collect(Collectors.toList()));
     }
 
     @Override
-    public List<Car> getAvailableCars(CarType carType, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        List<Car> carsOfType = carRepository.findByCarType(carType);
+    public ReservationPage getReservationsForCustomer(String customerEmail, String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidReservationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TimelineCursor after = cursor == null ? null : decodeCursor(cursor);
+
+        // One extra row tells whether another page follows without a second lookup.
+        List<Reservation> reservations = reservationRepository.findCustomerTimeline(customerEmail, after, limit + 1);
+        boolean hasMore = reservations.size() > limit;
+        List<Reservation> page = hasMore ? reservations.subList(0, limit) : reservations;
+        return ReservationPage.builder()
+            .reservations(page.stream().map(this::mapToReservationResponse).collect(Collectors.toList()))
+            .nextCursor(hasMore ? TimelineCursor.of(page.get(page.size() - 1)).encode() : null)
+            .build();
+    }
 
-        return carsOfType.stream()
-            .filter(car -> isCarAvailableForPeriod(car.getId(), startDateTime, endDateTime))
-            .collect(Collectors.toList());
+    @Override
+    public Stream<ReservationResponse> exportReservations(ReservationStatus status, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidReservationException("Export range start must be before its end");
+        }
+        Spliterator<Reservation> reservations = Spliterators.spliteratorUnknownSize(
+            reservationRepository.scanStartingBetween(from, to), Spliterator.NONNULL);
+        return StreamSupport.stream(reservations, false)
+            .filter(reservation -> status == null || reservation.getStatus() == status)
+            .map(this::mapToReservationResponse);
+    }
+
+    @Override
+    public List<Car> getAvailableCars(CarType carType, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        BookingMetrics.Trace trace = bookingMetrics.trace(Operation.GET_AVAILABLE_CARS);
+        try {
+            List<Car> carsOfType = carRepository.findByCarType(carType);
+            trace.lap(Stage.CANDIDATE_SEARCH);
+
+            List<Car> availableCars = carsOfType.stream()
+                .filter(car -> isCarAvailableForPeriod(car.getId(), startDateTime, endDateTime))
+                .collect(Collectors.toList());
+            trace.lap(Stage.OVERLAP_CHECK);
+            return availableCars;
+        } finally {
+            trace.finish();
+        }
     }
 
     @Override
@@ -129,11 +212,45 @@ public class CarRentalServiceImpl implements CarRentalService {
 
     @Override
     public Map<CarType, Long> getAvailabilityByType(LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        return Arrays.stream(CarType.values())
-            .collect(Collectors.toMap(
-                carType -> carType,
-                carType -> (long) getAvailableCars(carType, startDateTime, endDateTime).size()
-            ));
+        BookingMetrics.Trace trace = bookingMetrics.trace(Operation.GET_AVAILABILITY_BY_TYPE);
+        try {
+            Map<CarType, Long> availability = new EnumMap<>(CarType.class);
+            for (CarType carType : CarType.values()) {
+                List<Car> carsOfType = carRepository.findByCarType(carType);
+                trace.lap(Stage.CANDIDATE_SEARCH);
+                availability.put(carType,
+                    availabilityCalendar.countAvailable(carType, carsOfType, startDateTime, endDateTime));
+                trace.lap(Stage.CALENDAR);
+            }
+            return availability;
+        } finally {
+            trace.finish();
+        }
+    }
+
+    @Override
+    public Map<LocalDate, Long> getDailyAvailability(CarType carType, LocalDate from, LocalDate to) {
+        BookingMetrics.Trace trace = bookingMetrics.trace(Operation.GET_DAILY_AVAILABILITY);
+        try {
+            int fleetSize = carRepository.findByCarType(carType).size();
+            trace.lap(Stage.CANDIDATE_SEARCH);
+
+            long[] available;
+            try {
+                available = availabilityCalendar.countAvailablePerDay(carType, fleetSize, from, to);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidReservationException(e.getMessage());
+            }
+            trace.lap(Stage.CALENDAR);
+
+            Map<LocalDate, Long> availability = new LinkedHashMap<>();
+            for (int day = 0; day < available.length; day++) {
+                availability.put(from.plusDays(day), available[day]);
+            }
+            return availability;
+        } finally {
+            trace.finish();
+        }
     }
 
     private void validateReservationRequest(ReservationRequest request) {
@@ -150,12 +267,99 @@ public class CarRentalServiceImpl implements CarRentalService {
         }
     }
 
-    private Optional<Car> findAvailableCarForPeriod(CarType carType, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        List<Car> carsOfType = carRepository.findByCarType(carType);
+    private List<ReservationResponse> reserveBatch(List<ReservationRequest> requests) {
+        for (int attempt = 1; ; attempt++) {
+            List<Allocation> allocations = allocate(requests);
+            List<Reservation> batch = allocations.stream()
+                .map(Allocation::reservation)
+                .collect(Collectors.toList());
+
+            if (reservationRepository.reserveAllIfFree(batch).isPresent()) {
+                allocations.forEach(allocation -> availabilityCalendar.markBooked(allocation.car(), allocation.reservation()));
+                batch.forEach(reservation -> responseCache.invalidate(null, reservation.getCustomerEmail()));
+                log.info("Successfully created batch of {} reservations", batch.size());
+                return allocations.stream()
+                    .map(allocation -> mapToReservationResponse(allocation.reservation(), allocation.car()))
+                    .collect(Collectors.toList());
+            }
+
+            if (attempt == MAX_BATCH_ATTEMPTS) {
+                throw new CarNotAvailableException("Cars for the batch kept being booked concurrently, please retry");
+            }
+            log.debug("Batch allocation conflicted with concurrent bookings, retrying (attempt {})", attempt);
+        }
+    }
+
+    /**
+     * Picks a car for every request in the order of the allocation strategy, fetching the candidates of
+     * each branch and car type once, ranking them once per distinct period and keeping the cars already
+     * picked within the batch from being handed out twice for overlapping periods.
+     */
+    private List<Allocation> allocate(List<ReservationRequest> requests) {
+        Map<Fleet, List<Integer>> requestsByFleet = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Fleet fleet = new Fleet(requests.get(i).getBranch(), requests.get(i).getCarType());
+            requestsByFleet.computeIfAbsent(fleet, key -> new ArrayList<>()).add(i);
+        }
+
+        Allocation[] allocations = new Allocation[requests.size()];
+        Map<String, List<Reservation>> claimed = new HashMap<>();
+        requestsByFleet.forEach((fleet, indexes) -> {
+            List<Car> candidates = findCandidates(fleet.branch(), fleet.carType());
+            Map<Period, List<Car>> freeCarsByPeriod = new HashMap<>();
+
+            for (int index : indexes) {
+                ReservationRequest request = requests.get(index);
+                LocalDateTime endDateTime = request.getStartDateTime().plusDays(request.getDurationDays());
+                List<Car> freeCars = freeCarsByPeriod.computeIfAbsent(
+                    new Period(request.getStartDateTime(), endDateTime),
+                    period -> allocationStrategy.rank(candidates, period.start(), period.end(), reservationRepository));
+                Car car = freeCars.stream()
+                    .filter(candidate -> !overlapsAny(claimed.get(candidate.getId()), request.getStartDateTime(), endDateTime))
+                    .findFirst()
+                    .orElseThrow(() -> carNotAvailable(request, endDateTime));
+
+                Reservation reservation = Reservation.builder()
+                    .carId(car.getId())
+                    .customerName(request.getCustomerName())
+                    .customerEmail(request.getCustomerEmail())
+                    .startDateTime(request.getStartDateTime())
+                    .durationDays(request.getDurationDays())
+                    .totalCost(calculateTotalCost(car, request.getDurationDays()))
+                    .build();
+                claimed.computeIfAbsent(car.getId(), id -> new ArrayList<>()).add(reservation);
+                allocations[index] = new Allocation(car, reservation);
+            }
+        });
+        return Arrays.asList(allocations);
+    }
+
+    private List<Car> findCandidates(String branch, CarType carType) {
+        return branch == null
+            ? carRepository.findByCarType(carType)
+            : carRepository.findByBranchAndCarType(branch, carType);
+    }
 
-        return carsOfType.stream()
-            .filter(car -> isCarAvailableForPeriod(car.getId(), startDateTime, endDateTime))
-            .findFirst();
+    private static boolean overlapsAny(List<Reservation> reservations, LocalDateTime start, LocalDateTime end) {
+        return reservations != null && reservations.stream()
+            .anyMatch(reservation -> reservation.overlapsWithPeriod(start, end));
+    }
+
+    private CarNotAvailableException carNotAvailable(ReservationRequest request, LocalDateTime endDateTime) {
+        return new CarNotAvailableException(
+            String.format("No %s available for the requested period: %s to %s",
+                request.getCarType().getDisplayName(),
+                request.getStartDateTime(),
+                endDateTime)
+        );
+    }
+
+    private static TimelineCursor decodeCursor(String cursor) {
+        try {
+            return TimelineCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidReservationException("Invalid cursor: " + cursor);
+        }
     }
 
     private boolean isCarAvailableForPeriod(String carId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
@@ -169,11 +373,18 @@ public class CarRentalServiceImpl implements CarRentalService {
         return car.getDailyRate() * durationDays;
     }
 
+    private ReservationResponse mapToReservationResponse(Reservation reservation) {
+        Car car = carRepository.findById(reservation.getCarId())
+            .orElseThrow(() -> new IllegalStateException("Car not found for reservation"));
+        return mapToReservationResponse(reservation, car);
+    }
+
     private ReservationResponse mapToReservationResponse(Reservation reservation, Car car) {
         return ReservationResponse.builder()
             .reservationId(reservation.getId())
             .carId(car.getId())
             .licensePlate(car.getLicensePlate())
+            .branch(car.getBranch())
             .carType(car.getCarType())
             .customerName(reservation.getCustomerName())
             .customerEmail(reservation.getCustomerEmail())
@@ -185,4 +396,13 @@ public class CarRentalServiceImpl implements CarRentalService {
             .createdAt(reservation.getCreatedAt())
             .build();
     }
-}
\ No newline at end of file
+
+    private record Allocation(Car car, Reservation reservation) {
+    }
+
+    private record Fleet(String branch, CarType carType) {
+    }
+
+    private record Period(LocalDateTime start, LocalDateTime end) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.rental.service;
+
+import com.rental.model.Car;
+import com.rental.repository.ReservationRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out the free cars in fleet order.
+ */
+@Component
+@ConditionalOnProperty(name = "rental.allocation.strategy", havingValue = "first-fit")
+public class FirstFitAllocationStrategy implements AllocationStrategy {
+
+    @Override
+    public List<Car> rank(List<Car> candidates, LocalDateTime start, LocalDateTime end, ReservationRepository reservations) {
+        return candidates.stream()
+            .filter(car -> reservations.findOverlappingReservations(car.getId(), start, end).isEmpty())
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,123 @@
+package com.rental.service;
+
+import com.rental.dto.ReservationPage;
+import com.rental.dto.ReservationRequest;
+import com.rental.dto.ReservationResponse;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.ReservationStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking facade over {@link CarRentalService} for the reactive web stack.
+ * <p>
+ * Writes wait for the journal and reservation reads may inflate history segments, so those calls run on
+ * a bounded scheduler of {@code rental.reactive.blocking-threads} threads and never on an event loop.
+ * Fleet and availability queries only read in-memory indexes and run on the subscribing thread, unless
+ * {@code rental.sharding.enabled} routes them to shards on other nodes as well.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCarRentalService {
+
+    private final CarRentalService carRentalService;
+    private final Scheduler blockingScheduler;
+    private final boolean remoteQueries;
+
+    @Autowired
+    public ReactiveCarRentalService(CarRentalService carRentalService,
+                                    @Value("${rental.reactive.blocking-threads:64}") int blockingThreads,
+                                    @Value("${rental.reactive.blocking-queue-size:10000}") int blockingQueueSize,
+                                    @Value("${rental.sharding.enabled:false}") boolean sharded) {
+        this(carRentalService, Schedulers.newBoundedElastic(blockingThreads, blockingQueueSize, "rental-blocking"),
+            sharded);
+    }
+
+    ReactiveCarRentalService(CarRentalService carRentalService, Scheduler blockingScheduler) {
+        this(carRentalService, blockingScheduler, false);
+    }
+
+    ReactiveCarRentalService(CarRentalService carRentalService, Scheduler blockingScheduler, boolean remoteQueries) {
+        this.carRentalService = carRentalService;
+        this.blockingScheduler = blockingScheduler;
+        this.remoteQueries = remoteQueries;
+    }
+
+    @PreDestroy
+    public void close() {
+        blockingScheduler.dispose();
+    }
+
+    public Mono<ReservationResponse> createReservation(ReservationRequest request) {
+        return blocking(() -> carRentalService.createReservation(request));
+    }
+
+    public Mono<List<ReservationResponse>> createReservations(List<ReservationRequest> requests) {
+        return blocking(() -> carRentalService.createReservations(requests));
+    }
+
+    public Mono<ReservationResponse> getReservation(String reservationId) {
+        return blocking(() -> carRentalService.getReservation(reservationId).orElse(null));
+    }
+
+    public Mono<Boolean> cancelReservation(String reservationId) {
+        return blocking(() -> carRentalService.cancelReservation(reservationId));
+    }
+
+    public Mono<List<ReservationResponse>> getReservationsForCustomer(String customerEmail) {
+        return blocking(() -> carRentalService.getReservationsForCustomer(customerEmail));
+    }
+
+    public Mono<ReservationPage> getReservationsForCustomer(String customerEmail, String cursor, int limit) {
+        return blocking(() -> carRentalService.getReservationsForCustomer(customerEmail, cursor, limit));
+    }
+
+    /**
+     * Emits reservations as they are read, following the subscriber's demand; cancelling closes the
+     * underlying stream.
+     */
+    public Flux<ReservationResponse> exportReservations(ReservationStatus status, LocalDateTime from, LocalDateTime to) {
+        return Flux.defer(() -> Flux.fromStream(carRentalService.exportReservations(status, from, to)))
+            .subscribeOn(blockingScheduler);
+    }
+
+    public Mono<List<Car>> getAvailableCars(CarType carType, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return query(() -> carRentalService.getAvailableCars(carType, startDateTime, endDateTime));
+    }
+
+    public Mono<List<Car>> getCarsByType(CarType carType) {
+        return query(() -> carRentalService.getCarsByType(carType));
+    }
+
+    public Mono<Map<CarType, Long>> getAvailabilityByType(LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return query(() -> carRentalService.getAvailabilityByType(startDateTime, endDateTime));
+    }
+
+    public Mono<Map<LocalDate, Long>> getDailyAvailability(CarType carType, LocalDate from, LocalDate to) {
+        return query(() -> carRentalService.getDailyAvailability(carType, from, to));
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(blockingScheduler);
+    }
+
+    private <T> Mono<T> query(Supplier<T> call) {
+        Mono<T> query = Mono.fromSupplier(call);
+        return remoteQueries ? query.subscribeOn(blockingScheduler) : query;
+    }
+}
@@ -0,0 +1,77 @@
+package com.rental.service;
+
+import com.rental.model.Reservation;
+import com.rental.repository.ReservationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Completes reservations whose rental period is over, in batches of {@code rental.lifecycle.batch-size}
+ * every {@code rental.lifecycle.interval-ms}. The repository hands them out in end-time order from its
+ * expiry queue and moves them to its history tier; their hours are released from the availability
+ * calendar and their cached responses dropped.
+ */
+@Component
+@Slf4j
+public class ReservationLifecycleScheduler {
+
+    private final ReservationRepository reservationRepository;
+    private final AvailabilityCalendar availabilityCalendar;
+    private final ReservationResponseCache responseCache;
+    private final int batchSize;
+    private final Clock clock;
+
+    @Autowired
+    public ReservationLifecycleScheduler(ReservationRepository reservationRepository,
+                                         AvailabilityCalendar availabilityCalendar,
+                                         ReservationResponseCache responseCache,
+                                         @Value("${rental.lifecycle.batch-size:500}") int batchSize) {
+        this(reservationRepository, availabilityCalendar, responseCache, batchSize, Clock.systemDefaultZone());
+    }
+
+    ReservationLifecycleScheduler(ReservationRepository reservationRepository, AvailabilityCalendar availabilityCalendar,
+                                  ReservationResponseCache responseCache, int batchSize, Clock clock) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Lifecycle batch size must be positive");
+        }
+        this.reservationRepository = reservationRepository;
+        this.availabilityCalendar = availabilityCalendar;
+        this.responseCache = responseCache;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * @return number of reservations completed
+     */
+    @Scheduled(initialDelayString = "${rental.lifecycle.interval-ms:60000}",
+        fixedDelayString = "${rental.lifecycle.interval-ms:60000}")
+    public int completeEndedReservations() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int completed = 0;
+        try {
+            List<Reservation> batch;
+            do {
+                batch = reservationRepository.completeEndedBy(now, batchSize);
+                for (Reservation reservation : batch) {
+                    availabilityCalendar.release(reservation);
+                    responseCache.invalidate(reservation.getId(), reservation.getCustomerEmail());
+                }
+                completed += batch.size();
+            } while (batch.size() == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Failed to complete ended reservations; retrying on the next run", e);
+        }
+        if (completed > 0) {
+            log.info("Completed {} reservations that ended by {}", completed, now);
+        }
+        return completed;
+    }
+}
@@ -0,0 +1,184 @@
+package com.rental.service;
+
+import com.rental.dto.ReservationResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the responses served for single reservations and customer histories.
+ * <p>
+ * Each region keeps about {@code rental.cache.max-entries} entries, and an entry is dropped once it is
+ * older than {@code rental.cache.ttl-seconds}. Hits take no lock: they only stamp the entry with the
+ * region's insertion tick, and the writer that first finds the region full evicts the least recently
+ * stamped tenth in one sweep, so eviction order is least-recently-used up to entries stamped in the same
+ * tick. Writers invalidate the affected keys after the repository write. A load first places a marker
+ * under its key and only caches its result if the marker is still there, so a load that was already
+ * running when its key was invalidated is returned to its caller but not cached, while loads of other
+ * keys are unaffected. Cached responses are shared and must not be modified.
+ */
+@Component
+public class ReservationResponseCache {
+
+    private final Clock clock;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Region<String, ReservationResponse> reservations = new Region<>();
+    private final Region<String, List<ReservationResponse>> customerHistories = new Region<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public ReservationResponseCache(@Value("${rental.cache.max-entries:10000}") int maxEntries,
+                                    @Value("${rental.cache.ttl-seconds:60}") long ttlSeconds) {
+        this(maxEntries, Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    ReservationResponseCache(int maxEntries, Duration ttl, Clock clock) {
+        this.clock = clock;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public Optional<ReservationResponse> getReservation(String reservationId,
+                                                        Function<String, Optional<ReservationResponse>> loader) {
+        return Optional.ofNullable(reservations.get(reservationId, id -> loader.apply(id).orElse(null)));
+    }
+
+    public List<ReservationResponse> getCustomerHistory(String customerEmail,
+                                                        Function<String, List<ReservationResponse>> loader) {
+        return customerHistories.get(customerEmail, email -> List.copyOf(loader.apply(email)));
+    }
+
+    /**
+     * Drops the cached responses a change to the reservation can affect.
+     */
+    public void invalidate(String reservationId, String customerEmail) {
+        if (reservationId != null) {
+            reservations.invalidate(reservationId);
+        }
+        if (customerEmail != null) {
+            customerHistories.invalidate(customerEmail);
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), reservations.size() + customerHistories.size());
+    }
+
+    /**
+     * Counters since startup; evictions include entries dropped for size and for age.
+     */
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+    }
+
+    private final class Region<K, V> {
+
+        private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+        private final AtomicLong ticks = new AtomicLong();
+        private final ReentrantLock eviction = new ReentrantLock();
+
+        V get(K key, Function<K, V> loader) {
+            if (maxEntries <= 0 || ttlMillis <= 0) {
+                misses.increment();
+                return loader.apply(key);
+            }
+
+            long now = clock.millis();
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.value != null) {
+                if (entry.expiresAt > now) {
+                    entry.lastAccess = ticks.get();
+                    hits.increment();
+                    return entry.value;
+                }
+                if (entries.remove(key, entry)) {
+                    evictions.increment();
+                }
+            }
+
+            misses.increment();
+            Entry<V> loading = new Entry<>(null, 0, ticks.getAndIncrement());
+            Entry<V> present = entries.putIfAbsent(key, loading);
+            Entry<V> marker = present == null ? loading : present.value == null ? present : null;
+            V value = null;
+            try {
+                value = loader.apply(key);
+            } finally {
+                if (value == null && present == null) {
+                    entries.remove(key, loading);
+                }
+            }
+            if (value != null && marker != null
+                && entries.replace(key, marker, new Entry<>(value, now + ttlMillis, ticks.getAndIncrement()))) {
+                evictIfFull();
+            }
+            return value;
+        }
+
+        void invalidate(K key) {
+            entries.remove(key);
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        /**
+         * Evicts the least recently used tenth of the region once it is over its limit. Writers that find
+         * another one sweeping move on instead of waiting.
+         */
+        private void evictIfFull() {
+            if (entries.size() <= maxEntries || !eviction.tryLock()) {
+                return;
+            }
+            try {
+                long[] stamps = entries.values().stream().mapToLong(entry -> entry.lastAccess).sorted().toArray();
+                int excess = stamps.length - maxEntries + maxEntries / 10;
+                if (stamps.length <= maxEntries || excess <= 0) {
+                    return;
+                }
+                long cutoff = stamps[Math.min(excess, stamps.length) - 1];
+                int evicted = 0;
+                for (Map.Entry<K, Entry<V>> candidate : entries.entrySet()) {
+                    if (evicted < excess && candidate.getValue().lastAccess <= cutoff
+                        && entries.remove(candidate.getKey(), candidate.getValue())) {
+                        evicted++;
+                        evictions.increment();
+                    }
+                }
+            } finally {
+                eviction.unlock();
+            }
+        }
+    }
+
+    /**
+     * A cached value, or with a null value the marker of a running load. Compared by identity, so a load
+     * only replaces the marker it saw.
+     */
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+        private volatile long lastAccess;
+
+        private Entry(V value, long expiresAt, long lastAccess) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.rental.shard;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.dto.BatchReservationRequest;
+import com.rental.dto.ReservationPage;
+import com.rental.dto.ReservationRequest;
+import com.rental.dto.ReservationResponse;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.exception.InvalidReservationException;
+import com.rental.exception.ShardUnavailableException;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.ReservationStatus;
+import com.rental.service.CarRentalService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link CarRentalService} of a shard served by another node, called through that node's REST API.
+ * <p>
+ * Rejections keep their exception types, so a booking the remote shard cannot serve fails exactly as a
+ * local one would. A shard that cannot be reached or answers unexpectedly fails with
+ * {@link ShardUnavailableException}.
+ */
+public class RemoteCarRentalService implements CarRentalService {
+
+    private static final String API_PATH = "/api/car-rental";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final TypeReference<List<ReservationResponse>> RESERVATIONS = new TypeReference<>() { };
+    private static final TypeReference<List<Car>> CARS = new TypeReference<>() { };
+    private static final TypeReference<Map<CarType, Long>> AVAILABILITY = new TypeReference<>() { };
+    private static final TypeReference<Map<LocalDate, Long>> DAILY_AVAILABILITY = new TypeReference<>() { };
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public RemoteCarRentalService(String baseUrl, HttpClient httpClient, ObjectMapper objectMapper, Duration timeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ReservationResponse createReservation(ReservationRequest request) {
+        return read(send(post("/reservations", request)), ReservationResponse.class);
+    }
+
+    @Override
+    public List<ReservationResponse> createReservations(List<ReservationRequest> requests) {
+        BatchReservationRequest batch = BatchReservationRequest.builder().reservations(requests).build();
+        return read(send(post("/reservations/batch", batch)), RESERVATIONS);
+    }
+
+    @Override
+    public Optional<ReservationResponse> getReservation(String reservationId) {
+        HttpResponse<String> response = send(request("/reservations/" + segment(reservationId)).GET());
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            return Optional.empty();
+        }
+        return Optional.of(read(response, ReservationResponse.class));
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId) {
+        HttpResponse<String> response = send(request("/reservations/" + segment(reservationId)).DELETE());
+        if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+            return false;
+        }
+        checkStatus(response.statusCode(), response.body());
+        return true;
+    }
+
+    @Override
+    public List<ReservationResponse> getReservationsForCustomer(String customerEmail) {
+        return read(send(request("/reservations/customer/" + segment(customerEmail)).GET()), RESERVATIONS);
+    }
+
+    @Override
+    public ReservationPage getReservationsForCustomer(String customerEmail, String cursor, int limit) {
+        HttpResponse<String> response = send(request("/reservations/customer/" + segment(customerEmail)
+            + query("cursor", cursor, "limit", limit)).GET());
+        return ReservationPage.builder()
+            .reservations(read(response, RESERVATIONS))
+            .nextCursor(response.headers().firstValue(NEXT_CURSOR_HEADER).orElse(null))
+            .build();
+    }
+
+    /**
+     * Streams the remote export line by line; the request is only sent once the stream is consumed.
+     */
+    @Override
+    public Stream<ReservationResponse> exportReservations(ReservationStatus status, LocalDateTime from, LocalDateTime to) {
+        return Stream.of(query("status", status, "from", from, "to", to))
+            .flatMap(query -> {
+                HttpRequest request = request("/reservations/export" + query)
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE)
+                    .GET()
+                    .build();
+                HttpResponse<Stream<String>> response = call(request, HttpResponse.BodyHandlers.ofLines());
+                if (response.statusCode() / 100 != 2) {
+                    try (Stream<String> body = response.body()) {
+                        checkStatus(response.statusCode(), body.collect(Collectors.joining()));
+                    }
+                }
+                return response.body()
+                    .filter(line -> !line.isBlank())
+                    .map(line -> parse(line, ReservationResponse.class));
+            });
+    }
+
+    @Override
+    public List<Car> getAvailableCars(CarType carType, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return read(send(request("/cars/available"
+            + query("carType", carType, "startDateTime", startDateTime, "endDateTime", endDateTime)).GET()), CARS);
+    }
+
+    @Override
+    public List<Car> getCarsByType(CarType carType) {
+        return read(send(request("/cars/" + carType).GET()), CARS);
+    }
+
+    @Override
+    public Map<CarType, Long> getAvailabilityByType(LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return read(send(request("/availability"
+            + query("startDateTime", startDateTime, "endDateTime", endDateTime)).GET()), AVAILABILITY);
+    }
+
+    @Override
+    public Map<LocalDate, Long> getDailyAvailability(CarType carType, LocalDate from, LocalDate to) {
+        return read(send(request("/availability/daily" + query("carType", carType, "from", from, "to", to)).GET()),
+            DAILY_AVAILABILITY);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + API_PATH + path))
+            .timeout(timeout)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private HttpRequest.Builder post(String path, Object body) {
+        try {
+            return request(path)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) {
+        return call(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private <T> HttpResponse<T> call(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        try {
+            return httpClient.send(request, bodyHandler);
+        } catch (IOException e) {
+            throw new ShardUnavailableException("Shard at " + baseUrl + " cannot be reached", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardUnavailableException("Interrupted while calling shard at " + baseUrl, e);
+        }
+    }
+
+    private <T> T read(HttpResponse<String> response, Class<T> type) {
+        checkStatus(response.statusCode(), response.body());
+        return parse(response.body(), type);
+    }
+
+    private <T> T read(HttpResponse<String> response, TypeReference<T> type) {
+        checkStatus(response.statusCode(), response.body());
+        try {
+            return objectMapper.readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new ShardUnavailableException("Unreadable response from shard at " + baseUrl, e);
+        }
+    }
+
+    private <T> T parse(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new ShardUnavailableException("Unreadable response from shard at " + baseUrl, e);
+        }
+    }
+
+    /**
+     * Turns the error bodies written by the remote node's exception handler back into exceptions.
+     */
+    private void checkStatus(int status, String body) {
+        if (status / 100 == 2) {
+            return;
+        }
+        String message = errorMessage(body);
+        if (status == HttpStatus.CONFLICT.value()) {
+            throw new CarNotAvailableException(message);
+        }
+        if (status == HttpStatus.BAD_REQUEST.value()) {
+            throw new InvalidReservationException(message);
+        }
+        throw new ShardUnavailableException("Shard at " + baseUrl + " answered " + status + ": " + message);
+    }
+
+    private String errorMessage(String body) {
+        try {
+            JsonNode error = objectMapper.readTree(body);
+            String message = error.path("message").asText(body);
+            JsonNode details = error.path("details");
+            return details.isEmpty() ? message : message + " " + details;
+        } catch (IOException e) {
+            return body;
+        }
+    }
+
+    private static String segment(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * @param parameters names and values; parameters with a null value are left out
+     */
+    private static String query(Object... parameters) {
+        StringJoiner query = new StringJoiner("&", "?", "").setEmptyValue("");
+        for (int i = 0; i < parameters.length; i += 2) {
+            if (parameters[i + 1] != null) {
+                query.add(parameters[i] + "=" + segment(parameters[i + 1].toString()));
+            }
+        }
+        return query.toString();
+    }
+}
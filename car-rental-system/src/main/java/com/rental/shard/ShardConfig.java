@@ -0,0 +1,61 @@
+package com.rental.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rental.service.CarRentalService;
+import com.rental.service.CarRentalServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(name = "rental.sharding.enabled", havingValue = "true")
+public class ShardConfig {
+
+    /**
+     * Answers the API through the shard router instead of this node's own service, which remains the
+     * shard configured with the {@code local} url. That shard comes first, so bookings without a branch
+     * are tried on this node before going over the network.
+     */
+    @Bean
+    @Primary
+    public ShardRouter shardRouter(ShardingProperties properties, CarRentalServiceImpl localService,
+                                   ObjectMapper objectMapper, @Value("${rental.ids.node-id:0}") int localNodeId) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(properties.getTimeout())
+            .build();
+        List<ShardRouter.Shard> shards = new ArrayList<>();
+        for (Map.Entry<String, ShardingProperties.Shard> entry : properties.getShards().entrySet()) {
+            ShardingProperties.Shard shard = entry.getValue();
+            boolean local = ShardingProperties.LOCAL_URL.equals(shard.getUrl());
+            CarRentalService service = local
+                ? localService
+                : new RemoteCarRentalService(shard.getUrl(), httpClient, objectMapper, properties.getTimeout());
+            Integer nodeId = shard.getNodeId() == null && local ? Integer.valueOf(localNodeId) : shard.getNodeId();
+            ShardRouter.Shard routed = new ShardRouter.Shard(entry.getKey(), service,
+                new LinkedHashSet<>(shard.getBranches()), nodeId);
+            if (local) {
+                shards.add(0, routed);
+            } else {
+                shards.add(routed);
+            }
+        }
+        ExecutorService scatterExecutor = Executors.newFixedThreadPool(properties.getScatterThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ShardRouter(shards, scatterExecutor);
+    }
+}
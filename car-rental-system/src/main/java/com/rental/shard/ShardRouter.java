@@ -0,0 +1,276 @@
+package com.rental.shard;
+
+import com.rental.dto.ReservationPage;
+import com.rental.dto.ReservationRequest;
+import com.rental.dto.ReservationResponse;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.exception.InvalidReservationException;
+import com.rental.id.Ids;
+import com.rental.id.SnowflakeIdGenerator;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.TimelineCursor;
+import com.rental.service.CarRentalService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link CarRentalService} spread over shards that each own the cars, and with them the reservations, of
+ * some branches.
+ * <p>
+ * A booking for a branch goes to the shard owning it; one without a branch tries the shards in order
+ * until one has a car. A batch is booked atomically by a single shard, so its branches must share one.
+ * Reservations are looked up on the shard whose node id their id carries, falling back to asking every
+ * shard for ids that carry none. Fleet, availability and customer queries are scattered to all shards
+ * in parallel and their answers merged.
+ */
+@Slf4j
+public class ShardRouter implements CarRentalService {
+
+    private final List<Shard> shards;
+    private final Map<String, Shard> shardsByBranch = new HashMap<>();
+    private final Map<Integer, Shard> shardsByNodeId = new HashMap<>();
+    private final ExecutorService scatterExecutor;
+
+    /**
+     * @param shards the shards, in the order bookings without a branch try them
+     * @param scatterExecutor runs the calls to all but one shard of a scatter-gather query; shut down on close
+     * @throws IllegalArgumentException if there are no shards or a branch or node id is claimed twice
+     */
+    public ShardRouter(List<Shard> shards, ExecutorService scatterExecutor) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.scatterExecutor = scatterExecutor;
+        for (Shard shard : shards) {
+            for (String branch : shard.branches()) {
+                Shard previous = shardsByBranch.putIfAbsent(branch, shard);
+                if (previous != null) {
+                    throw new IllegalArgumentException(
+                        "Branch " + branch + " is owned by both " + previous.name() + " and " + shard.name());
+                }
+            }
+            if (shard.nodeId() != null && shardsByNodeId.putIfAbsent(shard.nodeId(), shard) != null) {
+                throw new IllegalArgumentException("Node id " + shard.nodeId() + " is used by two shards");
+            }
+        }
+    }
+
+    @Override
+    public ReservationResponse createReservation(ReservationRequest request) {
+        if (request.getBranch() != null) {
+            return ownerOf(request.getBranch()).service().createReservation(request);
+        }
+        return firstAvailable(shard -> shard.service().createReservation(request));
+    }
+
+    @Override
+    public List<ReservationResponse> createReservations(List<ReservationRequest> requests) {
+        Set<Shard> owners = new LinkedHashSet<>();
+        for (ReservationRequest request : requests) {
+            if (request.getBranch() != null) {
+                owners.add(ownerOf(request.getBranch()));
+            }
+        }
+        if (owners.size() > 1) {
+            throw new InvalidReservationException("A batch can only book branches of one shard, got "
+                + owners.stream().map(Shard::name).collect(Collectors.joining(", ")));
+        }
+        if (owners.size() == 1) {
+            return owners.iterator().next().service().createReservations(requests);
+        }
+        return firstAvailable(shard -> shard.service().createReservations(requests));
+    }
+
+    @Override
+    public Optional<ReservationResponse> getReservation(String reservationId) {
+        Shard owner = creatorOf(reservationId);
+        if (owner != null) {
+            return owner.service().getReservation(reservationId);
+        }
+        return scatter(shard -> shard.service().getReservation(reservationId)).stream()
+            .flatMap(Optional::stream)
+            .findFirst();
+    }
+
+    @Override
+    public boolean cancelReservation(String reservationId) {
+        Shard owner = creatorOf(reservationId);
+        if (owner != null) {
+            return owner.service().cancelReservation(reservationId);
+        }
+        for (Shard shard : shards) {
+            if (shard.service().cancelReservation(reservationId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<ReservationResponse> getReservationsForCustomer(String customerEmail) {
+        return scatter(shard -> shard.service().getReservationsForCustomer(customerEmail)).stream()
+            .flatMap(List::stream)
+            .sorted(Comparator.comparing(ShardRouter::timelinePosition))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Takes the page from every shard and keeps the newest {@code limit} of their union. Cursors order
+     * reservations the same way on every shard, so the next cursor works on all of them.
+     */
+    @Override
+    public ReservationPage getReservationsForCustomer(String customerEmail, String cursor, int limit) {
+        List<ReservationPage> pages =
+            scatter(shard -> shard.service().getReservationsForCustomer(customerEmail, cursor, limit));
+        List<ReservationResponse> merged = pages.stream()
+            .flatMap(page -> page.getReservations().stream())
+            .sorted(Comparator.comparing(ShardRouter::timelinePosition))
+            .collect(Collectors.toList());
+        boolean hasMore = merged.size() > limit || pages.stream().anyMatch(page -> page.getNextCursor() != null);
+        List<ReservationResponse> page = merged.size() > limit ? merged.subList(0, limit) : merged;
+        return ReservationPage.builder()
+            .reservations(page)
+            .nextCursor(hasMore && !page.isEmpty() ? timelinePosition(page.get(page.size() - 1)).encode() : null)
+            .build();
+    }
+
+    /**
+     * Exports the shards one after the other, each only once the previous one is consumed.
+     */
+    @Override
+    public Stream<ReservationResponse> exportReservations(ReservationStatus status, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidReservationException("Export range start must be before its end");
+        }
+        return shards.stream().flatMap(shard -> shard.service().exportReservations(status, from, to));
+    }
+
+    @Override
+    public List<Car> getAvailableCars(CarType carType, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        return scatter(shard -> shard.service().getAvailableCars(carType, startDateTime, endDateTime)).stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Car> getCarsByType(CarType carType) {
+        return scatter(shard -> shard.service().getCarsByType(carType)).stream()
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<CarType, Long> getAvailabilityByType(LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        Map<CarType, Long> availability = new EnumMap<>(CarType.class);
+        List<Map<CarType, Long>> answers =
+            scatter(shard -> shard.service().getAvailabilityByType(startDateTime, endDateTime));
+        for (Map<CarType, Long> shardAvailability : answers) {
+            shardAvailability.forEach((carType, available) -> availability.merge(carType, available, Long::sum));
+        }
+        return availability;
+    }
+
+    @Override
+    public Map<LocalDate, Long> getDailyAvailability(CarType carType, LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> availability = new TreeMap<>();
+        List<Map<LocalDate, Long>> answers = scatter(shard -> shard.service().getDailyAvailability(carType, from, to));
+        for (Map<LocalDate, Long> shardAvailability : answers) {
+            shardAvailability.forEach((day, available) -> availability.merge(day, available, Long::sum));
+        }
+        return new LinkedHashMap<>(availability);
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    public void close() {
+        scatterExecutor.shutdownNow();
+    }
+
+    private Shard ownerOf(String branch) {
+        Shard owner = shardsByBranch.get(branch);
+        if (owner == null) {
+            throw new InvalidReservationException("Unknown branch: " + branch);
+        }
+        return owner;
+    }
+
+    /**
+     * @return the shard whose node created the id, or null if the id does not tell
+     */
+    private Shard creatorOf(String reservationId) {
+        long id = Ids.decode(reservationId);
+        return id == Ids.NOT_COMPACT ? null : shardsByNodeId.get(SnowflakeIdGenerator.nodeIdOf(id));
+    }
+
+    private <T> T firstAvailable(Function<Shard, T> booking) {
+        CarNotAvailableException rejection = null;
+        for (Shard shard : shards) {
+            try {
+                return booking.apply(shard);
+            } catch (CarNotAvailableException e) {
+                log.debug("Shard {} cannot serve the booking, trying the next one", shard.name());
+                rejection = e;
+            }
+        }
+        throw rejection;
+    }
+
+    /**
+     * Calls every shard, all but the first on the scatter executor, and returns their answers in shard
+     * order. The first failure is rethrown once every call has finished.
+     */
+    private <T> List<T> scatter(Function<Shard, T> call) {
+        List<CompletableFuture<T>> calls = new ArrayList<>(shards.size());
+        for (int i = 1; i < shards.size(); i++) {
+            Shard shard = shards.get(i);
+            calls.add(CompletableFuture.supplyAsync(() -> call.apply(shard), scatterExecutor));
+        }
+        T first;
+        try {
+            first = call.apply(shards.get(0));
+        } finally {
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new))
+                .exceptionally(failure -> null)
+                .join();
+        }
+
+        List<T> answers = new ArrayList<>(shards.size());
+        answers.add(first);
+        for (CompletableFuture<T> answer : calls) {
+            try {
+                answers.add(answer.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return answers;
+    }
+
+    private static TimelineCursor timelinePosition(ReservationResponse reservation) {
+        return new TimelineCursor(reservation.getCreatedAt(), reservation.getReservationId());
+    }
+
+    /**
+     * A shard: the service answering for it and the branches it owns.
+     * @param nodeId the {@code rental.ids.node-id} of the node serving the shard, or null if unknown
+     */
+    public record Shard(String name, CarRentalService service, Set<String> branches, Integer nodeId) {
+    }
+}
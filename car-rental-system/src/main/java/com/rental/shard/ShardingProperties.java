@@ -0,0 +1,57 @@
+package com.rental.shard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code rental.sharding.*} settings: which shard owns which branches and where to reach it.
+ */
+@Data
+@ConfigurationProperties(prefix = "rental.sharding")
+public class ShardingProperties {
+
+    /**
+     * Url of the shard served by this node's own repositories.
+     */
+    public static final String LOCAL_URL = "local";
+
+    private boolean enabled;
+
+    /**
+     * Limit for one call to a remote shard, connecting included.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Threads calling remote shards in parallel for scatter-gather queries.
+     */
+    private int scatterThreads = 16;
+
+    /**
+     * Shards by name. Bookings without a branch try the local shard first, then the others in order.
+     */
+    private Map<String, Shard> shards = new LinkedHashMap<>();
+
+    @Data
+    public static class Shard {
+
+        /**
+         * {@code local} or the base url of the node serving the shard, e.g. {@code http://host:8081}.
+         */
+        private String url = LOCAL_URL;
+
+        private List<String> branches = new ArrayList<>();
+
+        /**
+         * The shard's {@code rental.ids.node-id}, which lets reservation lookups go straight to the
+         * shard that created the id; defaults to this node's id for the local shard.
+         */
+        private Integer nodeId;
+    }
+}
@@ -0,0 +1,136 @@
+package com.rental.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.rental.dto.ReservationRequest;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.metrics.BookingMetrics;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.repository.CarRepositoryImpl;
+import com.rental.repository.ReservationRepositoryImpl;
+import com.rental.service.AllocationStrategy;
+import com.rental.service.AvailabilityCalendar;
+import com.rental.service.BestFitAllocationStrategy;
+import com.rental.service.CarRentalServiceImpl;
+import com.rental.service.FirstFitAllocationStrategy;
+import com.rental.service.ReservationResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays one random booking stream against each allocation strategy and reports how many bookings
+ * were rejected and how much of the fleet's capacity ended up booked.
+ * <p>
+ * Requests arrive in random order over a {@code simulation.horizon-days} window, mixing short rentals
+ * of one to three days with long ones of one to three weeks, until they ask for {@code simulation.load}
+ * times the capacity of {@code simulation.fleet} cars. Run with {@code mvn -Psimulation verify -DskipTests};
+ * the other tunables are {@code -Dsimulation.long-share} (percent) and {@code -Dsimulation.seed}.
+ */
+public final class AllocationSimulation {
+
+    private static final int FLEET = Integer.getInteger("simulation.fleet", 50);
+    private static final int HORIZON_DAYS = Integer.getInteger("simulation.horizon-days", 120);
+    private static final int LOAD_PERCENT = Integer.getInteger("simulation.load", 95);
+    private static final int LONG_SHARE_PERCENT = Integer.getInteger("simulation.long-share", 30);
+    private static final long SEED = Long.getLong("simulation.seed", 42);
+
+    private AllocationSimulation() {
+    }
+
+    public static void main(String[] args) {
+        ((Logger) LoggerFactory.getLogger("com.rental")).setLevel(Level.WARN);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+        List<ReservationRequest> requests = bookingStream(start);
+        System.out.printf("Allocation simulation: %d cars, %d days, %d requests (%d%% of capacity, %d%% long), seed %d%n",
+            FLEET, HORIZON_DAYS, requests.size(), LOAD_PERCENT, LONG_SHARE_PERCENT, SEED);
+
+        System.out.println(run("first-fit", new FirstFitAllocationStrategy(), requests, start));
+        System.out.println(run("best-fit", new BestFitAllocationStrategy(), requests, start));
+    }
+
+    private static List<ReservationRequest> bookingStream(LocalDateTime start) {
+        Random random = new Random(SEED);
+        long requestedDays = 0;
+        long capacityDays = (long) FLEET * HORIZON_DAYS * LOAD_PERCENT / 100;
+        List<ReservationRequest> requests = new ArrayList<>();
+        while (requestedDays < capacityDays) {
+            boolean longRental = random.nextInt(100) < LONG_SHARE_PERCENT;
+            int durationDays = longRental ? 7 + random.nextInt(15) : 1 + random.nextInt(3);
+            int startDay = random.nextInt(HORIZON_DAYS - durationDays + 1);
+            requests.add(ReservationRequest.builder()
+                .carType(CarType.SEDAN)
+                .customerName("Simulated Customer")
+                .customerEmail("sim-" + requests.size() % 500 + "@example.com")
+                .startDateTime(start.plusDays(startDay))
+                .durationDays(durationDays)
+                .build());
+            requestedDays += durationDays;
+        }
+        return requests;
+    }
+
+    private static Result run(String name, AllocationStrategy strategy, List<ReservationRequest> requests, LocalDateTime start) {
+        CarRepositoryImpl carRepository = new CarRepositoryImpl();
+        ReservationRepositoryImpl reservationRepository = new ReservationRepositoryImpl();
+        CarRentalServiceImpl carRentalService = new CarRentalServiceImpl(carRepository, reservationRepository,
+            new AvailabilityCalendar(reservationRepository, HORIZON_DAYS + 35), new ReservationResponseCache(0, 0),
+            new BookingMetrics(new SimpleMeterRegistry()), strategy);
+        for (int i = 0; i < FLEET; i++) {
+            carRepository.save(Car.builder().licensePlate("SIM" + i).carType(CarType.SEDAN).build());
+        }
+
+        Result result = new Result(name);
+        long startedAt = System.nanoTime();
+        for (ReservationRequest request : requests) {
+            boolean longRental = request.getDurationDays() >= 7;
+            try {
+                carRentalService.createReservation(request);
+                result.bookedDays += request.getDurationDays();
+            } catch (CarNotAvailableException e) {
+                result.rejected++;
+                if (longRental) {
+                    result.rejectedLong++;
+                }
+            }
+            result.requests++;
+            if (longRental) {
+                result.longRequests++;
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - startedAt;
+        return result;
+    }
+
+    private static final class Result {
+
+        private final String strategy;
+        private int requests;
+        private int rejected;
+        private int longRequests;
+        private int rejectedLong;
+        private long bookedDays;
+        private long elapsedNanos;
+
+        private Result(String strategy) {
+            this.strategy = strategy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s rejected %6.2f%%  long rentals rejected %6.2f%%  utilization %6.2f%%  %6d ms",
+                strategy + ":", percent(rejected, requests), percent(rejectedLong, longRequests),
+                percent(bookedDays, (long) FLEET * HORIZON_DAYS), elapsedNanos / 1_000_000);
+        }
+
+        private static double percent(long part, long whole) {
+            return whole == 0 ? 0 : 100.0 * part / whole;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.rental.benchmark;
+
+import com.rental.exception.CarNotAvailableException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking throughput with many threads competing for the same fleet.
+ * <p>
+ * Run with different thread counts ({@code -t 1}, {@code -t 4}, {@code -t max}) to see how throughput
+ * scales with cores; the per-car locks should keep bookings for different cars from contending.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class BookingContentionBenchmark {
+
+    @Param({"100", "10000"})
+    private int fleetSize;
+
+    @Param({"10"})
+    private int reservationsPerCar;
+
+    private RentalFixture fixture;
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        private final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = new RentalFixture(fleetSize, reservationsPerCar, 42);
+    }
+
+    @Benchmark
+    public Object createReservation(ThreadRandom threadRandom) {
+        try {
+            return fixture.carRentalService.createReservation(fixture.randomRequest(threadRandom.random));
+        } catch (CarNotAvailableException e) {
+            return e;
+        }
+    }
+}
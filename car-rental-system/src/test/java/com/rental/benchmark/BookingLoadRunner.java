@@ -0,0 +1,231 @@
+package com.rental.benchmark;
+
+import com.rental.CarRentalApplication;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.repository.CarRepository;
+import jakarta.servlet.Filter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * HTTP load test comparing booking latency on Tomcat's platform-thread pool, on virtual threads and on
+ * the reactive WebFlux stack.
+ * <p>
+ * Boots the application once per mode with persistence enabled, so every booking blocks on a journal
+ * flush, then keeps {@code loadtest.concurrency} {@code POST /reservations} calls in flight. Reports
+ * p50/p99 latency, throughput and the highest number of requests the server handled at the same time,
+ * the last two also per available core. Virtual threads need Java 21:
+ * {@code mvn -Pjava21,loadtest verify -DskipTests}; on older JVMs that mode is skipped. Tunables:
+ * {@code -Dloadtest.requests}, {@code -Dloadtest.concurrency}, {@code -Dloadtest.fleet} and
+ * {@code -Dloadtest.modes} (comma-separated subset of {@code platform,virtual,reactive}).
+ */
+public final class BookingLoadRunner {
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 1_000);
+    private static final int FLEET = Integer.getInteger("loadtest.fleet", 1_000);
+    private static final List<String> MODES = List.of(System.getProperty("loadtest.modes", "platform,virtual,reactive").split(","));
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    private BookingLoadRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("Booking load test: %d requests, %d in flight, %d cars, %d cores, Java %d%n",
+            REQUESTS, CONCURRENCY, FLEET, CORES, Runtime.version().feature());
+
+        if (MODES.contains("platform")) {
+            System.out.println(run("platform threads", "servlet", false));
+        }
+        if (MODES.contains("virtual")) {
+            if (Runtime.version().feature() >= 21) {
+                System.out.println(run("virtual threads", "servlet", true));
+            } else {
+                System.out.println("virtual threads: skipped, Java 21 is required (run with -Pjava21)");
+            }
+        }
+        if (MODES.contains("reactive")) {
+            System.out.println(run("reactive", "reactive", false));
+        }
+    }
+
+    private static Result run(String mode, String webApplicationType, boolean virtualThreads) throws Exception {
+        Path dataDirectory = Files.createTempDirectory("rental-load");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CarRentalApplication.class, InFlightConfig.class)
+            .run("--server.port=0",
+                "--spring.main.web-application-type=" + webApplicationType,
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--rental.persistence.enabled=true",
+                "--rental.persistence.directory=" + dataDirectory,
+                "--logging.level.com.rental=WARN");
+        try {
+            seedFleet(context.getBean(CarRepository.class));
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            InFlightConfig.reset();
+            long startedAt = System.nanoTime();
+            long[] latencies = fire(URI.create("http://localhost:" + port + "/api/car-rental/reservations"));
+            return new Result(mode, latencies, System.nanoTime() - startedAt, InFlightConfig.maxInFlight.get());
+        } finally {
+            context.close();
+            deleteRecursively(dataDirectory);
+        }
+    }
+
+    private static long[] fire(URI endpoint) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+        CarType[] carTypes = CarType.values();
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger failures = new AtomicInteger();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[REQUESTS];
+
+        for (int i = 0; i < REQUESTS; i++) {
+            String body = String.format(
+                "{\"carType\":\"%s\",\"customerName\":\"Load Test\",\"customerEmail\":\"load-%d@example.com\","
+                    + "\"startDateTime\":\"%s\",\"durationDays\":%d}",
+                carTypes[random.nextInt(carTypes.length)], i % 1_000,
+                start.plusHours(random.nextInt(365 * 24)), 1 + random.nextInt(3));
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+
+            inFlight.acquire();
+            int index = i;
+            long sentAt = System.nanoTime();
+            calls[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    latencies[index] = System.nanoTime() - sentAt;
+                    if (failure != null || response.statusCode() >= 500) {
+                        failures.incrementAndGet();
+                    }
+                    inFlight.release();
+                });
+        }
+        CompletableFuture.allOf(calls).exceptionally(failure -> null).join();
+        if (failures.get() > 0) {
+            System.out.printf("  %d requests failed%n", failures.get());
+        }
+        return latencies;
+    }
+
+    private static void seedFleet(CarRepository carRepository) {
+        CarType[] carTypes = CarType.values();
+        for (int i = 0; i < FLEET; i++) {
+            carRepository.save(Car.builder()
+                .licensePlate("LOAD" + i)
+                .carType(carTypes[i % carTypes.length])
+                .brand("Load")
+                .model("Test")
+                .year(2024)
+                .build());
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private record Result(String mode, long[] latencies, long elapsedNanos, int maxInFlight) {
+
+        @Override
+        public String toString() {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            long total = Arrays.stream(sorted).sum();
+            double throughput = sorted.length / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+            return String.format("%-17s p50 %7.2f ms  p99 %7.2f ms  max %8.2f ms  mean %7.2f ms  %7.0f req/s"
+                    + " (%6.0f per core)  max in-flight %d (%d per core)",
+                mode + ":", millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(sorted[sorted.length - 1]), millis(total / sorted.length),
+                throughput, throughput / CORES, maxInFlight, maxInFlight / CORES);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     * Counts the requests the server is handling at the same time, with a servlet filter on the servlet
+     * stack and a web filter on the reactive one.
+     */
+    @Configuration
+    static class InFlightConfig {
+
+        private static final AtomicInteger inFlight = new AtomicInteger();
+        private static final AtomicInteger maxInFlight = new AtomicInteger();
+
+        static void reset() {
+            inFlight.set(0);
+            maxInFlight.set(0);
+        }
+
+        @Bean
+        FilterRegistrationBean<Filter> inFlightFilter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+            registration.setUrlPatterns(List.of("/api/car-rental/reservations"));
+            return registration;
+        }
+
+        @Bean
+        WebFilter inFlightWebFilter() {
+            return (exchange, chain) -> {
+                if (!exchange.getRequest().getPath().value().equals("/api/car-rental/reservations")) {
+                    return chain.filter(exchange);
+                }
+                return Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return chain.filter(exchange);
+                }).doFinally(signal -> inFlight.decrementAndGet());
+            };
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.rental.benchmark;
+
+import com.rental.dto.ReservationResponse;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of the service hot paths over a seeded fleet.
+ * <p>
+ * {@link #createReservation} cancels and deletes each booking it makes, so the fleet calendar keeps its
+ * seeded density for the whole run instead of filling up until most requests are rejected. The
+ * {@code booked} and {@code rejected} counters in the results give the outcome ratio.
+ * <p>
+ * Add {@code -prof gc} to the JMH arguments to report the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarRentalServiceBenchmark {
+
+    @Param({"100", "10000"})
+    private int fleetSize;
+
+    @Param({"10", "100"})
+    private int reservationsPerCar;
+
+    private RentalFixture fixture;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new RentalFixture(fleetSize, reservationsPerCar, 42);
+        random = new Random(7);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long booked;
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            booked = 0;
+            rejected = 0;
+        }
+    }
+
+    @Benchmark
+    public Object createReservation(Outcomes outcomes) {
+        try {
+            ReservationResponse response = fixture.carRentalService.createReservation(fixture.randomRequest(random));
+            fixture.carRentalService.cancelReservation(response.getReservationId());
+            fixture.reservationRepository.deleteById(response.getReservationId());
+            outcomes.booked++;
+            return response;
+        } catch (CarNotAvailableException e) {
+            outcomes.rejected++;
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<Car> getAvailableCars() {
+        LocalDateTime start = fixture.randomStart(random);
+        CarType carType = CarType.values()[random.nextInt(CarType.values().length)];
+        return fixture.carRentalService.getAvailableCars(carType, start, start.plusDays(3));
+    }
+
+    @Benchmark
+    public Map<CarType, Long> getAvailabilityByType() {
+        LocalDateTime start = fixture.randomStart(random);
+        return fixture.carRentalService.getAvailabilityByType(start, start.plusDays(3));
+    }
+
+    @Benchmark
+    public Map<LocalDate, Long> getDailyAvailability() {
+        LocalDate from = fixture.randomStart(random).toLocalDate();
+        CarType carType = CarType.values()[random.nextInt(CarType.values().length)];
+        return fixture.carRentalService.getDailyAvailability(carType, from, from.plusDays(30));
+    }
+}
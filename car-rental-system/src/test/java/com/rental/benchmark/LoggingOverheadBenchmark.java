@@ -0,0 +1,106 @@
+package com.rental.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.rental.dto.ReservationResponse;
+import com.rental.exception.CarNotAvailableException;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-booking cost of logging on the request path: no logging, a synchronous file appender as the
+ * default configuration uses for the console, and the asynchronous appender of the {@code prod} profile,
+ * each at INFO and at DEBUG. Every operation books a car and then cancels and deletes the booking, so
+ * the fleet stays in the same state for the whole run. Run with {@code -t 4} or more to see the appender
+ * lock contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingOverheadBenchmark {
+
+    private static final String PATTERN = "%d{HH:mm:ss.SSS} [%thread] %-5level %logger{36} - %msg %kvp%n";
+
+    @Param({"off", "sync-info", "sync-debug", "async-info", "async-debug"})
+    private String logging;
+
+    private RentalFixture fixture;
+    private Path logFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(ch.qos.logback.classic.Level.WARN);
+        fixture = new RentalFixture(100, 10, 42);
+
+        logFile = Files.createTempFile("rental-logging", ".log");
+        if (!logging.equals("off")) {
+            root.addAppender(appender(context, logging.startsWith("async")));
+            context.getLogger("com.rental").setLevel(logging.endsWith("debug") ? ch.qos.logback.classic.Level.DEBUG : ch.qos.logback.classic.Level.INFO);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ((LoggerContext) LoggerFactory.getILoggerFactory()).stop();
+        Files.deleteIfExists(logFile);
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+        private final Random random = new Random(Thread.currentThread().getId());
+    }
+
+    @Benchmark
+    public Object bookAndCancel(Requests requests) {
+        try {
+            ReservationResponse response = fixture.carRentalService.createReservation(fixture.randomRequest(requests.random));
+            fixture.carRentalService.cancelReservation(response.getReservationId());
+            fixture.reservationRepository.deleteById(response.getReservationId());
+            return response;
+        } catch (CarNotAvailableException e) {
+            return e;
+        }
+    }
+
+    private Appender<ILoggingEvent> appender(LoggerContext context, boolean async) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.toString());
+        file.setEncoder(encoder);
+        file.start();
+        if (!async) {
+            return file;
+        }
+
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(context);
+        asyncAppender.setQueueSize(8192);
+        asyncAppender.setDiscardingThreshold(0);
+        asyncAppender.setNeverBlock(true);
+        asyncAppender.addAppender(file);
+        asyncAppender.start();
+        return asyncAppender;
+    }
+}
@@ -0,0 +1,86 @@
+package com.rental.benchmark;
+
+import com.rental.dto.ReservationRequest;
+import com.rental.metrics.BookingMetrics;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.repository.CarRepositoryImpl;
+import com.rental.repository.ReservationRepositoryImpl;
+import com.rental.service.AvailabilityCalendar;
+import com.rental.service.BestFitAllocationStrategy;
+import com.rental.service.CarRentalServiceImpl;
+import com.rental.service.ReservationResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+/**
+ * In-memory rental stack seeded with a fleet and a reservation history for benchmarks.
+ * <p>
+ * Every car gets {@code reservationsPerCar} back-to-back bookings separated by random gaps, spread over
+ * {@link #HORIZON_DAYS} days starting tomorrow, so the density of the fleet calendar is controlled by
+ * the ratio between the two.
+ */
+final class RentalFixture {
+
+    static final int HORIZON_DAYS = 365;
+
+    final CarRepositoryImpl carRepository = new CarRepositoryImpl();
+    final ReservationRepositoryImpl reservationRepository = new ReservationRepositoryImpl();
+    final AvailabilityCalendar availabilityCalendar = new AvailabilityCalendar(reservationRepository, HORIZON_DAYS + 35);
+    final CarRentalServiceImpl carRentalService =
+        new CarRentalServiceImpl(carRepository, reservationRepository, availabilityCalendar,
+            new ReservationResponseCache(10_000, 60), new BookingMetrics(new SimpleMeterRegistry()),
+            new BestFitAllocationStrategy());
+    final LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+
+    RentalFixture(int fleetSize, int reservationsPerCar, long seed) {
+        Random random = new Random(seed);
+        CarType[] carTypes = CarType.values();
+        int averageSlotHours = HORIZON_DAYS * 24 / Math.max(1, reservationsPerCar);
+
+        for (int i = 0; i < fleetSize; i++) {
+            Car car = carRepository.save(Car.builder()
+                .licensePlate("BENCH" + i)
+                .carType(carTypes[i % carTypes.length])
+                .brand("Bench")
+                .model("Model " + (i % 7))
+                .year(2020 + i % 5)
+                .build());
+
+            LocalDateTime cursor = start;
+            for (int j = 0; j < reservationsPerCar; j++) {
+                cursor = cursor.plusHours(random.nextInt(Math.max(1, averageSlotHours / 2)));
+                int durationDays = 1 + random.nextInt(Math.max(1, averageSlotHours / 48));
+                Reservation reservation = reservationRepository.save(Reservation.builder()
+                    .carId(car.getId())
+                    .customerName("Customer " + random.nextInt(10_000))
+                    .customerEmail("customer-" + random.nextInt(fleetSize * Math.max(1, reservationsPerCar)) + "@example.com")
+                    .startDateTime(cursor)
+                    .durationDays(durationDays)
+                    .totalCost(car.getDailyRate() * durationDays)
+                    .build());
+                availabilityCalendar.markBooked(car, reservation);
+                cursor = reservation.getEndDateTime();
+            }
+        }
+    }
+
+    ReservationRequest randomRequest(Random random) {
+        CarType[] carTypes = CarType.values();
+        return ReservationRequest.builder()
+            .carType(carTypes[random.nextInt(carTypes.length)])
+            .customerName("Benchmark Customer")
+            .customerEmail("bench-" + random.nextInt(1_000) + "@example.com")
+            .startDateTime(randomStart(random))
+            .durationDays(1 + random.nextInt(7))
+            .build();
+    }
+
+    LocalDateTime randomStart(Random random) {
+        return start.plusHours(random.nextInt(HORIZON_DAYS * 24));
+    }
+}
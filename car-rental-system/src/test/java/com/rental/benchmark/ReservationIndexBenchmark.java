@@ -0,0 +1,140 @@
+package com.rental.benchmark;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.OffHeapReservationRepository;
+import com.rental.repository.ReservationRepository;
+import com.rental.repository.ReservationRepositoryImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the indexed lookups of {@link ReservationRepositoryImpl} and {@link OffHeapReservationRepository}
+ * with the full-map scans they replaced. Add {@code -prof gc} to compare allocation, and watch the GC log
+ * ({@code -jvmArgsAppend -Xlog:gc}) for the old-generation size of the two stores.
+ * <p>
+ * The 10M case needs a large heap, e.g.
+ * {@code mvn -Pbenchmark verify -DskipTests -Djmh.args="ReservationIndexBenchmark -jvmArgsAppend -Xmx12g"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationIndexBenchmark {
+
+    private static final int RESERVATIONS_PER_CAR = 100;
+    private static final int RESERVATIONS_PER_CUSTOMER = 2;
+    private static final int LOOKUP_KEYS = 1024;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int reservationCount;
+
+    @Param({"heap", "offheap"})
+    private String store;
+
+    private ReservationRepository repository;
+    private Map<String, Reservation> scanned;
+    private String[] carIds;
+    private String[] customerEmails;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = "offheap".equals(store) ? new OffHeapReservationRepository() : new ReservationRepositoryImpl();
+        scanned = new ConcurrentHashMap<>();
+        Random random = new Random(42);
+        int cars = Math.max(1, reservationCount / RESERVATIONS_PER_CAR);
+        int customers = Math.max(1, reservationCount / RESERVATIONS_PER_CUSTOMER);
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        for (int i = 0; i < reservationCount; i++) {
+            Reservation reservation = Reservation.builder()
+                .carId("car-" + random.nextInt(cars))
+                .customerName("Customer")
+                .customerEmail("customer-" + random.nextInt(customers) + "@example.com")
+                .startDateTime(base.plusHours(random.nextInt(24 * 365 * 3)))
+                .durationDays(1 + random.nextInt(7))
+                .status(random.nextInt(10) == 0 ? ReservationStatus.CANCELLED : ReservationStatus.ACTIVE)
+                .build();
+            repository.save(reservation);
+            scanned.put(reservation.getId(), reservation);
+        }
+
+        carIds = new String[LOOKUP_KEYS];
+        customerEmails = new String[LOOKUP_KEYS];
+        for (int i = 0; i < LOOKUP_KEYS; i++) {
+            carIds[i] = "car-" + random.nextInt(cars);
+            customerEmails[i] = "customer-" + random.nextInt(customers) + "@example.com";
+        }
+    }
+
+    @Benchmark
+    public List<Reservation> indexedFindByCustomerEmail() {
+        return repository.findByCustomerEmail(nextCustomerEmail());
+    }
+
+    @Benchmark
+    public List<Reservation> scanFindByCustomerEmail() {
+        String customerEmail = nextCustomerEmail();
+        return scanned.values().stream()
+            .filter(reservation -> Objects.equals(reservation.getCustomerEmail(), customerEmail))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Reservation> indexedFindByCarId() {
+        return repository.findByCarId(nextCarId());
+    }
+
+    @Benchmark
+    public List<Reservation> scanFindByCarId() {
+        String carId = nextCarId();
+        return scanned.values().stream()
+            .filter(reservation -> Objects.equals(reservation.getCarId(), carId))
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Reservation> indexedFindActiveReservationsForCar() {
+        return repository.findActiveReservationsForCar(nextCarId());
+    }
+
+    @Benchmark
+    public List<Reservation> scanFindActiveReservationsForCar() {
+        String carId = nextCarId();
+        return scanned.values().stream()
+            .filter(reservation -> Objects.equals(reservation.getCarId(), carId))
+            .filter(reservation -> reservation.getStatus() == ReservationStatus.ACTIVE)
+            .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Reservation> indexedFindByStatus() {
+        return repository.findByStatus(ReservationStatus.CANCELLED);
+    }
+
+    @Benchmark
+    public List<Reservation> scanFindByStatus() {
+        return scanned.values().stream()
+            .filter(reservation -> reservation.getStatus() == ReservationStatus.CANCELLED)
+            .collect(Collectors.toList());
+    }
+
+    private String nextCarId() {
+        return carIds[cursor++ & (LOOKUP_KEYS - 1)];
+    }
+
+    private String nextCustomerEmail() {
+        return customerEmails[cursor++ & (LOOKUP_KEYS - 1)];
+    }
+}
@@ -0,0 +1,77 @@
+package com.rental.benchmark;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the overlap check that runs for every candidate reservation of an availability scan.
+ * <p>
+ * Compares the epoch-minute comparison in {@link Reservation#overlapsWithPeriod(long, long)} with the
+ * {@code LocalDateTime} version it replaced, which derived the end with {@code plusDays} on every call.
+ * Run with {@code -prof gc}: the primitive check should report no allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReservationOverlapBenchmark {
+
+    private static final int RESERVATIONS = 10_000;
+
+    private Reservation[] reservations;
+    private LocalDateTime[] starts;
+    private LocalDateTime periodStart;
+    private LocalDateTime periodEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 0, 0);
+        reservations = new Reservation[RESERVATIONS];
+        starts = new LocalDateTime[RESERVATIONS];
+        for (int i = 0; i < RESERVATIONS; i++) {
+            reservations[i] = Reservation.builder()
+                .carId("car-" + i % 100)
+                .startDateTime(base.plusHours(random.nextInt(24 * 365)))
+                .durationDays(1 + random.nextInt(7))
+                .build();
+            starts[i] = reservations[i].getStartDateTime();
+        }
+        periodStart = base.plusDays(180);
+        periodEnd = periodStart.plusDays(3);
+    }
+
+    @Benchmark
+    public int epochMinuteOverlapScan() {
+        long start = Reservation.toEpochMinute(periodStart);
+        long end = Reservation.toEpochMinuteCeiling(periodEnd);
+        int overlapping = 0;
+        for (Reservation reservation : reservations) {
+            if (reservation.overlapsWithPeriod(start, end)) {
+                overlapping++;
+            }
+        }
+        return overlapping;
+    }
+
+    @Benchmark
+    public int localDateTimeOverlapScan() {
+        int overlapping = 0;
+        for (int i = 0; i < reservations.length; i++) {
+            Reservation reservation = reservations[i];
+            if (reservation.getStatus() == ReservationStatus.ACTIVE
+                && starts[i].isBefore(periodEnd)
+                && starts[i].plusDays(reservation.getDurationDays()).isAfter(periodStart)) {
+                overlapping++;
+            }
+        }
+        return overlapping;
+    }
+}
@@ -0,0 +1,115 @@
+package com.rental.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final Instant NOW = Instant.parse("2030-01-10T10:00:00Z");
+
+    @Test
+    void nextId_ShouldBeStrictlyIncreasing_WhenClockStandsStill() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // When
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long next = generator.nextId();
+
+            // Then
+            assertThat(next).isGreaterThan(previous);
+            assertThat(SnowflakeIdGenerator.nodeIdOf(next)).isEqualTo(5);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nextId_ShouldCarryTimestamp() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // When
+        long id = generator.nextId();
+
+        // Then
+        assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(NOW);
+    }
+
+    @Test
+    void nextId_ShouldBeUnique_AcrossThreads() throws Exception {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 25_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Then
+        assertThat(ids).hasSize(100_000);
+    }
+
+    @Test
+    void constructor_ShouldRejectOutOfRangeNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encode_ShouldRoundTripAndPreserveOrder() {
+        // Given
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        Set<String> encoded = new HashSet<>();
+        String previous = "";
+
+        for (int i = 0; i < 1_000; i++) {
+            long id = generator.nextId();
+
+            // When
+            String text = Ids.encode(id);
+
+            // Then
+            assertThat(text).hasSize(Ids.ENCODED_LENGTH).isGreaterThan(previous);
+            assertThat(Ids.decode(text)).isEqualTo(id);
+            encoded.add(text);
+            previous = text;
+        }
+        assertThat(encoded).hasSize(1_000);
+    }
+
+    @Test
+    void decode_ShouldRejectIdsFromOtherSchemes() {
+        assertThat(Ids.decode("0b6f4c8e-1d2a-4f7e-9c3b-5a8d7e6f1a2b")).isEqualTo(Ids.NOT_COMPACT);
+        assertThat(Ids.decode("0000000000abc")).isEqualTo(Ids.NOT_COMPACT);
+        assertThat(Ids.decode("ZZZZZZZZZZZZZ")).isEqualTo(Ids.NOT_COMPACT);
+        assertThat(Ids.decode(null)).isEqualTo(Ids.NOT_COMPACT);
+    }
+}
@@ -0,0 +1,57 @@
+package com.rental.persistence;
+
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CarCodecTest {
+
+    private final CarCodec codec = new CarCodec();
+
+    @Test
+    void read_ShouldRestoreWrittenCar() throws IOException {
+        // Given
+        Car car = Car.builder().id("car-1").branch("airport").licensePlate("ABC123").carType(CarType.SUV)
+            .brand("Toyota").model("RAV4").year(2023).available(false).build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.write(car, new DataOutputStream(bytes));
+
+        // When
+        Car read = codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Then
+        assertThat(read).isEqualTo(car);
+    }
+
+    @Test
+    void read_ShouldPlaceCarsWrittenWithoutBranchInDefaultBranch() throws IOException {
+        // Given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF("car-1");
+        out.writeBoolean(true);
+        out.writeUTF("ABC123");
+        out.writeByte(CarType.VAN.ordinal());
+        out.writeBoolean(false);
+        out.writeBoolean(false);
+        out.writeInt(2022);
+        out.writeBoolean(true);
+
+        // When
+        Car read = codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // Then
+        assertThat(read.getBranch()).isEqualTo(Car.DEFAULT_BRANCH);
+        assertThat(read.getLicensePlate()).isEqualTo("ABC123");
+        assertThat(read.getCarType()).isEqualTo(CarType.VAN);
+        assertThat(read.getYear()).isEqualTo(2022);
+    }
+}
@@ -0,0 +1,264 @@
+package com.rental.persistence;
+
+import com.rental.id.IdGenerator;
+import com.rental.id.SnowflakeIdGenerator;
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.ReservationRepositoryImpl;
+import com.rental.repository.TimelineCursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SegmentReservationHistoryTest {
+
+    private static final IdGenerator IDS = new SnowflakeIdGenerator(0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void addAll_ShouldPartitionByStartMonthAndSurviveReopen() throws IOException {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation march = completed("car-1", LocalDateTime.of(2030, 3, 30, 10, 0));
+        Reservation april = completed("car-2", LocalDateTime.of(2030, 4, 2, 10, 0));
+        history.addAll(List.of(march, april));
+        history.close();
+
+        // When
+        SegmentReservationHistory reopened = open();
+        List<Reservation> loaded = new ArrayList<>();
+        reopened.scan(Long.MIN_VALUE, Long.MAX_VALUE).forEachRemaining(loaded::add);
+
+        // Then
+        assertThat(fileNames()).containsExactlyInAnyOrder("reservations-2030-03.seg", "reservations-2030-03.idx",
+            "reservations-2030-04.seg", "reservations-2030-04.idx");
+        assertThat(loaded).containsExactly(march, april);
+        assertThat(reopened.get(april.getId())).isEqualTo(april);
+        assertThat(reopened.partitions()).isEqualTo(2);
+    }
+
+    @Test
+    void scan_ShouldOnlyReturnReservationsStartingInRange() {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation march = completed("car-1", LocalDateTime.of(2030, 3, 30, 10, 0));
+        Reservation april = completed("car-2", LocalDateTime.of(2030, 4, 2, 10, 0));
+        Reservation may = completed("car-3", LocalDateTime.of(2030, 5, 20, 10, 0));
+        history.addAll(List.of(march, april, may));
+
+        // When
+        List<Reservation> scanned = new ArrayList<>();
+        history.scan(minute(LocalDateTime.of(2030, 4, 1, 0, 0)), minute(LocalDateTime.of(2030, 5, 20, 10, 0)))
+            .forEachRemaining(scanned::add);
+
+        // Then
+        assertThat(scanned).containsExactly(april);
+    }
+
+    @Test
+    void getAll_ShouldFindRecordsAcrossBlocksAfterReopen() {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation first = completed("car-1", LocalDateTime.of(2030, 3, 1, 10, 0));
+        Reservation second = completed("car-2", LocalDateTime.of(2030, 3, 2, 10, 0));
+        Reservation april = completed("car-3", LocalDateTime.of(2030, 4, 2, 10, 0));
+        history.addAll(List.of(first, second, april));
+        Reservation later = completed("car-4", LocalDateTime.of(2030, 3, 5, 10, 0));
+        history.addAll(List.of(later));
+        history.close();
+
+        // When
+        SegmentReservationHistory reopened = open();
+        Map<String, Reservation> found = reopened.getAll(
+            List.of(second.getId(), later.getId(), april.getId(), "missing"));
+
+        // Then
+        assertThat(found).containsOnly(
+            entry(second.getId(), second), entry(later.getId(), later), entry(april.getId(), april));
+        assertThat(reopened.get(first.getId())).isEqualTo(first);
+    }
+
+    @Test
+    void remove_ShouldWriteTombstoneThatWinsOverEarlierVersions() {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation removed = completed("car-1", LocalDateTime.of(2030, 3, 1, 10, 0));
+        Reservation updated = completed("car-2", LocalDateTime.of(2030, 3, 2, 10, 0));
+        history.addAll(List.of(removed, updated));
+        updated.setTotalCost(250.0);
+        history.addAll(List.of(updated));
+        history.remove(removed.getId());
+        history.close();
+
+        // When
+        SegmentReservationHistory reopened = open();
+
+        // Then
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(reopened.get(removed.getId())).isNull();
+        assertThat(reopened.get(updated.getId()).getTotalCost()).isEqualTo(250.0);
+        Iterator<Reservation> all = reopened.scan(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(all.next()).isEqualTo(updated);
+        assertThat(all.hasNext()).isFalse();
+    }
+
+    @Test
+    void load_ShouldDropTornTail() throws IOException {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation kept = completed("car-1", LocalDateTime.of(2030, 3, 1, 10, 0));
+        history.addAll(List.of(kept));
+        history.close();
+        Path segment = directory.resolve("reservations-2030-03.seg");
+        long intactSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 42, 1, 2}), channel.size());
+        }
+
+        // When
+        SegmentReservationHistory reopened = open();
+
+        // Then
+        assertThat(reopened.get(kept.getId())).isEqualTo(kept);
+        assertThat(Files.size(segment)).isEqualTo(intactSize);
+    }
+
+    @Test
+    void load_ShouldServeLookupsFromIndexFiles() {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation first = completed("car-1", LocalDateTime.of(2030, 3, 1, 10, 0));
+        Reservation second = completed("car-2", LocalDateTime.of(2030, 4, 2, 10, 0));
+        first.setCreatedAt(LocalDateTime.of(2030, 1, 1, 8, 0));
+        second.setCreatedAt(LocalDateTime.of(2030, 1, 2, 8, 0));
+        Reservation removed = completed("car-1", LocalDateTime.of(2030, 3, 5, 10, 0));
+        history.addAll(List.of(first, second, removed));
+        history.remove(removed.getId());
+        history.close();
+
+        // When
+        SegmentReservationHistory reopened = open();
+
+        // Then
+        assertThat(reopened.idsForCar("car-1")).containsExactly(first.getId());
+        assertThat(reopened.customerTimeline("john@example.com", null, 10))
+            .containsExactly(TimelineCursor.of(second), TimelineCursor.of(first));
+        assertThat(reopened.customerTimeline("john@example.com", TimelineCursor.of(second), 10))
+            .containsExactly(TimelineCursor.of(first));
+        assertThat(reopened.idsWithStatus(ReservationStatus.COMPLETED))
+            .containsExactlyInAnyOrder(first.getId(), second.getId());
+    }
+
+    @Test
+    void load_ShouldIndexBlocksMissingFromIndexFile() throws IOException {
+        // Given
+        SegmentReservationHistory history = open();
+        Reservation indexed = completed("car-1", LocalDateTime.of(2030, 3, 1, 10, 0));
+        history.addAll(List.of(indexed));
+        Path index = directory.resolve("reservations-2030-03.idx");
+        long indexedSize = Files.size(index);
+        Reservation unindexed = completed("car-2", LocalDateTime.of(2030, 3, 2, 10, 0));
+        history.addAll(List.of(unindexed));
+        long fullSize = Files.size(index);
+        history.close();
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(indexedSize + 3);
+        }
+
+        // When
+        SegmentReservationHistory reopened = open();
+
+        // Then
+        assertThat(reopened.idsForCar("car-2")).containsExactly(unindexed.getId());
+        assertThat(reopened.get(unindexed.getId())).isEqualTo(unindexed);
+        assertThat(reopened.get(indexed.getId())).isEqualTo(indexed);
+        assertThat(Files.size(index)).isEqualTo(fullSize);
+    }
+
+    @Test
+    void repository_ShouldServeCompletedReservationsFromDiskAfterRestart() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2030, 3, 1, 10, 0);
+        ReservationRepositoryImpl repository = repository();
+        Reservation ended = repository.save(active("car-1", start));
+        Reservation upcoming = repository.save(active("car-2", start.plusMonths(2)));
+        repository.completeEndedBy(start.plusDays(10), 100);
+        repository.close();
+
+        // When
+        ReservationRepositoryImpl recovered = repository();
+
+        // Then
+        assertThat(recovered.findById(ended.getId()).get().getStatus()).isEqualTo(ReservationStatus.COMPLETED);
+        assertThat(recovered.findByCustomerEmail("john@example.com"))
+            .extracting(Reservation::getId)
+            .containsExactlyInAnyOrder(ended.getId(), upcoming.getId());
+        assertThat(recovered.findByCarId("car-1")).extracting(Reservation::getId).containsExactly(ended.getId());
+        assertThat(recovered.findByStatus(ReservationStatus.COMPLETED))
+            .extracting(Reservation::getId)
+            .containsExactly(ended.getId());
+        assertThat(recovered.indexSizes()).containsEntry("history", 1).containsEntry("timeline", 1)
+            .containsEntry("cars", 1).containsEntry("customers", 1);
+        List<Reservation> march = new ArrayList<>();
+        recovered.scanStartingBetween(start.withDayOfMonth(1), start.plusMonths(1)).forEachRemaining(march::add);
+        assertThat(march).extracting(Reservation::getId).containsExactly(ended.getId());
+    }
+
+    private ReservationRepositoryImpl repository() {
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(
+            new WriteAheadJournal<>(new WriteAheadLog(directory, "reservations", true), new ReservationCodec()),
+            new SegmentReservationHistory(directory.resolve("history"), true));
+        repository.recover();
+        return repository;
+    }
+
+    private SegmentReservationHistory open() {
+        SegmentReservationHistory history = new SegmentReservationHistory(directory, true);
+        history.load();
+        return history;
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    private static long minute(LocalDateTime dateTime) {
+        return Reservation.toEpochMinute(dateTime);
+    }
+
+    private static Reservation completed(String carId, LocalDateTime start) {
+        Reservation reservation = active(carId, start);
+        reservation.setStatus(ReservationStatus.COMPLETED);
+        return reservation;
+    }
+
+    private static Reservation active(String carId, LocalDateTime start) {
+        return Reservation.builder()
+            .id(IDS.nextEncodedId())
+            .carId(carId)
+            .customerName("John Doe")
+            .customerEmail("john@example.com")
+            .startDateTime(start)
+            .durationDays(2)
+            .totalCost(100.0)
+            .build();
+    }
+}
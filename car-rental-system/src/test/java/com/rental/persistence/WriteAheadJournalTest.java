@@ -0,0 +1,284 @@
+package com.rental.persistence;
+
+import com.rental.id.IdGenerator;
+import com.rental.id.SnowflakeIdGenerator;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.CarRepositoryImpl;
+import com.rental.repository.ReservationRepositoryImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class WriteAheadJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final IdGenerator ids = new SnowflakeIdGenerator(0);
+
+    @Test
+    void replay_ShouldRestoreReservationRepositoryState() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 30);
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(reservationJournal());
+        Reservation kept = repository.save(reservation("car-1", start));
+        Reservation cancelled = repository.save(reservation("car-2", start));
+        Reservation deleted = repository.save(reservation("car-3", start));
+        cancelled.setStatus(ReservationStatus.CANCELLED);
+        repository.save(cancelled);
+        repository.deleteById(deleted.getId());
+
+        // When
+        ReservationRepositoryImpl recovered = new ReservationRepositoryImpl(reservationJournal());
+        recovered.recover();
+
+        // Then
+        assertThat(recovered.findAll()).hasSize(2);
+        assertThat(recovered.findById(deleted.getId())).isEmpty();
+        assertThat(recovered.findById(kept.getId())).get().isEqualTo(kept);
+        assertThat(recovered.findById(cancelled.getId()).get().getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(recovered.findOverlappingReservations("car-1", start, start.plusDays(1)))
+            .extracting(Reservation::getId)
+            .containsExactly(kept.getId());
+        assertThat(recovered.findOverlappingReservations("car-2", start, start.plusDays(1))).isEmpty();
+    }
+
+    @Test
+    void replay_ShouldRestoreCarsInsteadOfSeedingDefaultFleet() {
+        // Given
+        CarRepositoryImpl repository = new CarRepositoryImpl(carJournal());
+        repository.initializeData();
+        Car extra = repository.save(Car.builder().licensePlate("NEW001").carType(CarType.VAN).build());
+
+        // When
+        CarRepositoryImpl recovered = new CarRepositoryImpl(carJournal());
+        recovered.initializeData();
+
+        // Then
+        assertThat(recovered.findAll()).hasSize(9);
+        assertThat(recovered.findById(extra.getId())).get().isEqualTo(extra);
+        assertThat(recovered.countByCarType(CarType.VAN)).isEqualTo(3);
+    }
+
+    @Test
+    void replay_ShouldRestoreBatchWrittenAsOneRecord() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 30);
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(reservationJournal());
+        List<Reservation> batch = repository.reserveAllIfFree(List.of(
+            reservation("car-1", start), reservation("car-2", start), reservation("car-3", start))).orElseThrow();
+
+        // When
+        List<Reservation> replayed = new ArrayList<>();
+        int records = reservationJournal().replay(replayed::add, id -> { });
+
+        // Then
+        assertThat(records).isEqualTo(3);
+        assertThat(replayed).containsExactlyElementsOf(batch);
+    }
+
+    @Test
+    void replay_ShouldDropTornTail() throws IOException {
+        // Given
+        WriteAheadJournal<Reservation> journal = reservationJournal();
+        journal.replay(reservation -> { }, id -> { });
+        journal.logSave(reservation("car-1", LocalDateTime.of(2030, 1, 1, 10, 0))).join();
+        journal.close();
+        try (FileChannel channel = FileChannel.open(directory.resolve("reservations-00000001.wal"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 42, 1, 2}), channel.size());
+        }
+
+        // When
+        List<Reservation> replayed = new ArrayList<>();
+        int records = reservationJournal().replay(replayed::add, id -> { });
+
+        // Then
+        assertThat(records).isEqualTo(1);
+        assertThat(replayed).hasSize(1);
+    }
+
+    @Test
+    void logSave_ShouldMakeConcurrentWritesDurable() throws Exception {
+        // Given
+        WriteAheadJournal<Reservation> journal = reservationJournal();
+        journal.replay(reservation -> { }, id -> { });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    journal.logSave(reservation("car-1", LocalDateTime.of(2030, 1, 1, 10, 0))).join();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        journal.close();
+
+        // Then
+        assertThat(reservationJournal().replay(reservation -> { }, id -> { })).isEqualTo(800);
+    }
+
+    @Test
+    void checkpoint_ShouldRecoverFromSnapshotAndReplayTail() throws IOException {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 30);
+        WriteAheadJournal<Reservation> journal = reservationJournal();
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(journal);
+        repository.recover();
+        Reservation snapshotted = repository.save(reservation("car-1", start));
+        Reservation deletedAfterSnapshot = repository.save(reservation("car-2", start));
+        journal.checkpoint(repository::findAll);
+        Reservation tail = repository.save(reservation("car-3", start));
+        repository.deleteById(deletedAfterSnapshot.getId());
+        journal.close();
+
+        // When
+        ReservationRepositoryImpl recovered = new ReservationRepositoryImpl(reservationJournal());
+        recovered.recover();
+
+        // Then
+        assertThat(fileNames()).containsExactlyInAnyOrder("reservations-00000002.snapshot", "reservations-00000002.wal");
+        assertThat(Files.size(directory.resolve("reservations-00000002.snapshot"))).isLessThan(1024);
+        assertThat(recovered.findAll()).extracting(Reservation::getId)
+            .containsExactlyInAnyOrder(snapshotted.getId(), tail.getId());
+        assertThat(recovered.findById(snapshotted.getId())).get().isEqualTo(snapshotted);
+        assertThat(recovered.findOverlappingReservations("car-3", start, start.plusDays(1)))
+            .extracting(Reservation::getId)
+            .containsExactly(tail.getId());
+    }
+
+    @Test
+    void checkpoint_ShouldCompactOlderSnapshotsAndSegments() throws IOException {
+        // Given
+        WriteAheadJournal<Reservation> journal = reservationJournal();
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(journal);
+        repository.recover();
+
+        // When
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 500; i++) {
+                repository.save(reservation("car-" + i, LocalDateTime.of(2030, 1, 1, 10, 0).plusDays(round * 10)));
+            }
+            journal.checkpoint(repository::findAll);
+        }
+        journal.checkpoint(repository::findAll);
+        journal.close();
+
+        // Then
+        assertThat(fileNames()).containsExactlyInAnyOrder("reservations-00000004.snapshot", "reservations-00000004.wal");
+        List<Reservation> replayed = new ArrayList<>();
+        assertThat(reservationJournal().replay(replayed::add, id -> { })).isEqualTo(1500);
+        assertThat(replayed).hasSize(1500);
+    }
+
+    @Test
+    void checkpoint_ShouldWaitForWritesInFlight() throws Exception {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 30);
+        WriteAheadJournal<Reservation> journal = reservationJournal();
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(journal);
+        repository.recover();
+        Reservation durable = repository.save(reservation("car-1", start));
+        List<Reservation> state = new CopyOnWriteArrayList<>(repository.findAll());
+        Reservation rolledBack = reservation("car-2", start);
+        EntityJournal.InFlightWrite write = journal.beginWrite();
+        state.add(rolledBack);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // When
+        Future<?> checkpoint = executor.submit(() -> journal.checkpoint(() -> List.copyOf(state)));
+        assertThatThrownBy(() -> checkpoint.get(200, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        state.remove(rolledBack);
+        write.close();
+        checkpoint.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        journal.close();
+
+        // Then
+        List<Reservation> snapshotted = new ArrayList<>();
+        reservationJournal().replay(snapshotted::add, id -> { });
+        assertThat(snapshotted).extracting(Reservation::getId).containsExactly(durable.getId());
+    }
+
+    @Test
+    void checkpoint_ShouldLeaveReservationsOfDurableHistoryOutOfSnapshot() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 30);
+        WriteAheadJournal<Reservation> journal = reservationJournal();
+        SegmentReservationHistory history = new SegmentReservationHistory(directory.resolve("history"), true);
+        ReservationRepositoryImpl repository = new ReservationRepositoryImpl(journal, history);
+        repository.recover();
+        Reservation completed = repository.save(reservation("car-1", start));
+        Reservation active = repository.save(reservation("car-2", start.plusDays(10)));
+        repository.completeEndedBy(start.plusDays(5), 10);
+        journal.checkpoint(repository::snapshotHot);
+        journal.close();
+        history.close();
+
+        // When
+        ReservationRepositoryImpl recovered = new ReservationRepositoryImpl(reservationJournal(),
+            new SegmentReservationHistory(directory.resolve("history"), true));
+        recovered.recover();
+
+        // Then
+        List<Reservation> snapshotted = new ArrayList<>();
+        assertThat(reservationJournal().replay(snapshotted::add, id -> { })).isEqualTo(1);
+        assertThat(snapshotted).extracting(Reservation::getId).containsExactly(active.getId());
+        assertThat(recovered.findById(completed.getId()).get().getStatus()).isEqualTo(ReservationStatus.COMPLETED);
+        assertThat(recovered.findById(active.getId())).get().isEqualTo(active);
+        assertThat(recovered.count()).isEqualTo(2);
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+
+    private WriteAheadJournal<Reservation> reservationJournal() {
+        return new WriteAheadJournal<>(new WriteAheadLog(directory, "reservations", true),
+            new ReservationCodec());
+    }
+
+    private WriteAheadJournal<Car> carJournal() {
+        return new WriteAheadJournal<>(new WriteAheadLog(directory, "cars", true), new CarCodec());
+    }
+
+    private Reservation reservation(String carId, LocalDateTime start) {
+        return Reservation.builder()
+            .id(ids.nextEncodedId())
+            .carId(carId)
+            .customerName("John Doe")
+            .customerEmail("john@example.com")
+            .startDateTime(start)
+            .durationDays(2)
+            .totalCost(100.0)
+            .build();
+    }
+}
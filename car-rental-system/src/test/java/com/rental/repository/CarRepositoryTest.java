@@ -5,6 +5,7 @@ import com.rental.model.CarType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -217,6 +218,42 @@ class CarRepositoryTest {
         assertThat(availableSuvCount).isEqualTo(1);
     }
 
+    @Test
+    void save_ShouldMoveCarBetweenPartitions_WhenTypeOrAvailabilityChanges() {
+        // Given
+        Car car = carRepository.save(Car.builder().carType(CarType.SEDAN).licensePlate("S1").build());
+
+        // When
+        car.setCarType(CarType.VAN);
+        car.setAvailable(false);
+        carRepository.save(car);
+
+        // Then
+        assertThat(carRepository.countByCarType(CarType.SEDAN)).isZero();
+        assertThat(carRepository.countAvailableByCarType(CarType.SEDAN)).isZero();
+        assertThat(carRepository.countByCarType(CarType.VAN)).isEqualTo(1);
+        assertThat(carRepository.countAvailableByCarType(CarType.VAN)).isZero();
+        assertThat(carRepository.findByCarType(CarType.VAN)).containsExactly(car);
+        assertThat(carRepository.findAvailableByCarType(CarType.VAN)).isEmpty();
+    }
+
+    @Test
+    void deleteById_ShouldUpdateCounts() {
+        // Given
+        Car car = carRepository.save(Car.builder().carType(CarType.SUV).licensePlate("U1").build());
+        carRepository.save(Car.builder().carType(CarType.SUV).licensePlate("U2").build());
+
+        // When
+        carRepository.deleteById(car.getId());
+
+        // Then
+        assertThat(carRepository.countByCarType(CarType.SUV)).isEqualTo(1);
+        assertThat(carRepository.countAvailableByCarType(CarType.SUV)).isEqualTo(1);
+        assertThat(carRepository.findByCarType(CarType.SUV))
+            .extracting(Car::getLicensePlate)
+            .containsExactly("U2");
+    }
+
     @Test
     void findAll_ShouldReturnAllCars() {
         // Given
@@ -232,4 +269,25 @@ class CarRepositoryTest {
         assertThat(allCars.stream().map(Car::getLicensePlate))
             .containsExactlyInAnyOrder("S1", "U1", "V1");
     }
-}
\ No newline at end of file
+
+    @Test
+    void save_ShouldRollBack_WhenJournalWriteFails() {
+        // Given
+        FailingJournal<Car> journal = new FailingJournal<>();
+        journal.failing = false;
+        CarRepositoryImpl failing = new CarRepositoryImpl(journal);
+        Car car = failing.save(Car.builder().carType(CarType.SEDAN).licensePlate("S1").build());
+        journal.failing = true;
+        Car rented = Car.builder().id(car.getId()).carType(CarType.SEDAN).licensePlate("S1").available(false).build();
+
+        // When / Then
+        assertThatThrownBy(() -> failing.save(rented)).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> failing.deleteById(car.getId())).isInstanceOf(UncheckedIOException.class);
+        assertThatThrownBy(() -> failing.save(Car.builder().carType(CarType.VAN).licensePlate("V1").build()))
+            .isInstanceOf(UncheckedIOException.class);
+        assertThat(failing.findById(car.getId())).containsSame(car);
+        assertThat(failing.findAvailableByCarType(CarType.SEDAN)).containsExactly(car);
+        assertThat(failing.countByCarType(CarType.VAN)).isZero();
+        assertThat(failing.count()).isEqualTo(1);
+    }
+}
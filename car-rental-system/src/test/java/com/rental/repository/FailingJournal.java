@@ -0,0 +1,33 @@
+package com.rental.repository;
+
+import com.rental.persistence.EntityJournal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A journal whose disk goes away once {@link #failing} is set.
+ */
+class FailingJournal<T> implements EntityJournal<T> {
+
+    volatile boolean failing = true;
+
+    @Override
+    public CompletableFuture<Void> logSave(T entity) {
+        return failing
+            ? CompletableFuture.failedFuture(new UncheckedIOException(new IOException("No space left on device")))
+            : CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> logDelete(String id) {
+        return logSave(null);
+    }
+
+    @Override
+    public int replay(Consumer<T> onSave, Consumer<String> onDelete) {
+        return 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.rental.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void operations_ShouldMatchHashMap_UnderRandomPutsAndRemoves() {
+        // Given
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed == null ? LongIntHashMap.MISSING : removed);
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        // Then
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, LongIntHashMap.MISSING));
+        }
+        Map<Integer, Boolean> seen = new HashMap<>();
+        map.forEachValue(value -> seen.put(value, true));
+        assertThat(seen.keySet()).containsExactlyInAnyOrderElementsOf(expected.values());
+    }
+
+    @Test
+    void put_ShouldRejectNegativeKeys() {
+        assertThatThrownBy(() -> new LongIntHashMap().put(-1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,36 @@
+package com.rental.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LongMinHeapTest {
+
+    @Test
+    void operations_ShouldMatchPriorityQueue_UnderRandomAddsAndPolls() {
+        // Given
+        LongMinHeap heap = new LongMinHeap();
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        Random random = new Random(7);
+
+        // When & Then
+        for (int i = 0; i < 100_000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                assertThat(heap.peek()).isEqualTo(expected.peek());
+                assertThat(heap.poll()).isEqualTo(expected.poll());
+            } else {
+                long value = random.nextLong();
+                heap.add(value);
+                expected.add(value);
+            }
+            assertThat(heap.size()).isEqualTo(expected.size());
+        }
+        while (!expected.isEmpty()) {
+            assertThat(heap.poll()).isEqualTo(expected.poll());
+        }
+        assertThat(heap.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,356 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OffHeapReservationRepositoryTest {
+
+    private OffHeapReservationRepository reservationRepository;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = new OffHeapReservationRepository();
+        baseTime = LocalDateTime.of(2030, 1, 10, 10, 0);
+    }
+
+    @Test
+    void save_ShouldMaterializeEqualReservation() {
+        // Given
+        Reservation reservation = reservation("car-1", "john@example.com", baseTime, 3);
+
+        // When
+        reservationRepository.save(reservation);
+
+        // Then
+        Optional<Reservation> found = reservationRepository.findById(reservation.getId());
+        assertThat(found).get().isEqualTo(reservation).isNotSameAs(reservation);
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldReturnOnlyActiveOverlappingReservationsOfCar() {
+        // Given
+        Reservation overlapping = reservationRepository.save(reservation("car-1", "a@example.com", baseTime, 2));
+        reservationRepository.save(reservation("car-1", "a@example.com", baseTime.plusDays(2), 2));
+        reservationRepository.save(reservation("car-2", "a@example.com", baseTime, 2));
+        Reservation cancelled = reservation("car-1", "a@example.com", baseTime.plusHours(1), 1);
+        cancelled.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(cancelled);
+
+        // When
+        List<Reservation> result = reservationRepository.findOverlappingReservations(
+            "car-1", baseTime.plusDays(1), baseTime.plusDays(2));
+
+        // Then
+        assertThat(result).extracting(Reservation::getId).containsExactly(overlapping.getId());
+    }
+
+    @Test
+    void save_ShouldMoveRowBetweenIndexes_WhenCarAndStatusChange() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", "a@example.com", baseTime, 2));
+
+        // When
+        reservation.setCarId("car-2");
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+
+        // Then
+        assertThat(reservationRepository.findByCarId("car-1")).isEmpty();
+        assertThat(reservationRepository.findByCarId("car-2")).hasSize(1);
+        assertThat(reservationRepository.findActiveReservationsForCar("car-2")).isEmpty();
+        assertThat(reservationRepository.findByStatus(ReservationStatus.CANCELLED)).hasSize(1);
+        assertThat(reservationRepository.findByStatus(ReservationStatus.ACTIVE)).isEmpty();
+    }
+
+    @Test
+    void findFreeGap_ShouldReturnGapBetweenNeighbouringActiveReservations() {
+        // Given
+        Reservation after = reservationRepository.save(reservation("car-1", "a@example.com", baseTime.plusDays(10), 2));
+        Reservation before = reservationRepository.save(reservation("car-1", "a@example.com", baseTime, 2));
+
+        // When
+        Optional<FreeGap> gap = reservationRepository.findFreeGap("car-1", baseTime.plusDays(4), baseTime.plusDays(5));
+
+        // Then
+        assertThat(gap).contains(new FreeGap(before.getEndMinute(), after.getStartMinute()));
+        assertThat(reservationRepository.findFreeGap("car-1", baseTime.plusDays(1), baseTime.plusDays(3))).isEmpty();
+    }
+
+    @Test
+    void reserveIfFree_ShouldRejectOverlappingReservation() {
+        // Given
+        reservationRepository.save(reservation("car-1", "a@example.com", baseTime, 3));
+
+        // When
+        Optional<Reservation> reserved = reservationRepository.reserveIfFree(
+            reservation("car-1", "b@example.com", baseTime.plusDays(1), 1));
+
+        // Then
+        assertThat(reserved).isEmpty();
+        assertThat(reservationRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    void reserveAllIfFree_ShouldRejectBatchOverlappingItself() {
+        // Given
+        List<Reservation> batch = List.of(
+            reservation("car-1", "a@example.com", baseTime, 2),
+            reservation("car-1", "a@example.com", baseTime.plusDays(1), 2));
+
+        // When
+        Optional<List<Reservation>> reserved = reservationRepository.reserveAllIfFree(batch);
+
+        // Then
+        assertThat(reserved).isEmpty();
+        assertThat(reservationRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void findByCustomerEmail_ShouldShareEmailStringAcrossRows() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            reservationRepository.save(reservation("car-" + i, "corp@example.com", baseTime, 1));
+        }
+
+        // When
+        List<Reservation> result = reservationRepository.findByCustomerEmail("corp@example.com");
+
+        // Then
+        assertThat(result).hasSize(10);
+        // 10 car ids + one name + one email; compact ids are not pooled
+        assertThat(reservationRepository.pooledStrings()).isEqualTo(12);
+    }
+
+    @Test
+    void deleteById_ShouldReleasePooledStringsAndReuseRow() {
+        // Given
+        Reservation deleted = reservationRepository.save(reservation("car-1", "a@example.com", baseTime, 1));
+        reservationRepository.deleteById(deleted.getId());
+
+        // When
+        Reservation saved = reservationRepository.save(reservation("car-2", "b@example.com", baseTime, 1));
+
+        // Then
+        assertThat(reservationRepository.findById(deleted.getId())).isEmpty();
+        assertThat(reservationRepository.findByCarId("car-1")).isEmpty();
+        assertThat(reservationRepository.findAll()).extracting(Reservation::getId).containsExactly(saved.getId());
+        assertThat(reservationRepository.pooledStrings()).isEqualTo(3);
+    }
+
+    @Test
+    void save_ShouldKeepForeignIds_WhenIdIsNotCompact() {
+        // Given
+        Reservation legacy = reservation("car-1", "a@example.com", baseTime, 1);
+        legacy.setId("0b6f4c8e-1d2a-4f7e-9c3b-5a8d7e6f1a2b");
+        Reservation compact = reservation("car-1", "a@example.com", baseTime.plusDays(1), 1);
+
+        // When
+        reservationRepository.save(legacy);
+        reservationRepository.save(compact);
+
+        // Then
+        assertThat(reservationRepository.findById(legacy.getId())).get().isEqualTo(legacy);
+        assertThat(reservationRepository.findById(compact.getId())).get().isEqualTo(compact);
+        assertThat(reservationRepository.findAll()).extracting(Reservation::getId)
+            .containsExactlyInAnyOrder(legacy.getId(), compact.getId());
+        reservationRepository.deleteById(legacy.getId());
+        assertThat(reservationRepository.findAll()).extracting(Reservation::getId).containsExactly(compact.getId());
+    }
+
+    @Test
+    void findCustomerTimeline_ShouldPageNewestFirst_WhenCreationTimesTie() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            Reservation reservation = reservation("car-" + i, "john@example.com", baseTime, 1);
+            reservation.setId("res-" + i);
+            reservation.setCreatedAt(baseTime.minusDays(i / 2));
+            reservationRepository.save(reservation);
+        }
+
+        // When
+        List<Reservation> firstPage = reservationRepository.findCustomerTimeline("john@example.com", null, 2);
+        List<Reservation> secondPage = reservationRepository.findCustomerTimeline(
+            "john@example.com", TimelineCursor.of(firstPage.get(1)), 2);
+        List<Reservation> lastPage = reservationRepository.findCustomerTimeline(
+            "john@example.com", TimelineCursor.of(secondPage.get(1)), 2);
+
+        // Then
+        assertThat(firstPage).extracting(Reservation::getId).containsExactly("res-1", "res-0");
+        assertThat(secondPage).extracting(Reservation::getId).containsExactly("res-3", "res-2");
+        assertThat(lastPage).extracting(Reservation::getId).containsExactly("res-4");
+    }
+
+    @Test
+    void findCustomerTimeline_ShouldMoveReservation_WhenCreationTimeChanges() {
+        // Given
+        Reservation older = reservation("car-1", "john@example.com", baseTime, 1);
+        older.setCreatedAt(baseTime.minusDays(2));
+        reservationRepository.save(older);
+        Reservation newer = reservation("car-2", "john@example.com", baseTime, 1);
+        newer.setCreatedAt(baseTime.minusDays(1));
+        reservationRepository.save(newer);
+
+        // When
+        older.setCreatedAt(baseTime);
+        reservationRepository.save(older);
+
+        // Then
+        assertThat(reservationRepository.findByCustomerEmail("john@example.com"))
+            .extracting(Reservation::getId)
+            .containsExactly(older.getId(), newer.getId());
+    }
+
+    @Test
+    void scanAll_ShouldVisitEveryLiveRow_AcrossBatches() {
+        // Given
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            ids.add(reservationRepository.save(reservation("car-" + i, "a@example.com", baseTime, 1)).getId());
+        }
+        reservationRepository.deleteById(ids.remove(300));
+
+        // When
+        List<String> scanned = new ArrayList<>();
+        reservationRepository.scanAll().forEachRemaining(reservation -> scanned.add(reservation.getId()));
+
+        // Then
+        assertThat(scanned).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void completeEndedBy_ShouldCompleteEndedRowsEarliestFirstAndKeepThemReadable() {
+        // Given
+        Reservation endedLater = reservationRepository.save(reservation("car-1", "a@example.com", baseTime.plusDays(2), 1));
+        Reservation endedFirst = reservationRepository.save(reservation("car-2", "a@example.com", baseTime, 1));
+        Reservation running = reservationRepository.save(reservation("car-1", "a@example.com", baseTime.plusDays(4), 3));
+        running.setDurationDays(4);
+        reservationRepository.save(running);
+
+        // When
+        List<Reservation> firstBatch = reservationRepository.completeEndedBy(baseTime.plusDays(7), 1);
+        List<Reservation> secondBatch = reservationRepository.completeEndedBy(baseTime.plusDays(7), 10);
+
+        // Then
+        assertThat(firstBatch).extracting(Reservation::getId).containsExactly(endedFirst.getId());
+        assertThat(secondBatch).extracting(Reservation::getId).containsExactly(endedLater.getId());
+        assertThat(reservationRepository.findById(endedLater.getId()))
+            .hasValueSatisfying(completed -> assertThat(completed.getStatus()).isEqualTo(ReservationStatus.COMPLETED));
+        assertThat(reservationRepository.findActiveReservationsForCar("car-1")).extracting(Reservation::getId)
+            .containsExactly(running.getId());
+        assertThat(reservationRepository.findByCarId("car-1")).extracting(Reservation::getId)
+            .containsExactlyInAnyOrder(endedLater.getId(), running.getId());
+        assertThat(reservationRepository.completeEndedBy(baseTime.plusDays(8), 10)).extracting(Reservation::getId)
+            .containsExactly(running.getId());
+    }
+
+    @Test
+    void cancelIfActive_ShouldTakeEffectOnlyOnce() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", "john@example.com", baseTime, 2));
+
+        // When
+        Optional<Reservation> first = reservationRepository.cancelIfActive(reservation.getId());
+        Optional<Reservation> second = reservationRepository.cancelIfActive(reservation.getId());
+
+        // Then
+        assertThat(first).hasValueSatisfying(
+            cancelled -> assertThat(cancelled.getStatus()).isEqualTo(ReservationStatus.CANCELLED));
+        assertThat(second).isEmpty();
+        assertThat(reservationRepository.cancelIfActive("missing")).isEmpty();
+        assertThat(reservationRepository.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void save_ShouldRestorePreviousState_WhenJournalWriteFails() {
+        // Given
+        FailingJournal<Reservation> journal = new FailingJournal<>();
+        journal.failing = false;
+        OffHeapReservationRepository failing = new OffHeapReservationRepository(journal);
+        Reservation stored = failing.save(reservation("car-1", "john@example.com", baseTime, 2));
+        Reservation moved = failing.findById(stored.getId()).orElseThrow();
+        moved.setStartDateTime(baseTime.plusDays(5));
+        journal.failing = true;
+
+        // When / Then
+        assertThatThrownBy(() -> failing.save(moved)).isInstanceOf(UncheckedIOException.class);
+        assertThat(failing.findById(stored.getId())).contains(stored);
+        assertThat(failing.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(1)))
+            .containsExactly(stored);
+    }
+
+    @Test
+    void cancelIfActive_ShouldMoveRowOutOfListOverlapChecksScan() {
+        // Given
+        Reservation cancelled = reservationRepository.save(reservation("car-1", "john@example.com", baseTime, 2));
+        reservationRepository.cancelIfActive(cancelled.getId());
+
+        // When
+        Optional<Reservation> rebooked = reservationRepository.reserveIfFree(
+            reservation("car-1", "jane@example.com", baseTime, 2));
+
+        // Then
+        assertThat(rebooked).isPresent();
+        assertThat(reservationRepository.findActiveReservationsForCar("car-1")).containsExactly(rebooked.get());
+        assertThat(reservationRepository.findByCarId("car-1")).extracting(Reservation::getId)
+            .containsExactlyInAnyOrder(cancelled.getId(), rebooked.get().getId());
+        assertThat(reservationRepository.indexSizes()).containsEntry("cars", 1).containsEntry("inactive_cars", 1);
+    }
+
+    @Test
+    void reserveIfFree_ShouldAdmitOneOfConcurrentBookingsOfSameCar() throws InterruptedException {
+        // Given
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            String carId = "car-" + (i % 2);
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    reservationRepository.reserveIfFree(reservation(carId, "john@example.com", baseTime, 2))
+                        .ifPresent(reservation -> booked.incrementAndGet());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // When
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        // Then
+        assertThat(booked.get()).isEqualTo(2);
+        assertThat(reservationRepository.findActiveReservationsForCar("car-0")).hasSize(1);
+        assertThat(reservationRepository.findActiveReservationsForCar("car-1")).hasSize(1);
+    }
+
+    private Reservation reservation(String carId, String customerEmail, LocalDateTime start, int durationDays) {
+        return Reservation.builder()
+            .carId(carId)
+            .customerName("John Doe")
+            .customerEmail(customerEmail)
+            .startDateTime(start)
+            .durationDays(durationDays)
+            .totalCost(50.0 * durationDays)
+            .build();
+    }
+}
@@ -0,0 +1,484 @@
+package com.rental.repository;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReservationRepositoryTest {
+
+    private ReservationRepositoryImpl reservationRepository;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = new ReservationRepositoryImpl();
+        baseTime = LocalDateTime.of(2030, 1, 10, 10, 0);
+    }
+
+    @Test
+    void save_ShouldPersistReservation() {
+        // Given
+        Reservation reservation = reservation("car-1", baseTime, 3);
+
+        // When
+        Reservation saved = reservationRepository.save(reservation);
+
+        // Then
+        assertThat(saved.getId()).isNotNull();
+        assertThat(reservationRepository.findById(saved.getId())).isPresent();
+    }
+
+    @Test
+    void save_ShouldAssignIdAndCreationTime_WhenReservationWasNotBuilt() {
+        // Given
+        Reservation reservation = new Reservation();
+        reservation.setCarId("car-1");
+        reservation.setStartDateTime(baseTime);
+        reservation.setDurationDays(1);
+
+        // When
+        Reservation saved = reservationRepository.save(reservation);
+
+        // Then
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getCreatedAt()).isNotNull();
+        assertThat(reservationRepository.findById(saved.getId())).contains(saved);
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldReturnOnlyOverlappingReservationsOfCar() {
+        // Given
+        Reservation early = reservationRepository.save(reservation("car-1", baseTime, 2));
+        Reservation middle = reservationRepository.save(reservation("car-1", baseTime.plusDays(5), 3));
+        Reservation late = reservationRepository.save(reservation("car-1", baseTime.plusDays(20), 1));
+        reservationRepository.save(reservation("car-2", baseTime.plusDays(5), 3));
+
+        // When
+        List<Reservation> overlapping = reservationRepository.findOverlappingReservations(
+            "car-1", baseTime.plusDays(1), baseTime.plusDays(6));
+
+        // Then
+        assertThat(overlapping).extracting(Reservation::getId)
+            .containsExactlyInAnyOrder(early.getId(), middle.getId())
+            .doesNotContain(late.getId());
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldFindLongReservationStartingWellBeforePeriod() {
+        // Given
+        Reservation longRental = reservationRepository.save(reservation("car-1", baseTime, 60));
+        reservationRepository.save(reservation("car-1", baseTime.plusDays(70), 1));
+
+        // When
+        List<Reservation> overlapping = reservationRepository.findOverlappingReservations(
+            "car-1", baseTime.plusDays(40), baseTime.plusDays(41));
+
+        // Then
+        assertThat(overlapping).extracting(Reservation::getId).containsExactly(longRental.getId());
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldTreatAdjacentReservationsAsFree() {
+        // Given
+        reservationRepository.save(reservation("car-1", baseTime, 2));
+
+        // When
+        List<Reservation> overlapping = reservationRepository.findOverlappingReservations(
+            "car-1", baseTime.plusDays(2), baseTime.plusDays(4));
+
+        // Then
+        assertThat(overlapping).isEmpty();
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldTreatPeriodEndingWithinStartMinuteAsOverlap() {
+        // Given
+        reservationRepository.save(reservation("car-1", baseTime, 2));
+
+        // When
+        List<Reservation> overlapping = reservationRepository.findOverlappingReservations(
+            "car-1", baseTime.minusDays(1), baseTime.plusSeconds(30));
+
+        // Then
+        assertThat(overlapping).hasSize(1);
+    }
+
+    @Test
+    void findFreeGap_ShouldReturnGapBetweenNeighbouringActiveReservations() {
+        // Given
+        Reservation before = reservationRepository.save(reservation("car-1", baseTime, 2));
+        Reservation after = reservationRepository.save(reservation("car-1", baseTime.plusDays(10), 2));
+        Reservation cancelled = reservation("car-1", baseTime.plusDays(6), 2);
+        cancelled.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(cancelled);
+
+        // When
+        Optional<FreeGap> gap = reservationRepository.findFreeGap("car-1", baseTime.plusDays(4), baseTime.plusDays(5));
+
+        // Then
+        assertThat(gap).contains(new FreeGap(before.getEndMinute(), after.getStartMinute()));
+        assertThat(reservationRepository.findFreeGap("car-1", baseTime.plusDays(11), baseTime.plusDays(13))).isEmpty();
+        assertThat(reservationRepository.findFreeGap("car-1", baseTime.plusDays(12), baseTime.plusDays(13)))
+            .hasValueSatisfying(open -> assertThat(open.isBoundedAfter()).isFalse());
+        assertThat(reservationRepository.findFreeGap("car-2", baseTime, baseTime.plusDays(1))).contains(FreeGap.UNBOUNDED);
+    }
+
+    @Test
+    void save_ShouldKeepStartAndEndAsEpochMinutes() {
+        // Given
+        Reservation reservation = reservation("car-1", baseTime.plusSeconds(45), 2);
+
+        // When
+        reservation.setDurationDays(3);
+
+        // Then
+        assertThat(reservation.getStartDateTime()).isEqualTo(baseTime);
+        assertThat(reservation.getEndMinute() - reservation.getStartMinute()).isEqualTo(3 * Reservation.MINUTES_PER_DAY);
+        assertThat(reservation.getEndDateTime()).isEqualTo(baseTime.plusDays(3));
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldIgnoreCancelledReservations() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", baseTime, 3));
+
+        // When
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+
+        // Then
+        assertThat(reservationRepository.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(1)))
+            .isEmpty();
+        assertThat(reservationRepository.findActiveReservationsForCar("car-1")).isEmpty();
+    }
+
+    @Test
+    void findOverlappingReservations_ShouldReflectRescheduledReservation() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", baseTime, 2));
+
+        // When
+        reservation.setStartDateTime(baseTime.plusDays(10));
+        reservationRepository.save(reservation);
+
+        // Then
+        assertThat(reservationRepository.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(2)))
+            .isEmpty();
+        assertThat(reservationRepository.findOverlappingReservations(
+            "car-1", baseTime.plusDays(10), baseTime.plusDays(11)))
+            .extracting(Reservation::getId)
+            .containsExactly(reservation.getId());
+    }
+
+    @Test
+    void reserveIfFree_ShouldSave_WhenCarIsFree() {
+        // Given
+        reservationRepository.save(reservation("car-1", baseTime, 2));
+
+        // When
+        Optional<Reservation> reserved = reservationRepository.reserveIfFree(
+            reservation("car-1", baseTime.plusDays(2), 2));
+
+        // Then
+        assertThat(reserved).isPresent();
+        assertThat(reservationRepository.findById(reserved.get().getId())).isPresent();
+    }
+
+    @Test
+    void reserveIfFree_ShouldRejectOverlappingReservation() {
+        // Given
+        reservationRepository.save(reservation("car-1", baseTime, 3));
+        Reservation conflicting = reservation("car-1", baseTime.plusDays(1), 1);
+
+        // When
+        Optional<Reservation> reserved = reservationRepository.reserveIfFree(conflicting);
+
+        // Then
+        assertThat(reserved).isEmpty();
+        assertThat(reservationRepository.findAll()).hasSize(1);
+    }
+
+    @Test
+    void reserveAllIfFree_ShouldSaveWholeBatch_WhenEveryCarIsFree() {
+        // Given
+        List<Reservation> batch = List.of(
+            reservation("car-1", baseTime, 2),
+            reservation("car-1", baseTime.plusDays(2), 2),
+            reservation("car-2", baseTime, 2));
+
+        // When
+        Optional<List<Reservation>> reserved = reservationRepository.reserveAllIfFree(batch);
+
+        // Then
+        assertThat(reserved).isPresent();
+        assertThat(reservationRepository.findAll()).hasSize(3);
+        assertThat(reservationRepository.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(4))).hasSize(2);
+    }
+
+    @Test
+    void reserveAllIfFree_ShouldRejectWholeBatch_WhenOneCarIsTaken() {
+        // Given
+        reservationRepository.save(reservation("car-2", baseTime.plusDays(1), 1));
+        List<Reservation> batch = List.of(
+            reservation("car-1", baseTime, 2),
+            reservation("car-2", baseTime, 2));
+
+        // When
+        Optional<List<Reservation>> reserved = reservationRepository.reserveAllIfFree(batch);
+
+        // Then
+        assertThat(reserved).isEmpty();
+        assertThat(reservationRepository.findAll()).hasSize(1);
+        assertThat(reservationRepository.findByCarId("car-1")).isEmpty();
+    }
+
+    @Test
+    void reserveAllIfFree_ShouldRejectBatchOverlappingItself() {
+        // Given
+        List<Reservation> batch = List.of(
+            reservation("car-1", baseTime, 2),
+            reservation("car-1", baseTime.plusDays(1), 2));
+
+        // When
+        Optional<List<Reservation>> reserved = reservationRepository.reserveAllIfFree(batch);
+
+        // Then
+        assertThat(reserved).isEmpty();
+        assertThat(reservationRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void deleteById_ShouldRemoveReservationFromOverlapQueries() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", baseTime, 3));
+
+        // When
+        reservationRepository.deleteById(reservation.getId());
+
+        // Then
+        assertThat(reservationRepository.findById(reservation.getId())).isEmpty();
+        assertThat(reservationRepository.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(3)))
+            .isEmpty();
+    }
+
+    @Test
+    void findActiveReservationsForCar_ShouldReturnOnlyActiveReservations() {
+        // Given
+        Reservation active = reservationRepository.save(reservation("car-1", baseTime, 1));
+        Reservation completed = reservation("car-1", baseTime.plusDays(3), 1);
+        completed.setStatus(ReservationStatus.COMPLETED);
+        reservationRepository.save(completed);
+
+        // When
+        List<Reservation> activeReservations = reservationRepository.findActiveReservationsForCar("car-1");
+
+        // Then
+        assertThat(activeReservations).extracting(Reservation::getId).containsExactly(active.getId());
+    }
+
+    @Test
+    void findByCustomerEmail_ShouldReturnOnlyCustomerReservations() {
+        // Given
+        Reservation johns = reservationRepository.save(reservation("car-1", baseTime, 1));
+        Reservation annas = reservation("car-2", baseTime, 1);
+        annas.setCustomerEmail("anna@example.com");
+        reservationRepository.save(annas);
+
+        // When
+        List<Reservation> found = reservationRepository.findByCustomerEmail("john@example.com");
+
+        // Then
+        assertThat(found).extracting(Reservation::getId).containsExactly(johns.getId());
+        assertThat(reservationRepository.findByCustomerEmail("nobody@example.com")).isEmpty();
+    }
+
+    @Test
+    void findByCustomerEmail_ShouldFollowEmailChange() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", baseTime, 1));
+
+        // When
+        reservation.setCustomerEmail("john.doe@example.com");
+        reservationRepository.save(reservation);
+
+        // Then
+        assertThat(reservationRepository.findByCustomerEmail("john@example.com")).isEmpty();
+        assertThat(reservationRepository.findByCustomerEmail("john.doe@example.com"))
+            .extracting(Reservation::getId)
+            .containsExactly(reservation.getId());
+    }
+
+    @Test
+    void findByStatus_ShouldFollowStatusChange() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", baseTime, 1));
+        reservationRepository.save(reservation("car-2", baseTime, 1));
+
+        // When
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+
+        // Then
+        assertThat(reservationRepository.findByStatus(ReservationStatus.ACTIVE)).hasSize(1);
+        assertThat(reservationRepository.findByStatus(ReservationStatus.CANCELLED))
+            .extracting(Reservation::getId)
+            .containsExactly(reservation.getId());
+        assertThat(reservationRepository.findByStatus(ReservationStatus.COMPLETED)).isEmpty();
+    }
+
+    @Test
+    void findByCarId_ShouldForgetDeletedReservations() {
+        // Given
+        Reservation kept = reservationRepository.save(reservation("car-1", baseTime, 1));
+        Reservation deleted = reservationRepository.save(reservation("car-1", baseTime.plusDays(2), 1));
+
+        // When
+        reservationRepository.deleteById(deleted.getId());
+
+        // Then
+        assertThat(reservationRepository.findByCarId("car-1"))
+            .extracting(Reservation::getId)
+            .containsExactly(kept.getId());
+        assertThat(reservationRepository.findByStatus(ReservationStatus.ACTIVE)).hasSize(1);
+    }
+
+    @Test
+    void findCustomerTimeline_ShouldPageNewestFirst_WhenCreationTimesTie() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            Reservation reservation = reservation("car-" + i, baseTime, 1);
+            reservation.setId("res-" + i);
+            reservation.setCreatedAt(baseTime.minusDays(i / 2));
+            reservationRepository.save(reservation);
+        }
+
+        // When
+        List<Reservation> firstPage = reservationRepository.findCustomerTimeline("john@example.com", null, 2);
+        List<Reservation> secondPage = reservationRepository.findCustomerTimeline(
+            "john@example.com", TimelineCursor.of(firstPage.get(1)), 2);
+        List<Reservation> lastPage = reservationRepository.findCustomerTimeline(
+            "john@example.com", TimelineCursor.of(secondPage.get(1)), 2);
+
+        // Then
+        assertThat(firstPage).extracting(Reservation::getId).containsExactly("res-1", "res-0");
+        assertThat(secondPage).extracting(Reservation::getId).containsExactly("res-3", "res-2");
+        assertThat(lastPage).extracting(Reservation::getId).containsExactly("res-4");
+    }
+
+    @Test
+    void findCustomerTimeline_ShouldMoveReservation_WhenCreationTimeChanges() {
+        // Given
+        Reservation older = reservation("car-1", baseTime, 1);
+        older.setCreatedAt(baseTime.minusDays(2));
+        reservationRepository.save(older);
+        Reservation newer = reservation("car-2", baseTime, 1);
+        newer.setCreatedAt(baseTime.minusDays(1));
+        reservationRepository.save(newer);
+
+        // When
+        older.setCreatedAt(baseTime);
+        reservationRepository.save(older);
+
+        // Then
+        assertThat(reservationRepository.findByCustomerEmail("john@example.com"))
+            .extracting(Reservation::getId)
+            .containsExactly(older.getId(), newer.getId());
+    }
+
+    @Test
+    void completeEndedBy_ShouldCompleteEndedReservationsEarliestFirstAndMoveThemToHistory() {
+        // Given
+        Reservation endedLater = reservationRepository.save(reservation("car-1", baseTime.plusDays(2), 1));
+        Reservation endedFirst = reservationRepository.save(reservation("car-2", baseTime, 1));
+        Reservation running = reservationRepository.save(reservation("car-1", baseTime.plusDays(4), 3));
+        Reservation cancelled = reservation("car-3", baseTime, 1);
+        cancelled.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(cancelled);
+
+        // When
+        List<Reservation> firstBatch = reservationRepository.completeEndedBy(baseTime.plusDays(5), 1);
+        List<Reservation> secondBatch = reservationRepository.completeEndedBy(baseTime.plusDays(5), 10);
+
+        // Then
+        assertThat(firstBatch).containsExactly(endedFirst);
+        assertThat(secondBatch).containsExactly(endedLater);
+        assertThat(reservationRepository.completeEndedBy(baseTime.plusDays(5), 10)).isEmpty();
+        assertThat(endedLater.getStatus()).isEqualTo(ReservationStatus.COMPLETED);
+        assertThat(running.getStatus()).isEqualTo(ReservationStatus.ACTIVE);
+        assertThat(reservationRepository.findActiveReservationsForCar("car-1")).containsExactly(running);
+        assertThat(reservationRepository.findById(endedLater.getId())).contains(endedLater);
+        assertThat(reservationRepository.findByCarId("car-1")).containsExactlyInAnyOrder(endedLater, running);
+        assertThat(reservationRepository.findByStatus(ReservationStatus.COMPLETED)).containsExactlyInAnyOrder(endedFirst, endedLater);
+        assertThat(reservationRepository.count()).isEqualTo(4);
+        assertThat(reservationRepository.indexSizes()).containsEntry("history", 2).containsEntry("expiry", 1);
+    }
+
+    @Test
+    void scanStartingBetween_ShouldCoverBothTiersWithinRange() {
+        // Given
+        Reservation completed = reservationRepository.save(reservation("car-1", baseTime, 1));
+        Reservation active = reservationRepository.save(reservation("car-2", baseTime.plusDays(3), 1));
+        reservationRepository.save(reservation("car-3", baseTime.minusMinutes(1), 1));
+        reservationRepository.save(reservation("car-4", baseTime.plusDays(7), 1));
+        reservationRepository.completeEndedBy(baseTime.plusDays(2), 10);
+
+        // When
+        List<Reservation> scanned = new ArrayList<>();
+        reservationRepository.scanStartingBetween(baseTime, baseTime.plusDays(7)).forEachRemaining(scanned::add);
+
+        // Then
+        assertThat(completed.getStatus()).isEqualTo(ReservationStatus.COMPLETED);
+        assertThat(scanned).containsExactlyInAnyOrder(completed, active);
+    }
+
+    @Test
+    void cancelIfActive_ShouldTakeEffectOnlyOnce() {
+        // Given
+        Reservation reservation = reservationRepository.save(reservation("car-1", baseTime, 2));
+
+        // When
+        Optional<Reservation> first = reservationRepository.cancelIfActive(reservation.getId());
+        Optional<Reservation> second = reservationRepository.cancelIfActive(reservation.getId());
+
+        // Then
+        assertThat(first).hasValueSatisfying(
+            cancelled -> assertThat(cancelled.getStatus()).isEqualTo(ReservationStatus.CANCELLED));
+        assertThat(second).isEmpty();
+        assertThat(reservationRepository.cancelIfActive("missing")).isEmpty();
+        assertThat(reservationRepository.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(2))).isEmpty();
+    }
+
+    @Test
+    void reserveIfFree_ShouldRollBack_WhenJournalWriteFails() {
+        // Given
+        ReservationRepositoryImpl failing = new ReservationRepositoryImpl(new FailingJournal<>());
+        Reservation reservation = reservation("car-1", baseTime, 2);
+
+        // When / Then
+        assertThatThrownBy(() -> failing.reserveIfFree(reservation))
+            .isInstanceOf(UncheckedIOException.class);
+        assertThat(failing.findById(reservation.getId())).isEmpty();
+        assertThat(failing.findOverlappingReservations("car-1", baseTime, baseTime.plusDays(2))).isEmpty();
+        assertThat(failing.count()).isZero();
+    }
+
+    private Reservation reservation(String carId, LocalDateTime start, int durationDays) {
+        return Reservation.builder()
+            .carId(carId)
+            .customerName("John Doe")
+            .customerEmail("john@example.com")
+            .startDateTime(start)
+            .durationDays(durationDays)
+            .totalCost(50.0 * durationDays)
+            .build();
+    }
+}
@@ -0,0 +1,257 @@
+package com.rental.service;
+
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.ReservationRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AvailabilityCalendarTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private ReservationRepositoryImpl reservationRepository;
+    private AvailabilityCalendar calendar;
+    private Car sedan1;
+    private Car sedan2;
+    private List<Car> sedans;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = new ReservationRepositoryImpl();
+        calendar = new AvailabilityCalendar(reservationRepository, 30,
+            Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        sedan1 = Car.builder().id("sedan-1").carType(CarType.SEDAN).build();
+        sedan2 = Car.builder().id("sedan-2").carType(CarType.SEDAN).build();
+        sedans = List.of(sedan1, sedan2);
+    }
+
+    @Test
+    void countAvailable_ShouldReturnWholeFleet_WhenNothingIsBooked() {
+        // When
+        long available = calendar.countAvailable(CarType.SEDAN, sedans, NOW.plusDays(1), NOW.plusDays(3));
+
+        // Then
+        assertThat(available).isEqualTo(2);
+    }
+
+    @Test
+    void countAvailable_ShouldExcludeBookedCar() {
+        // Given
+        book(sedan1, NOW.plusDays(1), 3);
+
+        // When
+        long overlapping = calendar.countAvailable(CarType.SEDAN, sedans, NOW.plusDays(2), NOW.plusDays(5));
+        long afterwards = calendar.countAvailable(CarType.SEDAN, sedans, NOW.plusDays(4), NOW.plusDays(5));
+
+        // Then
+        assertThat(overlapping).isEqualTo(1);
+        assertThat(afterwards).isEqualTo(2);
+    }
+
+    @Test
+    void countAvailable_ShouldResolvePartialHoursExactly() {
+        // Given
+        book(sedan1, NOW.plusDays(1).withMinute(30), 1);
+
+        // When
+        long endingBeforeBooking = calendar.countAvailable(CarType.SEDAN, sedans,
+            NOW.plusDays(1).minusHours(1), NOW.plusDays(1).withMinute(30));
+        long endingInsideBooking = calendar.countAvailable(CarType.SEDAN, sedans,
+            NOW.plusDays(1).minusHours(1), NOW.plusDays(1).withMinute(45));
+
+        // Then
+        assertThat(endingBeforeBooking).isEqualTo(2);
+        assertThat(endingInsideBooking).isEqualTo(1);
+    }
+
+    @Test
+    void release_ShouldFreeCarButKeepAdjacentBookingInSharedHour() {
+        // Given
+        Reservation first = book(sedan1, NOW.plusDays(1).withMinute(30), 1);
+        book(sedan1, NOW.plusDays(2).withMinute(30), 1);
+
+        // When
+        cancel(first);
+
+        // Then
+        assertThat(calendar.countAvailable(CarType.SEDAN, sedans, NOW.plusDays(1), NOW.plusDays(2)))
+            .isEqualTo(2);
+        assertThat(calendar.countAvailable(CarType.SEDAN, sedans,
+            NOW.plusDays(2).withMinute(40), NOW.plusDays(2).plusHours(1)))
+            .isEqualTo(1);
+    }
+
+    @Test
+    void countAvailable_ShouldFallBackToRepository_BeyondHorizon() {
+        // Given
+        book(sedan2, NOW.plusDays(40), 2);
+
+        // When
+        long available = calendar.countAvailable(CarType.SEDAN, sedans, NOW.plusDays(41), NOW.plusDays(42));
+
+        // Then
+        assertThat(available).isEqualTo(1);
+    }
+
+    @Test
+    void countAvailable_ShouldMatchRepository_ForRandomBookings() {
+        // Given
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            Car car = sedans.get(random.nextInt(sedans.size()));
+            LocalDateTime start = NOW.plusMinutes(random.nextInt(60 * 24 * 25));
+            if (reservationRepository.findOverlappingReservations(car.getId(), start, start.plusDays(1)).isEmpty()) {
+                Reservation reservation = book(car, start, 1);
+                if (random.nextInt(4) == 0) {
+                    cancel(reservation);
+                }
+            }
+        }
+
+        // When & Then
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = NOW.plusMinutes(random.nextInt(60 * 24 * 28));
+            LocalDateTime end = start.plusMinutes(1 + random.nextInt(60 * 24 * 3));
+            long expected = sedans.stream()
+                .filter(car -> reservationRepository.findOverlappingReservations(car.getId(), start, end).isEmpty())
+                .count();
+            assertThat(calendar.countAvailable(CarType.SEDAN, sedans, start, end))
+                .as("availability between %s and %s", start, end)
+                .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void countAvailable_ShouldPickUpBookingsExposedByRollingWindow() {
+        // Given
+        MovableClock clock = new MovableClock(NOW);
+        calendar = new AvailabilityCalendar(reservationRepository, 30, clock);
+        book(sedan1, NOW.plusDays(29), 4);
+        book(sedan2, NOW.minusDays(1), 2);
+
+        // When
+        clock.now = NOW.plusDays(5);
+        long available = calendar.countAvailable(CarType.SEDAN, sedans, NOW.plusDays(31), NOW.plusDays(32));
+
+        // Then
+        assertThat(available).isEqualTo(1);
+    }
+
+    @Test
+    void countAvailablePerDay_ShouldCountCarOncePerDay_WhenBookingsShareDay() {
+        // Given
+        LocalDate today = NOW.toLocalDate();
+        book(sedan1, NOW.plusDays(1), 1);
+        book(sedan1, NOW.plusDays(2).plusHours(2), 1);
+
+        // When
+        long[] available = calendar.countAvailablePerDay(CarType.SEDAN, 2, today.plusDays(1), today.plusDays(5));
+
+        // Then
+        assertThat(available).containsExactly(1, 1, 1, 2);
+    }
+
+    @Test
+    void countAvailablePerDay_ShouldMatchRepository_ForRandomBookings() {
+        // Given
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            Car car = sedans.get(random.nextInt(sedans.size()));
+            LocalDateTime start = NOW.plusMinutes(random.nextInt(60 * 24 * 25));
+            if (reservationRepository.findOverlappingReservations(car.getId(), start, start.plusDays(1)).isEmpty()) {
+                Reservation reservation = book(car, start, 1);
+                if (random.nextInt(4) == 0) {
+                    cancel(reservation);
+                }
+            }
+        }
+
+        // When
+        LocalDate today = NOW.toLocalDate();
+        long[] available = calendar.countAvailablePerDay(CarType.SEDAN, sedans.size(), today, today.plusDays(30));
+
+        // Then
+        for (int day = 0; day < available.length; day++) {
+            LocalDateTime dayStart = today.plusDays(day).atStartOfDay();
+            long expected = sedans.stream()
+                .filter(car -> reservationRepository.findOverlappingReservations(car.getId(), dayStart, dayStart.plusDays(1)).isEmpty())
+                .count();
+            assertThat(available[day]).as("availability on %s", dayStart.toLocalDate()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void countAvailablePerDay_ShouldFollowRollingWindow() {
+        // Given
+        MovableClock clock = new MovableClock(NOW);
+        calendar = new AvailabilityCalendar(reservationRepository, 30, clock);
+        book(sedan1, NOW.plusDays(10), 1);
+        book(sedan2, NOW.plusDays(29), 4);
+
+        // When
+        clock.now = NOW.plusDays(5);
+        LocalDate today = clock.now.toLocalDate();
+        long[] available = calendar.countAvailablePerDay(CarType.SEDAN, 2, today.plusDays(5), today.plusDays(7));
+        long[] exposed = calendar.countAvailablePerDay(CarType.SEDAN, 2, today.plusDays(26), today.plusDays(28));
+
+        // Then
+        assertThat(available).containsExactly(1, 1);
+        assertThat(exposed).containsExactly(1, 1);
+        assertThatThrownBy(() -> calendar.countAvailablePerDay(CarType.SEDAN, 2, today.minusDays(1), today))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Reservation book(Car car, LocalDateTime start, int durationDays) {
+        Reservation reservation = reservationRepository.save(Reservation.builder()
+            .carId(car.getId())
+            .startDateTime(start)
+            .durationDays(durationDays)
+            .build());
+        calendar.markBooked(car, reservation);
+        return reservation;
+    }
+
+    private void cancel(Reservation reservation) {
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+        calendar.release(reservation);
+    }
+
+    private static final class MovableClock extends Clock {
+
+        private LocalDateTime now;
+
+        private MovableClock(LocalDateTime now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now.toInstant(ZoneOffset.UTC);
+        }
+    }
+}
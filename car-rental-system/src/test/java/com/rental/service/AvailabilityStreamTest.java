@@ -0,0 +1,157 @@
+package com.rental.service;
+
+import com.rental.dto.AvailabilityUpdate;
+import com.rental.exception.InvalidReservationException;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.CarRepository;
+import com.rental.repository.ReservationRepositoryImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AvailabilityStreamTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private ReservationRepositoryImpl reservationRepository;
+    private AvailabilityCalendar calendar;
+    private AvailabilityStream stream;
+    private Car sedan1;
+    private Car sedan2;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = new ReservationRepositoryImpl();
+        calendar = new AvailabilityCalendar(reservationRepository, 30,
+            Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        sedan1 = Car.builder().id("sedan-1").carType(CarType.SEDAN).build();
+        sedan2 = Car.builder().id("sedan-2").carType(CarType.SEDAN).build();
+        CarRepository carRepository = mock(CarRepository.class);
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(sedan1, sedan2));
+        stream = new AvailabilityStream(calendar, carRepository, AvailabilityStream.deliveryExecutor(1),
+            Duration.ofMillis(50));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+    }
+
+    @Test
+    void subscribe_ShouldPublishCurrentCountThenCoalescedChanges() throws InterruptedException {
+        // Given
+        BlockingQueue<AvailabilityUpdate> updates = new LinkedBlockingQueue<>();
+        stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(3), updates::add);
+        assertThat(updates.poll(5, TimeUnit.SECONDS).getAvailable()).isEqualTo(2);
+
+        // When
+        Reservation booked = book(sedan1, NOW.plusDays(2), 2);
+        book(sedan2, NOW.plusDays(10), 1);
+        int firstRound = stream.publishChanges();
+        AvailabilityUpdate taken = updates.poll(5, TimeUnit.SECONDS);
+        release(booked);
+        int secondRound = stream.publishChanges();
+        AvailabilityUpdate freed = updates.poll(5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(firstRound).isEqualTo(1);
+        assertThat(secondRound).isEqualTo(1);
+        assertThat(taken.getAvailable()).isEqualTo(1);
+        assertThat(taken.getChange()).isEqualTo(-1);
+        assertThat(freed.getAvailable()).isEqualTo(2);
+        assertThat(freed.getChange()).isEqualTo(1);
+        assertThat(stream.publishChanges()).isZero();
+    }
+
+    @Test
+    void subscribe_ShouldShareWindowBetweenSubscribersUntilLastOneCloses() {
+        // Given
+        AvailabilityStream.Subscription first = stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(3), update -> { });
+        AvailabilityStream.Subscription second = stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(3), update -> { });
+        stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(4), update -> { });
+
+        // When
+        first.close();
+        first.close();
+
+        // Then
+        assertThat(stream.windowCount()).isEqualTo(2);
+        assertThat(stream.subscriberCount()).isEqualTo(2);
+        second.close();
+        assertThat(stream.windowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void dropStalledSubscribers_ShouldDropBlockedListenerAndKeepDeliveringToOthers() throws InterruptedException {
+        // Given
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        AtomicBoolean dropped = new AtomicBoolean();
+        stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(3), update -> {
+            blocked.countDown();
+            while (unblock.getCount() > 0) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    // a client socket that ignores interrupts
+                }
+            }
+        }, () -> dropped.set(true));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        BlockingQueue<AvailabilityUpdate> updates = new LinkedBlockingQueue<>();
+        stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(4), updates::add);
+
+        // When
+        Thread.sleep(100);
+        int droppedCount = stream.dropStalledSubscribers();
+
+        // Then
+        try {
+            assertThat(droppedCount).isEqualTo(1);
+            assertThat(dropped).isTrue();
+            assertThat(updates.poll(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(stream.subscriberCount()).isEqualTo(1);
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    @Test
+    void subscribe_ShouldThrowException_WhenWindowIsEmpty() {
+        assertThatThrownBy(() -> stream.subscribe(CarType.SEDAN, NOW.plusDays(1), NOW.plusDays(1), update -> { }))
+            .isInstanceOf(InvalidReservationException.class);
+    }
+
+    private Reservation book(Car car, LocalDateTime start, int durationDays) {
+        Reservation reservation = reservationRepository.save(Reservation.builder()
+            .carId(car.getId())
+            .startDateTime(start)
+            .durationDays(durationDays)
+            .build());
+        calendar.markBooked(car, reservation);
+        return reservation;
+    }
+
+    private void release(Reservation reservation) {
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+        calendar.release(reservation);
+    }
+}
@@ -0,0 +1,76 @@
+package com.rental.service;
+
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.repository.ReservationRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BestFitAllocationStrategyTest {
+
+    private final BestFitAllocationStrategy strategy = new BestFitAllocationStrategy();
+    private ReservationRepositoryImpl reservationRepository;
+    private LocalDateTime baseTime;
+    private Car openCar;
+    private Car wideGapCar;
+    private Car tightGapCar;
+    private Car bookedCar;
+
+    @BeforeEach
+    void setUp() {
+        reservationRepository = new ReservationRepositoryImpl();
+        baseTime = LocalDateTime.of(2030, 1, 10, 10, 0);
+        openCar = car("car-open");
+        wideGapCar = car("car-wide");
+        tightGapCar = car("car-tight");
+        bookedCar = car("car-booked");
+
+        reservationRepository.save(reservation(wideGapCar, baseTime.minusDays(10), 2));
+        reservationRepository.save(reservation(wideGapCar, baseTime.plusDays(20), 2));
+        reservationRepository.save(reservation(tightGapCar, baseTime.minusDays(1), 1));
+        reservationRepository.save(reservation(tightGapCar, baseTime.plusDays(4), 2));
+        reservationRepository.save(reservation(bookedCar, baseTime.plusDays(1), 1));
+    }
+
+    @Test
+    void rank_ShouldPreferTightestGapAndDropBookedCars() {
+        // When
+        List<Car> ranked = strategy.rank(List.of(openCar, wideGapCar, bookedCar, tightGapCar),
+            baseTime, baseTime.plusDays(3), reservationRepository);
+
+        // Then
+        assertThat(ranked).containsExactly(tightGapCar, wideGapCar, openCar);
+    }
+
+    @Test
+    void rank_ShouldPreferCarBookedRightBeforeStart_WhenNoGapIsBounded() {
+        // Given
+        Car followUpCar = car("car-follow-up");
+        reservationRepository.save(reservation(followUpCar, baseTime.minusDays(2), 2));
+
+        // When
+        List<Car> ranked = strategy.rank(List.of(openCar, followUpCar), baseTime, baseTime.plusDays(3), reservationRepository);
+
+        // Then
+        assertThat(ranked).containsExactly(followUpCar, openCar);
+    }
+
+    private static Car car(String id) {
+        return Car.builder().id(id).licensePlate(id).carType(CarType.SEDAN).build();
+    }
+
+    private static Reservation reservation(Car car, LocalDateTime start, int durationDays) {
+        return Reservation.builder()
+            .carId(car.getId())
+            .customerEmail("best-fit@example.com")
+            .startDateTime(start)
+            .durationDays(durationDays)
+            .build();
+    }
+}
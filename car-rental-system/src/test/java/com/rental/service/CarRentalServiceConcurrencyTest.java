@@ -0,0 +1,148 @@
+package com.rental.service;
+
+import com.rental.dto.ReservationRequest;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.metrics.BookingMetrics;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.repository.CarRepositoryImpl;
+import com.rental.repository.ReservationRepositoryImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CarRentalServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int BOOKINGS_PER_THREAD = 200;
+    private static final int FLEET_SIZE = 5;
+
+    private CarRepositoryImpl carRepository;
+    private ReservationRepositoryImpl reservationRepository;
+    private CarRentalServiceImpl carRentalService;
+    private LocalDateTime baseTime;
+
+    @BeforeEach
+    void setUp() {
+        carRepository = new CarRepositoryImpl();
+        reservationRepository = new ReservationRepositoryImpl();
+        carRentalService = new CarRentalServiceImpl(
+            carRepository, reservationRepository, new AvailabilityCalendar(reservationRepository, 400),
+            new ReservationResponseCache(1_000, 60), new BookingMetrics(new SimpleMeterRegistry()),
+            new BestFitAllocationStrategy());
+        baseTime = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            carRepository.save(Car.builder().licensePlate("SEDAN" + i).carType(CarType.SEDAN).build());
+        }
+    }
+
+    @Test
+    void createReservation_ShouldNeverDoubleBookCar_UnderConcurrentLoad() throws Exception {
+        // Given
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // When
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < BOOKINGS_PER_THREAD; i++) {
+                try {
+                    carRentalService.createReservation(request(
+                        baseTime.plusHours(random.nextInt(24 * 60)), 1 + random.nextInt(5)));
+                    booked.incrementAndGet();
+                } catch (CarNotAvailableException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+
+        // Then
+        assertThat(booked.get() + rejected.get()).isEqualTo(THREADS * BOOKINGS_PER_THREAD);
+        assertThat(booked.get()).isPositive();
+        assertThat(reservationRepository.findAll()).hasSize(booked.get());
+        for (Car car : carRepository.findAll()) {
+            assertNoOverlap(reservationRepository.findActiveReservationsForCar(car.getId()));
+        }
+    }
+
+    @Test
+    void createReservation_ShouldBookEachCarOnce_WhenEveryoneWantsSamePeriod() throws Exception {
+        // Given
+        AtomicInteger booked = new AtomicInteger();
+
+        // When
+        runConcurrently(() -> {
+            try {
+                carRentalService.createReservation(request(baseTime, 3));
+                booked.incrementAndGet();
+            } catch (CarNotAvailableException e) {
+                // expected once the fleet is exhausted
+            }
+        });
+
+        // Then
+        assertThat(booked.get()).isEqualTo(FLEET_SIZE);
+        assertThat(reservationRepository.findAll())
+            .extracting(Reservation::getCarId)
+            .doesNotHaveDuplicates();
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertNoOverlap(List<Reservation> reservations) {
+        List<Reservation> sorted = new ArrayList<>(reservations);
+        sorted.sort((a, b) -> a.getStartDateTime().compareTo(b.getStartDateTime()));
+        for (int i = 1; i < sorted.size(); i++) {
+            Reservation previous = sorted.get(i - 1);
+            Reservation current = sorted.get(i);
+            assertThat(current.getStartDateTime())
+                .as("reservation %s overlaps %s", current.getId(), previous.getId())
+                .isAfterOrEqualTo(previous.getEndDateTime());
+        }
+    }
+
+    private ReservationRequest request(LocalDateTime start, int durationDays) {
+        return ReservationRequest.builder()
+            .carType(CarType.SEDAN)
+            .customerName("Load Tester")
+            .customerEmail("load@example.com")
+            .startDateTime(start)
+            .durationDays(durationDays)
+            .build();
+    }
+}
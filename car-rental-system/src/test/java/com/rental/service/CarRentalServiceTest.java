@@ -1,24 +1,31 @@
 package com.rental.service;
 
+import com.rental.dto.ReservationPage;
 import com.rental.dto.ReservationRequest;
 import com.rental.dto.ReservationResponse;
 import com.rental.exception.CarNotAvailableException;
 import com.rental.exception.InvalidReservationException;
+import com.rental.metrics.BookingMetrics;
 import com.rental.model.Car;
 import com.rental.model.CarType;
 import com.rental.model.Reservation;
 import com.rental.model.ReservationStatus;
 import com.rental.repository.CarRepository;
 import com.rental.repository.ReservationRepository;
+import com.rental.repository.TimelineCursor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -27,12 +34,26 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class CarRentalServiceTest {
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @Mock
     private CarRepository carRepository;
 
     @Mock
     private ReservationRepository reservationRepository;
 
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Spy
+    private ReservationResponseCache responseCache = new ReservationResponseCache(100, 60);
+
+    @Spy
+    private BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry);
+
+    @Spy
+    private AllocationStrategy allocationStrategy = new FirstFitAllocationStrategy();
+
     @InjectMocks
     private CarRentalServiceImpl carRentalService;
 
@@ -69,10 +90,10 @@ class CarRentalServiceTest {
         when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
         when(reservationRepository.findOverlappingReservations(eq(testCar.getId()), any(), any()))
             .thenReturn(Collections.emptyList());
-        when(reservationRepository.save(any(Reservation.class))).thenAnswer(invocation -> {
+        when(reservationRepository.reserveIfFree(any(Reservation.class))).thenAnswer(invocation -> {
             Reservation reservation = invocation.getArgument(0);
             reservation.setId("reservation-1");
-            return reservation;
+            return Optional.of(reservation);
         });
 
         // When
@@ -86,7 +107,63 @@ class CarRentalServiceTest {
         assertThat(response.getCustomerName()).isEqualTo("John Doe");
         assertThat(response.getTotalCost()).isEqualTo(150.0); // 3 days * 50.0 daily rate
 
-        verify(reservationRepository).save(any(Reservation.class));
+        verify(reservationRepository).reserveIfFree(any(Reservation.class));
+        verify(availabilityCalendar).markBooked(eq(testCar), any(Reservation.class));
+    }
+
+    @Test
+    void createReservation_ShouldOnlyConsiderCarsOfRequestedBranch() {
+        // Given
+        Car branchCar = Car.builder().id("car-2").branch("airport").licensePlate("DEF456").carType(CarType.SEDAN).build();
+        testRequest.setBranch("airport");
+
+        when(carRepository.findByBranchAndCarType("airport", CarType.SEDAN)).thenReturn(List.of(branchCar));
+        when(reservationRepository.findOverlappingReservations(any(), any(), any()))
+            .thenReturn(Collections.emptyList());
+        when(reservationRepository.reserveIfFree(any(Reservation.class)))
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // When
+        ReservationResponse response = carRentalService.createReservation(testRequest);
+
+        // Then
+        assertThat(response.getCarId()).isEqualTo("car-2");
+        assertThat(response.getBranch()).isEqualTo("airport");
+        verify(carRepository, never()).findByCarType(any());
+    }
+
+    @Test
+    void createReservation_ShouldTryNextCar_WhenCarIsBookedConcurrently() {
+        // Given
+        Car otherCar = Car.builder().id("car-2").licensePlate("DEF456").carType(CarType.SEDAN).build();
+
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar, otherCar));
+        when(reservationRepository.findOverlappingReservations(any(), any(), any()))
+            .thenReturn(Collections.emptyList());
+        when(reservationRepository.reserveIfFree(argThat(r -> r != null && testCar.getId().equals(r.getCarId()))))
+            .thenReturn(Optional.empty());
+        when(reservationRepository.reserveIfFree(argThat(r -> r != null && "car-2".equals(r.getCarId()))))
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // When
+        ReservationResponse response = carRentalService.createReservation(testRequest);
+
+        // Then
+        assertThat(response.getCarId()).isEqualTo("car-2");
+        verify(reservationRepository, times(2)).reserveIfFree(any(Reservation.class));
+    }
+
+    @Test
+    void createReservation_ShouldThrowException_WhenEveryCandidateIsBookedConcurrently() {
+        // Given
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
+        when(reservationRepository.findOverlappingReservations(eq(testCar.getId()), any(), any()))
+            .thenReturn(Collections.emptyList());
+        when(reservationRepository.reserveIfFree(any(Reservation.class))).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> carRentalService.createReservation(testRequest))
+            .isInstanceOf(CarNotAvailableException.class);
     }
 
     @Test
@@ -100,6 +177,28 @@ class CarRentalServiceTest {
             .hasMessageContaining("No Sedan available");
     }
 
+    @Test
+    void createReservation_ShouldRecordStagesAndRejection_WhenEveryCarIsTaken() {
+        // Given
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
+        when(reservationRepository.findOverlappingReservations(eq(testCar.getId()), any(), any()))
+            .thenReturn(List.of(Reservation.builder().carId(testCar.getId()).build()));
+
+        // When
+        assertThatThrownBy(() -> carRentalService.createReservation(testRequest))
+            .isInstanceOf(CarNotAvailableException.class);
+
+        // Then
+        assertThat(meterRegistry.get("rental.booking.rejections").tag("operation", "createReservation")
+            .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rental.booking.duration").tag("operation", "createReservation")
+            .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rental.booking.stage.duration").tag("stage", "overlap_check")
+            .tag("operation", "createReservation").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("rental.booking.stage.duration").tag("stage", "persistence")
+            .tag("operation", "createReservation").timer().count()).isZero();
+    }
+
     @Test
     void createReservation_ShouldThrowException_WhenCarIsAlreadyReserved() {
         // Given
@@ -141,6 +240,93 @@ class CarRentalServiceTest {
             .hasMessageContaining("Duration must be positive");
     }
 
+    @Test
+    void createReservations_ShouldAllocateDistinctCars_ForOverlappingRequests() {
+        // Given
+        Car secondCar = Car.builder().id("car-2").licensePlate("DEF456").carType(CarType.SEDAN).build();
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar, secondCar));
+        when(reservationRepository.findOverlappingReservations(anyString(), any(), any()))
+            .thenReturn(Collections.emptyList());
+        when(reservationRepository.reserveAllIfFree(anyList()))
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // When
+        List<ReservationResponse> responses = carRentalService.createReservations(List.of(testRequest, testRequest));
+
+        // Then
+        assertThat(responses).extracting(ReservationResponse::getCarId).containsExactly("car-1", "car-2");
+        verify(carRepository, times(1)).findByCarType(CarType.SEDAN);
+        verify(reservationRepository, times(1)).reserveAllIfFree(anyList());
+        verify(availabilityCalendar, times(2)).markBooked(any(Car.class), any(Reservation.class));
+    }
+
+    @Test
+    void createReservations_ShouldRankCandidatesOncePerPeriod() {
+        // Given
+        Car secondCar = Car.builder().id("car-2").licensePlate("DEF456").carType(CarType.SEDAN).build();
+        ReservationRequest laterRequest = ReservationRequest.builder()
+            .carType(CarType.SEDAN)
+            .customerName("Jane Doe")
+            .customerEmail("jane@example.com")
+            .startDateTime(futureDateTime.plusDays(30))
+            .durationDays(3)
+            .build();
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar, secondCar));
+        when(reservationRepository.findOverlappingReservations(anyString(), any(), any()))
+            .thenReturn(Collections.emptyList());
+        when(reservationRepository.reserveAllIfFree(anyList()))
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // When
+        List<ReservationResponse> responses = carRentalService.createReservations(
+            List.of(testRequest, laterRequest, testRequest, laterRequest));
+
+        // Then
+        assertThat(responses).extracting(ReservationResponse::getCarId)
+            .containsExactly("car-1", "car-1", "car-2", "car-2");
+        verify(allocationStrategy, times(2)).rank(anyList(), any(), any(), eq(reservationRepository));
+        verify(reservationRepository, times(4)).findOverlappingReservations(anyString(), any(), any());
+    }
+
+    @Test
+    void createReservations_ShouldThrowException_WithoutSaving_WhenOneRequestCannotBeServed() {
+        // Given
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
+        when(reservationRepository.findOverlappingReservations(anyString(), any(), any()))
+            .thenReturn(Collections.emptyList());
+
+        // When & Then
+        assertThatThrownBy(() -> carRentalService.createReservations(List.of(testRequest, testRequest)))
+            .isInstanceOf(CarNotAvailableException.class)
+            .hasMessageContaining("No Sedan available");
+        verify(reservationRepository, never()).reserveAllIfFree(anyList());
+    }
+
+    @Test
+    void createReservations_ShouldRetryAllocation_WhenBatchConflictsWithConcurrentBooking() {
+        // Given
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
+        when(reservationRepository.findOverlappingReservations(anyString(), any(), any()))
+            .thenReturn(Collections.emptyList());
+        when(reservationRepository.reserveAllIfFree(anyList()))
+            .thenReturn(Optional.empty())
+            .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        // When
+        List<ReservationResponse> responses = carRentalService.createReservations(List.of(testRequest));
+
+        // Then
+        assertThat(responses).hasSize(1);
+        verify(reservationRepository, times(2)).reserveAllIfFree(anyList());
+    }
+
+    @Test
+    void createReservations_ShouldThrowException_WhenBatchIsEmpty() {
+        // When & Then
+        assertThatThrownBy(() -> carRentalService.createReservations(List.of()))
+            .isInstanceOf(InvalidReservationException.class);
+    }
+
     @Test
     void getReservation_ShouldReturnReservation_WhenExists() {
         // Given
@@ -186,15 +372,45 @@ class CarRentalServiceTest {
             .status(ReservationStatus.ACTIVE)
             .build();
 
-        when(reservationRepository.findById("reservation-1")).thenReturn(Optional.of(reservation));
-        when(reservationRepository.save(any(Reservation.class))).thenReturn(reservation);
+        when(reservationRepository.cancelIfActive("reservation-1")).thenReturn(Optional.of(reservation));
 
         // When
         boolean result = carRentalService.cancelReservation("reservation-1");
 
         // Then
         assertThat(result).isTrue();
-        verify(reservationRepository).save(argThat(r -> r.getStatus() == ReservationStatus.CANCELLED));
+        verify(availabilityCalendar).release(reservation);
+    }
+
+    @Test
+    void getReservation_ShouldServeFromCache_UntilReservationIsCancelled() {
+        // Given
+        Reservation reservation = Reservation.builder()
+            .id("reservation-1")
+            .carId(testCar.getId())
+            .customerEmail("john@example.com")
+            .startDateTime(futureDateTime)
+            .durationDays(3)
+            .build();
+
+        when(reservationRepository.findById("reservation-1")).thenReturn(Optional.of(reservation));
+        when(carRepository.findById(testCar.getId())).thenReturn(Optional.of(testCar));
+        when(reservationRepository.cancelIfActive("reservation-1")).thenAnswer(invocation -> {
+            reservation.setStatus(ReservationStatus.CANCELLED);
+            return Optional.of(reservation);
+        });
+
+        // When
+        carRentalService.getReservation("reservation-1");
+        carRentalService.getReservation("reservation-1");
+        carRentalService.cancelReservation("reservation-1");
+        Optional<ReservationResponse> afterCancel = carRentalService.getReservation("reservation-1");
+
+        // Then
+        assertThat(afterCancel).get().extracting(ReservationResponse::getStatus).isEqualTo(ReservationStatus.CANCELLED);
+        verify(carRepository, times(2)).findById(testCar.getId());
+        verify(responseCache).invalidate("reservation-1", "john@example.com");
+        assertThat(responseCache.stats().hits()).isEqualTo(1);
     }
 
     @Test
@@ -223,6 +439,7 @@ class CarRentalServiceTest {
         assertThatThrownBy(() -> carRentalService.cancelReservation("reservation-1"))
             .isInstanceOf(InvalidReservationException.class)
             .hasMessageContaining("Cannot cancel reservation that is not active");
+        verifyNoInteractions(availabilityCalendar);
     }
 
     @Test
@@ -274,7 +491,7 @@ class CarRentalServiceTest {
             .build();
 
         when(reservationRepository.findByCustomerEmail("john@example.com"))
-            .thenReturn(List.of(reservation1, reservation2));
+            .thenReturn(List.of(reservation2, reservation1));
         when(carRepository.findById("car-1")).thenReturn(Optional.of(testCar));
         when(carRepository.findById("car-2")).thenReturn(Optional.of(testCar));
 
@@ -283,11 +500,84 @@ class CarRentalServiceTest {
 
         // Then
         assertThat(responses).hasSize(2);
-        // Should be sorted by creation date descending
+        // Should keep the repository's newest-first timeline order
         assertThat(responses.get(0).getReservationId()).isEqualTo("res-2");
         assertThat(responses.get(1).getReservationId()).isEqualTo("res-1");
     }
 
+    @Test
+    void getReservationsForCustomer_ShouldReturnNextCursor_WhenMoreReservationsFollow() {
+        // Given
+        List<Reservation> timeline = new ArrayList<>();
+        for (int i = 3; i > 0; i--) {
+            timeline.add(Reservation.builder()
+                .id("res-" + i)
+                .carId(testCar.getId())
+                .customerEmail("john@example.com")
+                .startDateTime(futureDateTime)
+                .durationDays(1)
+                .createdAt(futureDateTime.minusDays(10 - i))
+                .build());
+        }
+        when(reservationRepository.findCustomerTimeline("john@example.com", null, 3)).thenReturn(timeline);
+        when(reservationRepository.findCustomerTimeline(eq("john@example.com"), any(TimelineCursor.class), eq(3)))
+            .thenReturn(timeline.subList(2, 3));
+        when(carRepository.findById(testCar.getId())).thenReturn(Optional.of(testCar));
+
+        // When
+        ReservationPage firstPage = carRentalService.getReservationsForCustomer("john@example.com", null, 2);
+        ReservationPage lastPage = carRentalService.getReservationsForCustomer(
+            "john@example.com", firstPage.getNextCursor(), 2);
+
+        // Then
+        assertThat(firstPage.getReservations()).extracting(ReservationResponse::getReservationId)
+            .containsExactly("res-3", "res-2");
+        assertThat(lastPage.getReservations()).extracting(ReservationResponse::getReservationId)
+            .containsExactly("res-1");
+        assertThat(lastPage.getNextCursor()).isNull();
+        verify(reservationRepository).findCustomerTimeline(
+            "john@example.com", TimelineCursor.of(timeline.get(1)), 3);
+    }
+
+    @Test
+    void getReservationsForCustomer_ShouldThrowException_WhenCursorIsInvalid() {
+        assertThatThrownBy(() -> carRentalService.getReservationsForCustomer("john@example.com", "not a cursor", 10))
+            .isInstanceOf(InvalidReservationException.class)
+            .hasMessageContaining("Invalid cursor");
+        assertThatThrownBy(() -> carRentalService.getReservationsForCustomer("john@example.com", null, 0))
+            .isInstanceOf(InvalidReservationException.class);
+    }
+
+    @Test
+    void exportReservations_ShouldScanStartRangeAndFilterByStatus() {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 10, 0);
+        Reservation active = Reservation.builder().id("active").carId(testCar.getId())
+            .startDateTime(start.plusDays(1)).durationDays(1).build();
+        Reservation cancelled = Reservation.builder().id("cancelled").carId(testCar.getId())
+            .startDateTime(start.plusDays(2)).durationDays(1).status(ReservationStatus.CANCELLED).build();
+        when(reservationRepository.scanStartingBetween(start, start.plusDays(7)))
+            .thenReturn(List.of(active, cancelled).iterator());
+        when(carRepository.findById(testCar.getId())).thenReturn(Optional.of(testCar));
+
+        // When
+        List<ReservationResponse> exported = carRentalService
+            .exportReservations(ReservationStatus.ACTIVE, start, start.plusDays(7))
+            .collect(Collectors.toList());
+
+        // Then
+        assertThat(exported).extracting(ReservationResponse::getReservationId).containsExactly("active");
+    }
+
+    @Test
+    void exportReservations_ShouldThrowException_WhenRangeIsEmpty() {
+        LocalDateTime start = LocalDateTime.of(2031, 1, 1, 10, 0);
+
+        assertThatThrownBy(() -> carRentalService.exportReservations(null, start, start))
+            .isInstanceOf(InvalidReservationException.class);
+        verifyNoInteractions(reservationRepository);
+    }
+
     @Test
     void getAvailabilityByType_ShouldReturnCorrectCounts() {
         // Given
@@ -295,8 +585,8 @@ class CarRentalServiceTest {
         when(carRepository.findByCarType(CarType.SUV)).thenReturn(Collections.emptyList());
         when(carRepository.findByCarType(CarType.VAN)).thenReturn(Collections.emptyList());
 
-        when(reservationRepository.findOverlappingReservations(eq(testCar.getId()), any(), any()))
-            .thenReturn(Collections.emptyList());
+        when(availabilityCalendar.countAvailable(eq(CarType.SEDAN), eq(List.of(testCar)), any(), any()))
+            .thenReturn(1L);
 
         // When
         Map<CarType, Long> availability = carRentalService.getAvailabilityByType(
@@ -307,4 +597,33 @@ class CarRentalServiceTest {
         assertThat(availability).containsEntry(CarType.SUV, 0L);
         assertThat(availability).containsEntry(CarType.VAN, 0L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getDailyAvailability_ShouldKeyCalendarCountsByDay() {
+        // Given
+        LocalDate from = futureDateTime.toLocalDate();
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
+        when(availabilityCalendar.countAvailablePerDay(CarType.SEDAN, 1, from, from.plusDays(2)))
+            .thenReturn(new long[] {1, 0});
+
+        // When
+        Map<LocalDate, Long> availability = carRentalService.getDailyAvailability(CarType.SEDAN, from, from.plusDays(2));
+
+        // Then
+        assertThat(availability).containsExactly(entry(from, 1L), entry(from.plusDays(1), 0L));
+    }
+
+    @Test
+    void getDailyAvailability_ShouldRejectRangeBeyondHorizon() {
+        // Given
+        LocalDate from = futureDateTime.toLocalDate().plusYears(5);
+        when(carRepository.findByCarType(CarType.SEDAN)).thenReturn(List.of(testCar));
+        when(availabilityCalendar.countAvailablePerDay(CarType.SEDAN, 1, from, from.plusDays(2)))
+            .thenThrow(new IllegalArgumentException("Daily availability covers 2030-01-01 to 2031-02-05"));
+
+        // When & Then
+        assertThatThrownBy(() -> carRentalService.getDailyAvailability(CarType.SEDAN, from, from.plusDays(2)))
+            .isInstanceOf(InvalidReservationException.class)
+            .hasMessageContaining("Daily availability covers");
+    }
+}
@@ -0,0 +1,72 @@
+package com.rental.service;
+
+import com.rental.dto.ReservationRequest;
+import com.rental.dto.ReservationResponse;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.model.CarType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveCarRentalServiceTest {
+
+    private final CarRentalService carRentalService = mock(CarRentalService.class);
+    private Scheduler blockingScheduler;
+    private ReactiveCarRentalService reactiveService;
+
+    @BeforeEach
+    void setUp() {
+        blockingScheduler = Schedulers.newSingle("test-blocking");
+        reactiveService = new ReactiveCarRentalService(carRentalService, blockingScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reactiveService.close();
+    }
+
+    @Test
+    void createReservation_ShouldRunOnBlockingScheduler_OnlyWhenSubscribed() {
+        // Given
+        ReservationRequest request = ReservationRequest.builder().carType(CarType.SEDAN).build();
+        ReservationResponse response = ReservationResponse.builder().reservationId("reservation-1").build();
+        AtomicReference<String> thread = new AtomicReference<>();
+        when(carRentalService.createReservation(request)).thenAnswer(invocation -> {
+            thread.set(Thread.currentThread().getName());
+            return response;
+        });
+
+        // When
+        Mono<ReservationResponse> created = reactiveService.createReservation(request);
+        verifyNoInteractions(carRentalService);
+
+        // Then
+        assertThat(created.block()).isEqualTo(response);
+        assertThat(thread.get()).startsWith("test-blocking");
+    }
+
+    @Test
+    void getReservation_ShouldCompleteEmpty_WhenNotFound() {
+        when(carRentalService.getReservation("missing")).thenReturn(Optional.empty());
+
+        assertThat(reactiveService.getReservation("missing").blockOptional()).isEmpty();
+    }
+
+    @Test
+    void createReservation_ShouldSignalServiceErrors() {
+        ReservationRequest request = ReservationRequest.builder().carType(CarType.VAN).build();
+        when(carRentalService.createReservation(request)).thenThrow(new CarNotAvailableException("No Van available"));
+
+        assertThatThrownBy(() -> reactiveService.createReservation(request).block())
+            .isInstanceOf(CarNotAvailableException.class);
+    }
+}
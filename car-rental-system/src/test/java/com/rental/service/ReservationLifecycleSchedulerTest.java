@@ -0,0 +1,88 @@
+package com.rental.service;
+
+import com.rental.model.Reservation;
+import com.rental.model.ReservationStatus;
+import com.rental.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationLifecycleSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private AvailabilityCalendar availabilityCalendar;
+
+    @Mock
+    private ReservationResponseCache responseCache;
+
+    private ReservationLifecycleScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new ReservationLifecycleScheduler(reservationRepository, availabilityCalendar, responseCache, 2,
+            Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void completeEndedReservations_ShouldDrainFullBatchesAndReleaseEveryReservation() {
+        // Given
+        Reservation first = completed("r-1", "a@example.com");
+        Reservation second = completed("r-2", "b@example.com");
+        Reservation third = completed("r-3", "a@example.com");
+        when(reservationRepository.completeEndedBy(NOW, 2))
+            .thenReturn(List.of(first, second))
+            .thenReturn(List.of(third));
+
+        // When
+        int completed = scheduler.completeEndedReservations();
+
+        // Then
+        assertThat(completed).isEqualTo(3);
+        verify(reservationRepository, times(2)).completeEndedBy(NOW, 2);
+        for (Reservation reservation : List.of(first, second, third)) {
+            verify(availabilityCalendar).release(reservation);
+            verify(responseCache).invalidate(reservation.getId(), reservation.getCustomerEmail());
+        }
+    }
+
+    @Test
+    void completeEndedReservations_ShouldKeepRunning_WhenRepositoryFails() {
+        // Given
+        when(reservationRepository.completeEndedBy(any(), anyInt())).thenThrow(new IllegalStateException("disk full"));
+
+        // When
+        int completed = scheduler.completeEndedReservations();
+
+        // Then
+        assertThat(completed).isZero();
+        verifyNoInteractions(availabilityCalendar, responseCache);
+    }
+
+    private static Reservation completed(String id, String customerEmail) {
+        return Reservation.builder()
+            .id(id)
+            .carId("car-1")
+            .customerEmail(customerEmail)
+            .startDateTime(NOW.minusDays(3))
+            .durationDays(1)
+            .status(ReservationStatus.COMPLETED)
+            .build();
+    }
+}
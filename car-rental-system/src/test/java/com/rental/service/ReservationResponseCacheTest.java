@@ -0,0 +1,161 @@
+package com.rental.service;
+
+import com.rental.dto.ReservationResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReservationResponseCacheTest {
+
+    private MovableClock clock;
+    private ReservationResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MovableClock();
+        cache = new ReservationResponseCache(2, Duration.ofSeconds(60), clock);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void getReservation_ShouldLoadOnce_WhileEntryIsFresh() {
+        // When
+        cache.getReservation("r-1", this::load);
+        cache.getReservation("r-1", this::load);
+
+        // Then
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats()).isEqualTo(new ReservationResponseCache.CacheStats(1, 1, 0, 1));
+    }
+
+    @Test
+    void getReservation_ShouldReload_WhenEntryExpired() {
+        // Given
+        cache.getReservation("r-1", this::load);
+
+        // When
+        clock.advance(Duration.ofSeconds(61));
+        cache.getReservation("r-1", this::load);
+
+        // Then
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void getReservation_ShouldEvictLeastRecentlyUsed_WhenFull() {
+        // Given
+        cache.getReservation("r-1", this::load);
+        cache.getReservation("r-2", this::load);
+        cache.getReservation("r-1", this::load);
+
+        // When
+        cache.getReservation("r-3", this::load);
+        cache.getReservation("r-1", this::load);
+        cache.getReservation("r-2", this::load);
+
+        // Then
+        assertThat(loads).hasValue(4);
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+    }
+
+    @Test
+    void getReservation_ShouldNotCacheMisses() {
+        // When
+        cache.getReservation("missing", id -> Optional.empty());
+        Optional<ReservationResponse> found = cache.getReservation("missing", this::load);
+
+        // Then
+        assertThat(found).isPresent();
+    }
+
+    @Test
+    void getCustomerHistory_ShouldReload_AfterInvalidation() {
+        // Given
+        cache.getCustomerHistory("a@example.com", this::loadHistory);
+
+        // When
+        cache.invalidate(null, "a@example.com");
+        cache.getCustomerHistory("a@example.com", this::loadHistory);
+
+        // Then
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void getReservation_ShouldNotCacheLoad_RacingWithInvalidation() {
+        // Given
+        cache.getReservation("r-1", id -> {
+            cache.invalidate(id, null);
+            return load(id);
+        });
+
+        // When
+        cache.getReservation("r-1", this::load);
+
+        // Then
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().size()).isEqualTo(1);
+    }
+
+    @Test
+    void getReservation_ShouldCacheLoad_WhenOtherKeyIsInvalidatedMeanwhile() {
+        // Given
+        cache.getReservation("r-1", id -> {
+            cache.invalidate("r-2", "a@example.com");
+            return load(id);
+        });
+
+        // When
+        cache.getReservation("r-1", this::load);
+
+        // Then
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+    }
+
+    private Optional<ReservationResponse> load(String reservationId) {
+        loads.incrementAndGet();
+        return Optional.of(ReservationResponse.builder().reservationId(reservationId).build());
+    }
+
+    private List<ReservationResponse> loadHistory(String customerEmail) {
+        loads.incrementAndGet();
+        return List.of(ReservationResponse.builder().customerEmail(customerEmail).build());
+    }
+
+    private static final class MovableClock extends Clock {
+
+        private Instant now = Instant.parse("2030-01-10T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.rental.shard;
+
+import com.rental.dto.ReservationRequest;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.exception.ShardUnavailableException;
+import com.rental.model.CarType;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Calls a stub node listening on localhost.
+ */
+class RemoteCarRentalServiceTest {
+
+    private final AtomicReference<String> requested = new AtomicReference<>();
+    private final AtomicReference<Integer> status = new AtomicReference<>(200);
+    private final AtomicReference<String> body = new AtomicReference<>("");
+
+    private HttpServer server;
+    private RemoteCarRentalService remote;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requested.set(exchange.getRequestMethod() + " " + exchange.getRequestURI());
+            byte[] response = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), response.length == 0 ? -1 : response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        remote = new RemoteCarRentalService("http://localhost:" + server.getAddress().getPort() + "/",
+            HttpClient.newHttpClient(), Jackson2ObjectMapperBuilder.json().build(), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void getAvailabilityByType_ShouldQueryNodeAndReadCounts() {
+        // Given
+        body.set("{\"SEDAN\":2,\"SUV\":0,\"VAN\":1}");
+        LocalDateTime start = LocalDateTime.of(2030, 5, 1, 9, 30);
+
+        // When
+        Map<CarType, Long> availability = remote.getAvailabilityByType(start, start.plusDays(2));
+
+        // Then
+        assertThat(availability).containsEntry(CarType.SEDAN, 2L).containsEntry(CarType.VAN, 1L);
+        assertThat(requested.get()).isEqualTo(
+            "GET /api/car-rental/availability?startDateTime=2030-05-01T09%3A30&endDateTime=2030-05-03T09%3A30");
+    }
+
+    @Test
+    void createReservation_ShouldRethrowRejectionOfNode() {
+        // Given
+        status.set(409);
+        body.set("{\"status\":409,\"error\":\"Car Not Available\",\"message\":\"No Sedan available\",\"details\":{}}");
+        ReservationRequest request = ReservationRequest.builder().carType(CarType.SEDAN).durationDays(1).build();
+
+        // When / Then
+        assertThatThrownBy(() -> remote.createReservation(request))
+            .isInstanceOf(CarNotAvailableException.class)
+            .hasMessage("No Sedan available");
+        assertThat(requested.get()).isEqualTo("POST /api/car-rental/reservations");
+    }
+
+    @Test
+    void getReservation_ShouldBeEmpty_WhenNodeDoesNotKnowId() {
+        // Given
+        status.set(404);
+
+        // When / Then
+        assertThat(remote.getReservation("0A8A9JBBW0003")).isEmpty();
+        assertThat(requested.get()).isEqualTo("GET /api/car-rental/reservations/0A8A9JBBW0003");
+    }
+
+    @Test
+    void getCarsByType_ShouldFailAsUnavailable_WhenNodeIsDown() {
+        // Given
+        server.stop(0);
+
+        // When / Then
+        assertThatThrownBy(() -> remote.getCarsByType(CarType.SUV))
+            .isInstanceOf(ShardUnavailableException.class)
+            .hasMessageStartingWith("Shard at http://localhost:");
+    }
+}
@@ -0,0 +1,237 @@
+package com.rental.shard;
+
+import com.rental.dto.ReservationPage;
+import com.rental.dto.ReservationRequest;
+import com.rental.dto.ReservationResponse;
+import com.rental.exception.CarNotAvailableException;
+import com.rental.exception.InvalidReservationException;
+import com.rental.id.IdGenerator;
+import com.rental.id.Ids;
+import com.rental.id.SnowflakeIdGenerator;
+import com.rental.metrics.BookingMetrics;
+import com.rental.model.Car;
+import com.rental.model.CarType;
+import com.rental.model.Reservation;
+import com.rental.persistence.EntityJournal;
+import com.rental.repository.CarRepositoryImpl;
+import com.rental.repository.InMemoryReservationHistory;
+import com.rental.repository.ReservationRepositoryImpl;
+import com.rental.service.AvailabilityCalendar;
+import com.rental.service.BestFitAllocationStrategy;
+import com.rental.service.CarRentalService;
+import com.rental.service.CarRentalServiceImpl;
+import com.rental.service.ReservationResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Routes over two in-process nodes, each with its own repositories and fleet.
+ */
+class ShardRouterTest {
+
+    private final ExecutorService scatterExecutor = Executors.newFixedThreadPool(2);
+
+    private Node north;
+    private Node south;
+    private ShardRouter router;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        north = new Node("north", 1);
+        south = new Node("south", 2);
+        router = new ShardRouter(List.of(north.shard(false), south.shard(false)), scatterExecutor);
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+    }
+
+    @Test
+    void createReservation_ShouldBookAtShardOwningBranch() {
+        // When
+        ReservationResponse response = router.createReservation(request("south", "ann@example.com", start));
+
+        // Then
+        assertThat(response.getBranch()).isEqualTo("south");
+        assertThat(south.reservations.findAll()).extracting(Reservation::getId)
+            .containsExactly(response.getReservationId());
+        assertThat(north.reservations.findAll()).isEmpty();
+    }
+
+    @Test
+    void createReservation_ShouldTryNextShard_WhenNoBranchIsGivenAndFirstIsFull() {
+        // When
+        ReservationResponse first = router.createReservation(request(null, "ann@example.com", start));
+        ReservationResponse second = router.createReservation(request(null, "bob@example.com", start));
+
+        // Then
+        assertThat(first.getBranch()).isEqualTo("north");
+        assertThat(second.getBranch()).isEqualTo("south");
+        assertThatThrownBy(() -> router.createReservation(request(null, "cid@example.com", start)))
+            .isInstanceOf(CarNotAvailableException.class);
+    }
+
+    @Test
+    void createReservation_ShouldRejectUnknownBranch() {
+        assertThatThrownBy(() -> router.createReservation(request("east", "ann@example.com", start)))
+            .isInstanceOf(InvalidReservationException.class)
+            .hasMessage("Unknown branch: east");
+    }
+
+    @Test
+    void createReservations_ShouldRejectBatchSpanningShards() {
+        // Given
+        List<ReservationRequest> batch = List.of(
+            request("north", "ann@example.com", start),
+            request("south", "ann@example.com", start));
+
+        // When / Then
+        assertThatThrownBy(() -> router.createReservations(batch))
+            .isInstanceOf(InvalidReservationException.class)
+            .hasMessageContaining("north, south");
+        assertThat(north.reservations.findAll()).isEmpty();
+        assertThat(south.reservations.findAll()).isEmpty();
+    }
+
+    @Test
+    void getAvailabilityByType_ShouldSumAnswersOfAllShards() {
+        // Given
+        router.createReservation(request("north", "ann@example.com", start));
+
+        // When
+        Map<CarType, Long> availability = router.getAvailabilityByType(start, start.plusDays(1));
+
+        // Then
+        assertThat(availability).containsEntry(CarType.SEDAN, 1L).containsEntry(CarType.SUV, 0L);
+        assertThat(router.getCarsByType(CarType.SEDAN)).extracting(Car::getBranch)
+            .containsExactlyInAnyOrder("north", "south");
+    }
+
+    @Test
+    void getReservationsForCustomer_ShouldPageThroughAllShardsNewestFirst() {
+        // Given
+        List<String> booked = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            LocalDateTime dayStart = start.plusDays(day * 2);
+            booked.add(router.createReservation(request("north", "ann@example.com", dayStart)).getReservationId());
+            booked.add(router.createReservation(request("south", "ann@example.com", dayStart)).getReservationId());
+        }
+
+        // When
+        List<ReservationResponse> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            ReservationPage page = router.getReservationsForCustomer("ann@example.com", cursor, 4);
+            paged.addAll(page.getReservations());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Then
+        assertThat(paged).extracting(ReservationResponse::getReservationId)
+            .containsExactlyElementsOf(router.getReservationsForCustomer("ann@example.com").stream()
+                .map(ReservationResponse::getReservationId)
+                .toList())
+            .containsExactlyInAnyOrderElementsOf(booked);
+    }
+
+    @Test
+    void getReservation_ShouldAskOnlyShardWhoseNodeCreatedId() {
+        // Given
+        CarRentalService first = mock(CarRentalService.class);
+        CarRentalService second = mock(CarRentalService.class);
+        ShardRouter byNode = new ShardRouter(List.of(
+            new ShardRouter.Shard("north", first, Set.of("north"), 1),
+            new ShardRouter.Shard("south", second, Set.of("south"), 2)), scatterExecutor);
+        String id = Ids.encode(new SnowflakeIdGenerator(2).nextId());
+        ReservationResponse stored = ReservationResponse.builder().reservationId(id).build();
+        when(second.getReservation(id)).thenReturn(Optional.of(stored));
+
+        // When
+        Optional<ReservationResponse> found = byNode.getReservation(id);
+
+        // Then
+        assertThat(found).contains(stored);
+        verifyNoInteractions(first);
+    }
+
+    @Test
+    void getReservation_ShouldFindReservationAtNodeWhoseIdGeneratorCreatedIt() {
+        // Given
+        ShardRouter byNode = new ShardRouter(List.of(north.shard(true), south.shard(true)), scatterExecutor);
+        ReservationResponse booked = byNode.createReservation(request("south", "ann@example.com", start));
+
+        // When
+        Optional<ReservationResponse> found = byNode.getReservation(booked.getReservationId());
+
+        // Then
+        assertThat(SnowflakeIdGenerator.nodeIdOf(Ids.decode(booked.getReservationId()))).isEqualTo(2);
+        assertThat(found).get().extracting(ReservationResponse::getBranch).isEqualTo("south");
+    }
+
+    @Test
+    void constructor_ShouldRejectBranchOwnedByTwoShards() {
+        assertThatThrownBy(() -> new ShardRouter(List.of(
+                new ShardRouter.Shard("a", north.service, Set.of("north"), null),
+                new ShardRouter.Shard("b", south.service, Set.of("north"), null)), scatterExecutor))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Branch north is owned by both a and b");
+    }
+
+    private static ReservationRequest request(String branch, String email, LocalDateTime start) {
+        return ReservationRequest.builder()
+            .branch(branch)
+            .carType(CarType.SEDAN)
+            .customerName("Customer")
+            .customerEmail(email)
+            .startDateTime(start)
+            .durationDays(1)
+            .build();
+    }
+
+    /**
+     * One node: a branch with a single sedan.
+     */
+    private static final class Node {
+
+        private final String branch;
+        private final int nodeId;
+        private final CarRepositoryImpl cars;
+        private final ReservationRepositoryImpl reservations;
+        private final CarRentalServiceImpl service;
+
+        private Node(String branch, int nodeId) {
+            IdGenerator ids = new SnowflakeIdGenerator(nodeId);
+            this.branch = branch;
+            this.nodeId = nodeId;
+            this.cars = new CarRepositoryImpl(EntityJournal.none(), branch, ids);
+            this.reservations = new ReservationRepositoryImpl(EntityJournal.none(), new InMemoryReservationHistory(), ids);
+            this.service = new CarRentalServiceImpl(
+                cars, reservations, new AvailabilityCalendar(reservations, 400),
+                new ReservationResponseCache(100, 60), new BookingMetrics(new SimpleMeterRegistry()),
+                new BestFitAllocationStrategy());
+            cars.save(Car.builder().branch(branch).licensePlate("SEDAN" + nodeId).carType(CarType.SEDAN).build());
+        }
+
+        private ShardRouter.Shard shard(boolean routedByNodeId) {
+            return new ShardRouter.Shard(branch, service, Set.of(branch), routedByNodeId ? nodeId : null);
+        }
+    }
+}